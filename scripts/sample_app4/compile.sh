@@ -1,4 +1,4 @@
 #!/bin/sh
 rm -rf ../../bin
 mkdir ../../bin
-javac -classpath "../../lib/cloudsim-4.0.jar:../../lib/commons-math3-3.6.1.jar:../../lib/jFuzzyLogic_v3.0.jar:../../lib/colt.jar" -sourcepath ../../src ../../src/edu/boun/edgecloudsim/applications/sample_app4/FuzzyMainApp.java -d ../../bin
+javac -classpath "../../lib/cloudsim-4.0.jar:../../lib/commons-math3-3.6.1.jar:../../lib/jFuzzyLogic_v3.0.jar:../../lib/colt.jar" -sourcepath ../../src ../../src/edu/boun/edgecloudsim/applications/sample_app4/FuzzyMainApp.java ../../src/edu/boun/edgecloudsim/core/SweepRunner.java ../../src/edu/boun/edgecloudsim/utils/BinaryLogExporter.java ../../src/edu/boun/edgecloudsim/utils/ResultAggregator.java -d ../../bin
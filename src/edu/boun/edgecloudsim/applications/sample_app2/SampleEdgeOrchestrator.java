@@ -24,6 +24,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import edu.boun.edgecloudsim.cloud_server.CloudVM;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
@@ -92,12 +93,12 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 			}
 			else {
 				SimLogger.printLine("Unknow edge orchestrator policy! Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 			}
 		}
 		else {
 			SimLogger.printLine("Unknow simulation scenario! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		return result;
 	}
@@ -139,7 +140,7 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 		}
 		else{
 			SimLogger.printLine("Unknown device id! The simulation has been terminated.");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		
 		return selectedVM;
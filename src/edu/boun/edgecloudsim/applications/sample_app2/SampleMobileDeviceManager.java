@@ -18,6 +18,9 @@
  * they access the edge server via two hops where the packets
  * must go through WLAN and MAN.
  * 
+ * If the flow level network model is enabled, the transfers are
+ * started on FlowNetworkModel which decides when they finish.
+ * 
  * If you want to use different topology, you should modify
  * the flow implemented in this class.
  * 
@@ -37,11 +40,13 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.MobileDeviceManager;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.edge_server.EdgeHost;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
+import edu.boun.edgecloudsim.network.FlowNetworkModel;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 import edu.boun.edgecloudsim.utils.Location;
@@ -50,7 +55,6 @@ import edu.boun.edgecloudsim.utils.SimLogger;
 public class SampleMobileDeviceManager extends MobileDeviceManager {
 	private static final int BASE = 100000; //start from base in order not to conflict cloudsim tag!
 	
-	private static final int UPDATE_MM1_QUEUE_MODEL = BASE + 1;
 	private static final int REQUEST_RECEIVED_BY_CLOUD = BASE + 2;
 	private static final int REQUEST_RECEIVED_BY_EDGE_DEVICE = BASE + 3;
 	private static final int REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE = BASE + 4;
@@ -58,8 +62,6 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 	private static final int RESPONSE_RECEIVED_BY_MOBILE_DEVICE = BASE + 6;
 	private static final int RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE = BASE + 7;
 
-	private static final double MM1_QUEUE_MODEL_UPDATE_INTEVAL = 5; //seconds
-	
 	private int taskIdCounter=0;
 	
 	public SampleMobileDeviceManager() throws Exception{
@@ -74,13 +76,6 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		return new CpuUtilizationModel_Custom();
 	}
 	
-	@Override
-	public void startEntity() {
-		super.startEntity();
-		schedule(getId(), SimSettings.CLIENT_ACTIVITY_START_TIME +
-				MM1_QUEUE_MODEL_UPDATE_INTEVAL, UPDATE_MM1_QUEUE_MODEL);
-	}
-	
 	/**
 	 * Submit cloudlets to the created VMs.
 	 * 
@@ -109,12 +104,11 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			double WanDelay = networkModel.getDownloadDelay(SimSettings.CLOUD_DATACENTER_ID, task.getMobileDeviceId(), task);
 			if(WanDelay > 0)
 			{
-				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+WanDelay);
-				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
+				int currentWlanId = SimManager.getInstance().getMobilityModel().getServingWlanId(task.getMobileDeviceId(),CloudSim.clock()+WanDelay);
+				if(task.getSubmittedLocation().getServingWlanId() == currentWlanId)
 				{
 					networkModel.downloadStarted(task.getSubmittedLocation(), SimSettings.CLOUD_DATACENTER_ID);
-					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY);
-					schedule(getId(), WanDelay, RESPONSE_RECEIVED_BY_MOBILE_DEVICE, task);
+					startDownload(task, SimSettings.CLOUD_DATACENTER_ID, WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY, RESPONSE_RECEIVED_BY_MOBILE_DEVICE);
 				}
 				else
 				{
@@ -141,7 +135,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			//if neighbor edge device is selected
 			if(host.getLocation().getServingWlanId() != task.getSubmittedLocation().getServingWlanId())
 			{
-				delay = networkModel.getDownloadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
+				delay = getManDelay(task, false);
 				nextEvent = RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE;
 				nextDeviceForNetworkModel = SimSettings.GENERIC_EDGE_DEVICE_ID + 1;
 				delayType = NETWORK_DELAY_TYPES.MAN_DELAY;
@@ -152,10 +146,13 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+delay);
 				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
 				{
-					networkModel.downloadStarted(currentLocation, nextDeviceForNetworkModel);
-					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, delayType);
-					
-					schedule(getId(), delay, nextEvent, task);
+					if(nextDeviceForNetworkModel == SimSettings.GENERIC_EDGE_DEVICE_ID + 1) {
+						startManTransfer(task, false, delay, nextEvent);
+					}
+					else {
+						networkModel.downloadStarted(currentLocation, nextDeviceForNetworkModel);
+						startDownload(task, nextDeviceForNetworkModel, delay, delayType, nextEvent);
+					}
 				}
 				else
 				{
@@ -172,20 +169,13 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 	protected void processOtherEvent(SimEvent ev) {
 		if (ev == null) {
 			SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - an event is null! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 			return;
 		}
 		
 		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
 		
 		switch (ev.getTag()) {
-			case UPDATE_MM1_QUEUE_MODEL:
-			{
-				((SampleNetworkModel)networkModel).updateMM1QueeuModel();
-				schedule(getId(), MM1_QUEUE_MODEL_UPDATE_INTEVAL, UPDATE_MM1_QUEUE_MODEL);
-	
-				break;
-			}
 			case REQUEST_RECEIVED_BY_CLOUD:
 			{
 				Task task = (Task) ev.getData();
@@ -203,7 +193,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			case REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE:
 			{
 				Task task = (Task) ev.getData();
-				networkModel.uploadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
+				manTransferFinished(task);
 				submitTaskToVm(task, SimSettings.VM_TYPES.EDGE_VM);
 				
 				break;
@@ -213,11 +203,9 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				Task task = (Task) ev.getData();
 				networkModel.uploadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID);
 				
-				double manDelay =  networkModel.getUploadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
+				double manDelay = getManDelay(task, true);
 				if(manDelay>0){
-					networkModel.uploadStarted(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
-					SimLogger.getInstance().setUploadDelay(task.getCloudletId(), manDelay, NETWORK_DELAY_TYPES.MAN_DELAY);
-					schedule(getId(), manDelay, REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE, task);
+					startManTransfer(task, true, manDelay, REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE);
 				}
 				else
 				{
@@ -234,7 +222,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			case RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE:
 			{
 				Task task = (Task) ev.getData();
-				networkModel.downloadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
+				manTransferFinished(task);
 				
 				//SimLogger.printLine(CloudSim.clock() + ": " + getName() + ": task #" + task.getCloudletId() + " received from edge");
 				double delay = networkModel.getDownloadDelay(task.getAssociatedHostId(), task.getMobileDeviceId(), task);
@@ -245,8 +233,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 					if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
 					{
 						networkModel.downloadStarted(currentLocation, SimSettings.GENERIC_EDGE_DEVICE_ID);
-						SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, NETWORK_DELAY_TYPES.WLAN_DELAY);
-						schedule(getId(), delay, RESPONSE_RECEIVED_BY_MOBILE_DEVICE, task);
+						startDownload(task, SimSettings.GENERIC_EDGE_DEVICE_ID, delay, NETWORK_DELAY_TYPES.WLAN_DELAY, RESPONSE_RECEIVED_BY_MOBILE_DEVICE);
 					}
 					else
 					{
@@ -274,7 +261,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			}
 			default:
 				SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker. Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 				break;
 		}
 	}
@@ -350,9 +337,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 				networkModel.uploadStarted(currentLocation, nextDeviceForNetworkModel);
 				
 				SimLogger.getInstance().taskStarted(task.getCloudletId(), CloudSim.clock());
-				SimLogger.getInstance().setUploadDelay(task.getCloudletId(), delay, delayType);
-
-				schedule(getId(), delay, nextEvent, task);
+				startUpload(task, nextDeviceForNetworkModel, delay, delayType, nextEvent);
 			}
 			else{
 				//SimLogger.printLine("Task #" + task.getCloudletId() + " cannot assign to any VM");
@@ -366,6 +351,77 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		}
 	}
 	
+	/**
+	 * Starts the upload of the task; a flow level network model decides when
+	 * the upload finishes, otherwise it takes the given delay.
+	 */
+	private void startUpload(Task task, int destDeviceId, double delay, NETWORK_DELAY_TYPES delayType, int tag) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof FlowNetworkModel) {
+			((FlowNetworkModel)networkModel).startUpload(task, destDeviceId, getId(), tag);
+		}
+		else {
+			SimLogger.getInstance().setUploadDelay(task.getCloudletId(), delay, delayType);
+			schedule(getId(), delay, tag, task);
+		}
+	}
+	
+	/**
+	 * Starts the download of the task result; a flow level network model
+	 * decides when the download finishes, otherwise it takes the given delay.
+	 */
+	private void startDownload(Task task, int sourceDeviceId, double delay, NETWORK_DELAY_TYPES delayType, int tag) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof FlowNetworkModel) {
+			((FlowNetworkModel)networkModel).startDownload(task, sourceDeviceId, getId(), tag);
+		}
+		else {
+			SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, delayType);
+			schedule(getId(), delay, tag, task);
+		}
+	}
+	
+	/**
+	 * Returns the estimated delay of the MAN transfer between the edge
+	 * device of the mobile device and the neighbor edge device.
+	 */
+	private double getManDelay(Task task, boolean upload) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof FlowNetworkModel)
+			return ((FlowNetworkModel)networkModel).getManDelay(task, upload);
+		else if(upload)
+			return networkModel.getUploadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
+		else
+			return networkModel.getDownloadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
+	}
+	
+	/**
+	 * Starts the MAN transfer between the edge device of the mobile device
+	 * and the neighbor edge device in the given direction.
+	 */
+	private void startManTransfer(Task task, boolean upload, double delay, int tag) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof FlowNetworkModel) {
+			((FlowNetworkModel)networkModel).startManTransfer(task, upload, getId(), tag);
+		}
+		else if(upload) {
+			((SampleNetworkModel)networkModel).manTransferStarted(task, SampleNetworkModel.LINK_TYPE.UPLOAD);
+			SimLogger.getInstance().setUploadDelay(task.getCloudletId(), delay, NETWORK_DELAY_TYPES.MAN_DELAY);
+			schedule(getId(), delay, tag, task);
+		}
+		else {
+			((SampleNetworkModel)networkModel).manTransferStarted(task, SampleNetworkModel.LINK_TYPE.DOWNLOAD);
+			SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, NETWORK_DELAY_TYPES.MAN_DELAY);
+			schedule(getId(), delay, tag, task);
+		}
+	}
+	
+	private void manTransferFinished(Task task) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof SampleNetworkModel)
+			((SampleNetworkModel)networkModel).manTransferFinished(task);
+	}
+	
 	private void submitTaskToVm(Task task, SimSettings.VM_TYPES vmType) {
 		//SimLogger.printLine(CloudSim.clock() + ": Cloudlet#" + task.getCloudletId() + " is submitted to VM#" + task.getVmId());
 		schedule(getVmsToDatacentersMap().get(task.getVmId()), 0, CloudSimTags.CLOUDLET_SUBMIT, task);
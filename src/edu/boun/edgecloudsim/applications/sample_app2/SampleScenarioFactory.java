@@ -13,6 +13,7 @@ package edu.boun.edgecloudsim.applications.sample_app2;
 import edu.boun.edgecloudsim.cloud_server.CloudServerManager;
 import edu.boun.edgecloudsim.cloud_server.DefaultCloudServerManager;
 import edu.boun.edgecloudsim.core.ScenarioFactory;
+import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
 import edu.boun.edgecloudsim.edge_server.DefaultEdgeServerManager;
 import edu.boun.edgecloudsim.edge_server.EdgeServerManager;
@@ -23,6 +24,7 @@ import edu.boun.edgecloudsim.mobility.MobilityModel;
 import edu.boun.edgecloudsim.mobility.NomadicMobility;
 import edu.boun.edgecloudsim.task_generator.IdleActiveLoadGenerator;
 import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
+import edu.boun.edgecloudsim.network.FlowNetworkModel;
 import edu.boun.edgecloudsim.network.NetworkModel;
 
 public class SampleScenarioFactory implements ScenarioFactory {
@@ -58,6 +60,12 @@ public class SampleScenarioFactory implements ScenarioFactory {
 
 	@Override
 	public NetworkModel getNetworkModel() {
+		//the capacities of the links are the measured rates of a single client
+		if(SimSettings.getInstance().getFlowNetworkModelEnabled())
+			return new FlowNetworkModel(numOfMobileDevice, simScenario,
+					SampleNetworkModel.experimentalWlanDelay[0] * (double) 3, //802.11ac is around 3 times faster than 802.11n
+					SampleNetworkModel.experimentalWanDelay[0],
+					SampleNetworkModel.MAN_BW);
 		return new SampleNetworkModel(numOfMobileDevice, simScenario);
 	}
 
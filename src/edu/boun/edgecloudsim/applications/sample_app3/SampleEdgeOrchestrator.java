@@ -19,6 +19,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
@@ -66,7 +67,7 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 		}
 		else {
 			SimLogger.printLine("Unknow edge orchestrator policy! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 
 		return result;
@@ -101,7 +102,7 @@ public class SampleEdgeOrchestrator extends EdgeOrchestrator {
 		}
 		else{
 			SimLogger.printLine("Unknown device id! The simulation has been terminated.");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		
 		return selectedVM;
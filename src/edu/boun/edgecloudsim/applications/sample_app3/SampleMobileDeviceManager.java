@@ -32,6 +32,7 @@ import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
 import edu.boun.edgecloudsim.core.SimSettings.VM_TYPES;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.MobileDeviceManager;
 import edu.boun.edgecloudsim.edge_client.Task;
@@ -94,8 +95,8 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			
 			if(delay > 0)
 			{
-				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+delay);
-				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
+				int currentWlanId = SimManager.getInstance().getMobilityModel().getServingWlanId(task.getMobileDeviceId(),CloudSim.clock()+delay);
+				if(task.getSubmittedLocation().getServingWlanId() == currentWlanId)
 				{
 					networkModel.downloadStarted(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID);
 					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, NETWORK_DELAY_TYPES.WLAN_DELAY);
@@ -129,14 +130,14 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		}
 		else {
 			SimLogger.printLine("Unknown datacenter id! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 	
 	protected void processOtherEvent(SimEvent ev) {
 		if (ev == null) {
 			SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - an event is null! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 			return;
 		}
 		
@@ -167,7 +168,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 			}
 			default:
 				SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker. Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 				break;
 		}
 	}
@@ -224,7 +225,7 @@ public class SampleMobileDeviceManager extends MobileDeviceManager {
 		}
 		else {
 			SimLogger.printLine("Unknown nextHopId! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		
 		if(delay>0 || nextHopId == SimSettings.MOBILE_DATACENTER_ID){
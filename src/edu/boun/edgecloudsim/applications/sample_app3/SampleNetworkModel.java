@@ -17,6 +17,7 @@ import org.cloudbus.cloudsim.core.CloudSim;
 
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.Location;
@@ -25,6 +26,10 @@ import edu.boun.edgecloudsim.utils.SimLogger;
 public class SampleNetworkModel extends NetworkModel {
 	private int[] wlanClients;
 	
+	//rate of the WLAN link of each AP for the current number of clients, 0 if there
+	//are too many clients; it is updated when the number of clients changes
+	private double[] wlanRates; //Kbps
+	
 	public static final double[] experimentalWlanDelay = {
 		/*1 Client*/ 88040.279 /*(Kbps)*/,
 		/*2 Clients*/ 45150.982 /*(Kbps)*/,
@@ -136,6 +141,9 @@ public class SampleNetworkModel extends NetworkModel {
 	@Override
 	public void initialize() {
 		wlanClients = new int[SimSettings.getInstance().getNumOfEdgeDatacenters()];  //we have one access point for each datacenter
+		wlanRates = new double[wlanClients.length];
+		for(int i=0; i<wlanClients.length; i++)
+			changeWlanClients(i, 0);
 	}
 
     /**
@@ -151,7 +159,7 @@ public class SampleNetworkModel extends NetworkModel {
 		}
 		else {
 			SimLogger.printLine("Error - unknown device id in getUploadDelay(). Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		return delay;
 	}
@@ -171,7 +179,7 @@ public class SampleNetworkModel extends NetworkModel {
 		}
 		else {
 			SimLogger.printLine("Error - unknown device id in getDownloadDelay(). Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		
 		return delay;
@@ -180,57 +188,64 @@ public class SampleNetworkModel extends NetworkModel {
 	@Override
 	public void uploadStarted(Location accessPointLocation, int destDeviceId) {
 		if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
-			wlanClients[accessPointLocation.getServingWlanId()]++;
+			changeWlanClients(accessPointLocation.getServingWlanId(), 1);
 		}
 		else {
 			SimLogger.printLine("Error - unknown device id in uploadStarted(). Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
 	@Override
 	public void uploadFinished(Location accessPointLocation, int destDeviceId) {
 		 if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
-			wlanClients[accessPointLocation.getServingWlanId()]--;
+			changeWlanClients(accessPointLocation.getServingWlanId(), -1);
 		 }
 		else {
 			SimLogger.printLine("Error - unknown device id in uploadFinished(). Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
 	@Override
 	public void downloadStarted(Location accessPointLocation, int sourceDeviceId) {
 		if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
-			wlanClients[accessPointLocation.getServingWlanId()]++;
+			changeWlanClients(accessPointLocation.getServingWlanId(), 1);
 		}
 		else {
 			SimLogger.printLine("Error - unknown device id in downloadStarted(). Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
 	@Override
 	public void downloadFinished(Location accessPointLocation, int sourceDeviceId) {
 		if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
-			wlanClients[accessPointLocation.getServingWlanId()]--;
+			changeWlanClients(accessPointLocation.getServingWlanId(), -1);
 		}
 		else {
 			SimLogger.printLine("Error - unknown device id in downloadFinished(). Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
+	private void changeWlanClients(int accessPointId, int change) {
+		int numOfWlanUser = (wlanClients[accessPointId] += change);
+		wlanRates[accessPointId] = 0;
+		if(numOfWlanUser >= 0 && numOfWlanUser < experimentalWlanDelay.length)
+			wlanRates[accessPointId] = experimentalWlanDelay[numOfWlanUser] * (double) 3; //802.11ac is around 3 times faster than 802.11n
+	}
+	
 	private double getWlanDownloadDelay(Location accessPointLocation, double dataSize) {
-		int numOfWlanUser = wlanClients[accessPointLocation.getServingWlanId()];
+		int accessPointId = accessPointLocation.getServingWlanId();
 		double taskSizeInKb = dataSize * (double)8; //KB to Kb
 		double result=0;
 		
-		if(numOfWlanUser < 0)
+		if(wlanClients[accessPointId] < 0)
 			System.out.println("--> ");
 		
-		if(numOfWlanUser < experimentalWlanDelay.length)
-			result = taskSizeInKb /*Kb*/ / (experimentalWlanDelay[numOfWlanUser] * (double) 3 ) /*Kbps*/; //802.11ac is around 3 times faster than 802.11n
+		if(wlanRates[accessPointId] > 0)
+			result = taskSizeInKb /*Kb*/ / wlanRates[accessPointId] /*Kbps*/;
 
 		//System.out.println("--> " + numOfWlanUser + " user, " + taskSizeInKb + " KB, " +result + " sec");
 		return result;
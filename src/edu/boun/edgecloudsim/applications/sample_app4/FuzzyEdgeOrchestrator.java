@@ -23,8 +23,10 @@ import org.cloudbus.cloudsim.core.SimEvent;
 
 import net.sourceforge.jFuzzyLogic.FIS;
 import edu.boun.edgecloudsim.cloud_server.CloudVM;
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
 import edu.boun.edgecloudsim.edge_server.EdgeHost;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
@@ -55,7 +57,7 @@ public class FuzzyEdgeOrchestrator extends EdgeOrchestrator {
 		} catch (RecognitionException e) {
 			SimLogger.printLine("Cannot generate FIS! Terminating simulation...");
 			e.printStackTrace();
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
@@ -86,9 +88,6 @@ public class FuzzyEdgeOrchestrator extends EdgeOrchestrator {
 					SimSettings.CLOUD_DATACENTER_ID, dummyTask /* 1 Mbit */);
 			double wanBW = (wanDelay == 0) ? 0 : (1 / wanDelay); /* Mbps */
 
-			double manDelay = SimManager.getInstance().getNetworkModel().getUploadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID,
-					SimSettings.GENERIC_EDGE_DEVICE_ID, dummyTask /* 1 Mbit */);
-			
 			double edgeUtilization = SimManager.getInstance().getEdgeServerManager().getAvgUtilization();
 			
 			//finding least loaded neighbor edge host
@@ -114,6 +113,13 @@ public class FuzzyEdgeOrchestrator extends EdgeOrchestrator {
 				}
 			}
 
+			//MAN delay of 1 Mbit from the AP of the task to the best remote edge host
+			EdgeTopology edgeTopology = SimSettings.getInstance().getEdgeTopology();
+			FuzzyExperimentalNetworkModel networkModel = (FuzzyExperimentalNetworkModel)SimManager.getInstance().getNetworkModel();
+			double manDelay = networkModel.getManPathDelay(
+					edgeTopology.getDatacenterOfWlan(task.getSubmittedLocation().getServingWlanId()),
+					edgeTopology.getDatacenterOfHost(bestRemoteEdgeHostIndex), 128 /* 1 Mbit */);
+
 			if(policy.equals("FUZZY_BASED")){
 				int bestHostIndex = nearestEdgeHostIndex;
 				double bestHostUtilization = nearestEdgeUtilization;
@@ -221,12 +227,12 @@ public class FuzzyEdgeOrchestrator extends EdgeOrchestrator {
 			}
 			else {
 				SimLogger.printLine("Unknow edge orchestrator policy! Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 			}
 		}
 		else {
 			SimLogger.printLine("Unknow simulation scenario! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		return result;
 	}
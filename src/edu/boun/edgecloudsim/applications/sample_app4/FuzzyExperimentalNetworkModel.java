@@ -12,8 +12,11 @@ package edu.boun.edgecloudsim.applications.sample_app4;
 
 import org.cloudbus.cloudsim.core.CloudSim;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
+import edu.boun.edgecloudsim.core.ManTopology;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.Location;
@@ -29,18 +32,23 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 	private int[] wanClients;
 	private int[] wlanClients;
 	
-	private double lastMM1QueeuUpdateTime;
-	private double ManPoissonMeanForDownload; //seconds
-	private double ManPoissonMeanForUpload; //seconds
-
-	private double avgManTaskInputSize; //bytes
-	private double avgManTaskOutputSize; //bytes
-
-	//record last n task statistics during MM1_QUEUE_MODEL_UPDATE_INTEVAL seconds to simulate mmpp/m/1 queue model
-	private double totalManTaskInputSize;
-	private double totalManTaskOutputSize;
-	private double numOfManTaskForDownload;
-	private double numOfManTaskForUpload;
+	//rates of the WLAN and WAN links of each AP for the current number of clients, 0 if
+	//there are too many clients; they are updated when the number of clients changes
+	private double[] wanRates; //Kbps
+	private double[] wlanRates; //Kbps
+	
+	//MAN links between the edge datacenters and the number of transfers on each link,
+	//null if the MAN topology is not provided
+	private ManTopology manTopology;
+	private int[] manLinkClients;
+	
+	//exponentially weighted statistics of the MAN transfers to simulate mmpp/m/1 queue model,
+	//indexed by LINK_TYPE; the weight of a transfer halves in every half life, so the
+	//statistics are updated in O(1) by decaying them from the time of the last update
+	private double manHalfLife; //seconds
+	private double[] manLastUpdateTime; //seconds
+	private double[] manTransferWeight; //decayed number of transfers
+	private double[] avgManTaskSize; //KB
 	
 	public static final double[] experimentalWlanDelay = {
 		/*1 Client*/ 88040.279 /*(Kbps)*/,
@@ -182,36 +190,60 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 	public void initialize() {
 		wanClients = new int[SimSettings.getInstance().getNumOfEdgeDatacenters()];  //we have one access point for each datacenter
 		wlanClients = new int[SimSettings.getInstance().getNumOfEdgeDatacenters()];  //we have one access point for each datacenter
+		wanRates = new double[wanClients.length];
+		wlanRates = new double[wlanClients.length];
+		for(int i=0; i<wlanClients.length; i++) {
+			changeWanClients(i, 0);
+			changeWlanClients(i, 0);
+		}
 
+		manHalfLife = SimSettings.getInstance().getManArrivalRateHalfLife();
+		if(manHalfLife <= 0) {
+			SimLogger.printLine("MAN arrival rate half life must be positive! Terminating simulation...");
+			SimulationContext.terminate(0);
+		}
+
+		double ManPoissonMean = 0; //seconds
+		double avgManTaskInputSize = 0; //KB
+		double avgManTaskOutputSize = 0; //KB
 		int numOfApp = SimSettings.getInstance().getTaskLookUpTable().length;
 		SimSettings SS = SimSettings.getInstance();
 		for(int taskIndex=0; taskIndex<numOfApp; taskIndex++) {
 			if(SS.getTaskLookUpTable()[taskIndex][0] == 0) {
 				SimLogger.printLine("Usage percantage of task " + taskIndex + " is 0! Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 			}
 			else{
 				double weight = SS.getTaskLookUpTable()[taskIndex][0]/(double)100;
 				
 				//assume half of the tasks use the MAN at the beginning
-				ManPoissonMeanForDownload += ((SS.getTaskLookUpTable()[taskIndex][2])*weight) * 4;
-				ManPoissonMeanForUpload = ManPoissonMeanForDownload;
+				ManPoissonMean += ((SS.getTaskLookUpTable()[taskIndex][2])*weight) * 4;
 				
 				avgManTaskInputSize += SS.getTaskLookUpTable()[taskIndex][5]*weight;
 				avgManTaskOutputSize += SS.getTaskLookUpTable()[taskIndex][6]*weight;
 			}
 		}
 
-		ManPoissonMeanForDownload = ManPoissonMeanForDownload/numOfApp;
-		ManPoissonMeanForUpload = ManPoissonMeanForUpload/numOfApp;
+		ManPoissonMean = ManPoissonMean/numOfApp;
 		avgManTaskInputSize = avgManTaskInputSize/numOfApp;
 		avgManTaskOutputSize = avgManTaskOutputSize/numOfApp;
 		
-		lastMM1QueeuUpdateTime = SimSettings.CLIENT_ACTIVITY_START_TIME;
-		totalManTaskOutputSize = 0;
-		numOfManTaskForDownload = 0;
-		totalManTaskInputSize = 0;
-		numOfManTaskForUpload = 0;
+		//the statistics start as if the initial arrival rate had been observed for a long time,
+		//the expected weight of the transfers observed at rate r is r * halfLife / ln(2)
+		double initialWeight = (numberOfMobileDevices / ManPoissonMean) * manHalfLife / Math.log(2);
+		manLastUpdateTime = new double[LINK_TYPE.values().length];
+		manTransferWeight = new double[LINK_TYPE.values().length];
+		avgManTaskSize = new double[LINK_TYPE.values().length];
+		for(LINK_TYPE linkType : LINK_TYPE.values()) {
+			manLastUpdateTime[linkType.ordinal()] = SimSettings.CLIENT_ACTIVITY_START_TIME;
+			manTransferWeight[linkType.ordinal()] = initialWeight;
+		}
+		avgManTaskSize[LINK_TYPE.UPLOAD.ordinal()] = avgManTaskInputSize;
+		avgManTaskSize[LINK_TYPE.DOWNLOAD.ordinal()] = avgManTaskOutputSize;
+		
+		manTopology = SimSettings.getInstance().getManTopology();
+		if(manTopology != null)
+			manLinkClients = new int[manTopology.getNumOfLinks()];
 	}
 
     /**
@@ -223,7 +255,9 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 		
 		//special case for man communication
 		if(sourceDeviceId == destDeviceId && sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
-			return delay = getManUploadDelay();
+			if(manTopology != null && task.getSubmittedLocation() != null)
+				return delay = getManPathDelay(task, task.getCloudletFileSize());
+			return delay = getManDelay(LINK_TYPE.UPLOAD);
 		}
 		
 		Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(sourceDeviceId,CloudSim.clock());
@@ -249,7 +283,9 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 		
 		//special case for man communication
 		if(sourceDeviceId == destDeviceId && sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
-			return delay = getManDownloadDelay();
+			if(manTopology != null && task.getSubmittedLocation() != null)
+				return delay = getManPathDelay(task, task.getCloudletOutputSize());
+			return delay = getManDelay(LINK_TYPE.DOWNLOAD);
 		}
 		
 		Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(destDeviceId,CloudSim.clock());
@@ -269,66 +305,111 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 	@Override
 	public void uploadStarted(Location accessPointLocation, int destDeviceId) {
 		if(destDeviceId == SimSettings.CLOUD_DATACENTER_ID)
-			wanClients[accessPointLocation.getServingWlanId()]++;
+			changeWanClients(accessPointLocation.getServingWlanId(), 1);
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID)
-			wlanClients[accessPointLocation.getServingWlanId()]++;
+			changeWlanClients(accessPointLocation.getServingWlanId(), 1);
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients++;
 		else {
 			SimLogger.printLine("Error - unknoqn device id in FuzzyExperimentalNetworkModel.uploadStarted(. Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
 	@Override
 	public void uploadFinished(Location accessPointLocation, int destDeviceId) {
 		if(destDeviceId == SimSettings.CLOUD_DATACENTER_ID)
-			wanClients[accessPointLocation.getServingWlanId()]--;
+			changeWanClients(accessPointLocation.getServingWlanId(), -1);
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID)
-			wlanClients[accessPointLocation.getServingWlanId()]--;
+			changeWlanClients(accessPointLocation.getServingWlanId(), -1);
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients--;
 		else {
 			SimLogger.printLine("Error - unknoqn device id in FuzzyExperimentalNetworkModel.uploadFinished(. Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
 	@Override
 	public void downloadStarted(Location accessPointLocation, int sourceDeviceId) {
 		if(sourceDeviceId == SimSettings.CLOUD_DATACENTER_ID)
-			wanClients[accessPointLocation.getServingWlanId()]++;
+			changeWanClients(accessPointLocation.getServingWlanId(), 1);
 		else if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID)
-			wlanClients[accessPointLocation.getServingWlanId()]++;
+			changeWlanClients(accessPointLocation.getServingWlanId(), 1);
 		else if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients++;
 		else {
 			SimLogger.printLine("Error - unknoqn device id in FuzzyExperimentalNetworkModel.downloadStarted(. Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
 	@Override
 	public void downloadFinished(Location accessPointLocation, int sourceDeviceId) {
 		if(sourceDeviceId == SimSettings.CLOUD_DATACENTER_ID)
-			wanClients[accessPointLocation.getServingWlanId()]--;
+			changeWanClients(accessPointLocation.getServingWlanId(), -1);
 		else if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID)
-			wlanClients[accessPointLocation.getServingWlanId()]--;
+			changeWlanClients(accessPointLocation.getServingWlanId(), -1);
 		else if(sourceDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID+1)
 			manClients--;
 		else {
 			SimLogger.printLine("Error - unknoqn device id in FuzzyExperimentalNetworkModel.downloadFinished(. Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
+	/**
+	 * should be called when the task starts to use the MAN in either direction
+	 * instead of uploadStarted() or downloadStarted()
+	 */
+	public void manTransferStarted(Task task, LINK_TYPE linkType) {
+		manClients++;
+		addManTransfer(linkType, (linkType == LINK_TYPE.UPLOAD) ?
+				task.getCloudletFileSize() : task.getCloudletOutputSize());
+		if(manTopology != null)
+			changeManLinkClients(task, 1);
+	}
+
+	/**
+	 * should be called when the MAN transfer of the task is completed
+	 * instead of uploadFinished() or downloadFinished()
+	 */
+	public void manTransferFinished(Task task) {
+		manClients--;
+		if(manTopology != null)
+			changeManLinkClients(task, -1);
+	}
+
+	private void changeManLinkClients(Task task, int change) {
+		EdgeTopology edgeTopology = SimSettings.getInstance().getEdgeTopology();
+		int source = edgeTopology.getDatacenterOfWlan(task.getSubmittedLocation().getServingWlanId());
+		int destination = edgeTopology.getDatacenterOfHost(task.getAssociatedHostId());
+		int pathLength = manTopology.getPathLength(source, destination);
+		for(int i=0; i<pathLength; i++)
+			manLinkClients[manTopology.getPathLink(source, destination, i)] += change;
+	}
+
+	private void changeWlanClients(int accessPointId, int change) {
+		int numOfWlanUser = (wlanClients[accessPointId] += change);
+		wlanRates[accessPointId] = 0;
+		if(numOfWlanUser >= 0 && numOfWlanUser < experimentalWlanDelay.length)
+			wlanRates[accessPointId] = experimentalWlanDelay[numOfWlanUser] * (double) 3; //802.11ac is around 3 times faster than 802.11n
+	}
+	
+	private void changeWanClients(int accessPointId, int change) {
+		int numOfWanUser = (wanClients[accessPointId] += change);
+		wanRates[accessPointId] = 0;
+		if(numOfWanUser >= 0 && numOfWanUser < experimentalWanDelay.length)
+			wanRates[accessPointId] = experimentalWanDelay[numOfWanUser];
+	}
+	
 	private double getWlanDownloadDelay(Location accessPointLocation, double dataSize) {
-		int numOfWlanUser = wlanClients[accessPointLocation.getServingWlanId()];
+		double rate = wlanRates[accessPointLocation.getServingWlanId()];
 		double taskSizeInKb = dataSize * (double)8; //KB to Kb
 		double result=0;
 		
-		if(numOfWlanUser < experimentalWlanDelay.length)
-			result = taskSizeInKb /*Kb*/ / (experimentalWlanDelay[numOfWlanUser] * (double) 3 ) /*Kbps*/; //802.11ac is around 3 times faster than 802.11n
+		if(rate > 0)
+			result = taskSizeInKb /*Kb*/ / rate /*Kbps*/;
 
 		//System.out.println("--> " + numOfWlanUser + " user, " + taskSizeInKb + " KB, " +result + " sec");
 		return result;
@@ -340,12 +421,12 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 	}
 	
 	private double getWanDownloadDelay(Location accessPointLocation, double dataSize) {
-		int numOfWanUser = wanClients[accessPointLocation.getServingWlanId()];
+		double rate = wanRates[accessPointLocation.getServingWlanId()];
 		double taskSizeInKb = dataSize * (double)8; //KB to Kb
 		double result=0;
 		
-		if(numOfWanUser < experimentalWanDelay.length)
-			result = taskSizeInKb /*Kb*/ / (experimentalWanDelay[numOfWanUser]) /*Kbps*/;
+		if(rate > 0)
+			result = taskSizeInKb /*Kb*/ / rate /*Kbps*/;
 		
 		//System.out.println("--> " + numOfWanUser + " user, " + taskSizeInKb + " KB, " +result + " sec");
 		
@@ -374,52 +455,76 @@ public class FuzzyExperimentalNetworkModel extends NetworkModel {
 		return (result > 15) ? 0 : result;
 	}
 	
-	private double getManDownloadDelay() {
+	private double getManDelay(LINK_TYPE linkType) {
+		decayManStatistics(linkType);
+		
+		//arrival rate of all devices is r = weight * ln(2) / halfLife
+		double arrivalRate = manTransferWeight[linkType.ordinal()] * Math.log(2) / manHalfLife;
 		double result = calculateMM1(SimSettings.getInstance().getInternalLanDelay(),
 				MAN_BW,
-				ManPoissonMeanForDownload,
-				avgManTaskOutputSize,
+				numberOfMobileDevices / arrivalRate,
+				avgManTaskSize[linkType.ordinal()],
 				numberOfMobileDevices);
 		
-		totalManTaskOutputSize += avgManTaskOutputSize;
-		numOfManTaskForDownload++;
-		
-		//System.out.println("--> " + SimManager.getInstance().getNumOfMobileDevice() + " user, " +result + " sec");
+		//System.out.println(CloudSim.clock() + " -> " + SimManager.getInstance().getNumOfMobileDevice() + " user, " + result + " sec");
 		
 		return result;
 	}
 	
-	private double getManUploadDelay() {
-		double result = calculateMM1(SimSettings.getInstance().getInternalLanDelay(),
-				MAN_BW,
-				ManPoissonMeanForUpload,
-				avgManTaskInputSize,
-				numberOfMobileDevices);
+	private void addManTransfer(LINK_TYPE linkType, double dataSize) {
+		decayManStatistics(linkType);
 		
-		totalManTaskInputSize += avgManTaskInputSize;
-		numOfManTaskForUpload++;
-
-		//System.out.println(CloudSim.clock() + " -> " + SimManager.getInstance().getNumOfMobileDevice() + " user, " + result + " sec");
+		int index = linkType.ordinal();
+		manTransferWeight[index] += 1;
+		avgManTaskSize[index] += (dataSize - avgManTaskSize[index]) / manTransferWeight[index];
+	}
+	
+	private void decayManStatistics(LINK_TYPE linkType) {
+		int index = linkType.ordinal();
+		double elapsedTime = CloudSim.clock() - manLastUpdateTime[index];
+		if(elapsedTime > 0) {
+			manTransferWeight[index] *= Math.pow(0.5, elapsedTime / manHalfLife);
+			manLastUpdateTime[index] = CloudSim.clock();
+		}
+	}
+	
+	/**
+	 * returns the delay between the AP where the task is submitted and the edge
+	 * datacenter of its host
+	 */
+	private double getManPathDelay(Task task, double dataSize) {
+		EdgeTopology edgeTopology = SimSettings.getInstance().getEdgeTopology();
+		int source = edgeTopology.getDatacenterOfWlan(task.getSubmittedLocation().getServingWlanId());
+		int destination = edgeTopology.getDatacenterOfHost(task.getAssociatedHostId());
 		
-		return result;
+		return getManPathDelay(source, destination, dataSize);
 	}
 	
-	public void updateMM1QueeuModel(){
-		double lastInterval = CloudSim.clock() - lastMM1QueeuUpdateTime;
-		lastMM1QueeuUpdateTime = CloudSim.clock();
+	/**
+	 * returns the delay of transferring dataSize KB between two edge sites;
+	 * the slowest link on the path, whose bandwidth is shared with its active
+	 * transfers, determines the transmission delay. If there is no MAN topology,
+	 * the estimate of the global MAN queue is returned.
+	 */
+	public double getManPathDelay(int source, int destination, double dataSize) {
+		if(manTopology == null || source < 0 || destination < 0)
+			return getManDelay(LINK_TYPE.UPLOAD);
 		
-		if(numOfManTaskForDownload != 0){
-			ManPoissonMeanForDownload = lastInterval / (numOfManTaskForDownload / (double)numberOfMobileDevices);
-			avgManTaskOutputSize = totalManTaskOutputSize / numOfManTaskForDownload;
-		}
-		if(numOfManTaskForUpload != 0){
-			ManPoissonMeanForUpload = lastInterval / (numOfManTaskForUpload / (double)numberOfMobileDevices);
-			avgManTaskInputSize = totalManTaskInputSize / numOfManTaskForUpload;
+		if(source == destination)
+			return SimSettings.getInstance().getInternalLanDelay();
+		if(!manTopology.hasPath(source, destination))
+			return 0;
+		
+		double rate = Double.MAX_VALUE;
+		int pathLength = manTopology.getPathLength(source, destination);
+		for(int i=0; i<pathLength; i++) {
+			int link = manTopology.getPathLink(source, destination, i);
+			rate = Math.min(rate, manTopology.getLinkBandwidth(link) / (manLinkClients[link] + 1));
 		}
 		
-		totalManTaskOutputSize = 0;
-		numOfManTaskForDownload = 0;
-		totalManTaskInputSize = 0;
-		numOfManTaskForUpload = 0;
+		double taskSizeInKb = dataSize * (double)8; //KB to Kb
+		double result = taskSizeInKb /*Kb*/ / rate /*Kbps*/ + manTopology.getPathDelay(source, destination);
+		
+		return (result > 15) ? 0 : result;
 	}
 }
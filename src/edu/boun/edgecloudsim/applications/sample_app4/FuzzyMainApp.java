@@ -20,7 +20,9 @@ import org.cloudbus.cloudsim.core.CloudSim;
 import edu.boun.edgecloudsim.core.ScenarioFactory;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimRandom;
 import edu.boun.edgecloudsim.utils.SimUtils;
 
 public class FuzzyMainApp {
@@ -59,9 +61,12 @@ public class FuzzyMainApp {
 		SimSettings SS = SimSettings.getInstance();
 		if(SS.initialize(configFile, edgeDevicesFile, applicationsFile) == false){
 			SimLogger.printLine("cannot initialize simulation settings!");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		
+		//random number streams of this iteration are derived from the configured seed
+		SimRandom.getInstance().setRunSeed(SS.getRandomSeed(), iterationNumber);
+		
 		if(SS.getFileLoggingEnabled()){
 			SimLogger.enableFileLog();
 			SimUtils.cleanOutputFolder(outputFolder);
@@ -113,7 +118,7 @@ public class FuzzyMainApp {
 					{
 						SimLogger.printLine("The simulation has been terminated due to an unexpected error");
 						e.printStackTrace();
-						System.exit(0);
+						SimulationContext.terminate(0);
 					}
 					
 					Date ScenarioEndDate = Calendar.getInstance().getTime();
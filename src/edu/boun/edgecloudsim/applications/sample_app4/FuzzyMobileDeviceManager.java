@@ -25,6 +25,7 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.MobileDeviceManager;
 import edu.boun.edgecloudsim.edge_client.Task;
@@ -38,7 +39,6 @@ import edu.boun.edgecloudsim.utils.SimLogger;
 public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 	private static final int BASE = 100000; //start from base in order not to conflict cloudsim tag!
 	
-	private static final int UPDATE_MM1_QUEUE_MODEL = BASE + 1;
 	private static final int REQUEST_RECEIVED_BY_CLOUD = BASE + 2;
 	private static final int REQUEST_RECEIVED_BY_EDGE_DEVICE = BASE + 3;
 	private static final int REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE = BASE + 4;
@@ -46,8 +46,6 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 	private static final int RESPONSE_RECEIVED_BY_MOBILE_DEVICE = BASE + 6;
 	private static final int RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE = BASE + 7;
 
-	private static final double MM1_QUEUE_MODEL_UPDATE_INTEVAL = 5; //seconds
-	
 	private int taskIdCounter=0;
 	
 	public FuzzyMobileDeviceManager() throws Exception{
@@ -62,13 +60,6 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 		return new CpuUtilizationModel_Custom();
 	}
 	
-	@Override
-	public void startEntity() {
-		super.startEntity();
-		schedule(getId(), SimSettings.CLIENT_ACTIVITY_START_TIME +
-				MM1_QUEUE_MODEL_UPDATE_INTEVAL, UPDATE_MM1_QUEUE_MODEL);
-	}
-	
 	/**
 	 * Submit cloudlets to the created VMs.
 	 * 
@@ -97,8 +88,8 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 			double WanDelay = networkModel.getDownloadDelay(SimSettings.CLOUD_DATACENTER_ID, task.getMobileDeviceId(), task);
 			if(WanDelay > 0)
 			{
-				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+WanDelay);
-				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
+				int currentWlanId = SimManager.getInstance().getMobilityModel().getServingWlanId(task.getMobileDeviceId(),CloudSim.clock()+WanDelay);
+				if(task.getSubmittedLocation().getServingWlanId() == currentWlanId)
 				{
 					networkModel.downloadStarted(task.getSubmittedLocation(), SimSettings.CLOUD_DATACENTER_ID);
 					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY);
@@ -140,7 +131,10 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+delay);
 				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
 				{
-					networkModel.downloadStarted(currentLocation, nextDeviceForNetworkModel);
+					if(nextDeviceForNetworkModel == SimSettings.GENERIC_EDGE_DEVICE_ID + 1)
+						((FuzzyExperimentalNetworkModel)networkModel).manTransferStarted(task, FuzzyExperimentalNetworkModel.LINK_TYPE.DOWNLOAD);
+					else
+						networkModel.downloadStarted(currentLocation, nextDeviceForNetworkModel);
 					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, delayType);
 					
 					schedule(getId(), delay, nextEvent, task);
@@ -160,20 +154,13 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 	protected void processOtherEvent(SimEvent ev) {
 		if (ev == null) {
 			SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - an event is null! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 			return;
 		}
 		
 		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
 		
 		switch (ev.getTag()) {
-			case UPDATE_MM1_QUEUE_MODEL:
-			{
-				((FuzzyExperimentalNetworkModel)networkModel).updateMM1QueeuModel();
-				schedule(getId(), MM1_QUEUE_MODEL_UPDATE_INTEVAL, UPDATE_MM1_QUEUE_MODEL);
-	
-				break;
-			}
 			case REQUEST_RECEIVED_BY_CLOUD:
 			{
 				Task task = (Task) ev.getData();
@@ -191,7 +178,7 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 			case REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE:
 			{
 				Task task = (Task) ev.getData();
-				networkModel.uploadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
+				((FuzzyExperimentalNetworkModel)networkModel).manTransferFinished(task);
 				submitTaskToVm(task, SimSettings.VM_TYPES.EDGE_VM);
 				
 				break;
@@ -203,7 +190,7 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 				
 				double manDelay =  networkModel.getUploadDelay(SimSettings.GENERIC_EDGE_DEVICE_ID, SimSettings.GENERIC_EDGE_DEVICE_ID, task);
 				if(manDelay>0){
-					networkModel.uploadStarted(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
+					((FuzzyExperimentalNetworkModel)networkModel).manTransferStarted(task, FuzzyExperimentalNetworkModel.LINK_TYPE.UPLOAD);
 					SimLogger.getInstance().setUploadDelay(task.getCloudletId(), manDelay, NETWORK_DELAY_TYPES.MAN_DELAY);
 					schedule(getId(), manDelay, REQUEST_RECEIVED_BY_REMOTE_EDGE_DEVICE, task);
 				}
@@ -222,7 +209,7 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 			case RESPONSE_RECEIVED_BY_EDGE_DEVICE_TO_RELAY_MOBILE_DEVICE:
 			{
 				Task task = (Task) ev.getData();
-				networkModel.downloadFinished(task.getSubmittedLocation(), SimSettings.GENERIC_EDGE_DEVICE_ID+1);
+				((FuzzyExperimentalNetworkModel)networkModel).manTransferFinished(task);
 				
 				//SimLogger.printLine(CloudSim.clock() + ": " + getName() + ": task #" + task.getCloudletId() + " received from edge");
 				double delay = networkModel.getDownloadDelay(task.getAssociatedHostId(), task.getMobileDeviceId(), task);
@@ -262,7 +249,7 @@ public class FuzzyMobileDeviceManager extends MobileDeviceManager {
 			}
 			default:
 				SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker. Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 				break;
 		}
 	}
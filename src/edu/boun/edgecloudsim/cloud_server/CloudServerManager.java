@@ -22,6 +22,7 @@ import java.util.List;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
 
 public abstract class CloudServerManager {
 	protected Datacenter localDatacenter;
@@ -67,4 +68,18 @@ public abstract class CloudServerManager {
 	 * returns average utilization of all VMs
 	 */
 	public abstract double getAvgUtilization();
+
+	/*
+	 * returns average utilization of the VMs on the given host
+	 */
+	public double getHostUtilization(int hostId){
+		List<CloudVM> vmArray = getVmList(hostId);
+		if(vmArray.isEmpty())
+			return 0;
+
+		double totalUtilization = 0;
+		for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++)
+			totalUtilization += vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+		return totalUtilization / vmArray.size();
+	}
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 
 /*
  * Same as VmAllocationPolicySimple.
@@ -31,7 +32,6 @@ import edu.boun.edgecloudsim.core.SimSettings;
 public class CloudVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	/** The vm table. */
 	private Map<String, Host> vmTable;
-	private static int createdVmNum;
 	private int DataCenterIndex;
 	
 	public CloudVmAllocationPolicy_Custom(List<? extends Host> list, int _DataCenterIndex) {
@@ -39,7 +39,7 @@ public class CloudVmAllocationPolicy_Custom extends VmAllocationPolicy {
 		
 		setVmTable(new HashMap<String, Host>());
 		DataCenterIndex=_DataCenterIndex;
-		createdVmNum = 0;
+		SimulationContext.current().resetCreatedVmNum(SimSettings.VM_TYPES.CLOUD_VM);
 	}
 
 	@Override
@@ -55,7 +55,7 @@ public class CloudVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	
 				if (result) { // if vm were succesfully created in the host
 					getVmTable().put(vm.getUid(), host);
-					createdVmNum++;
+					SimulationContext.current().increaseCreatedVmNum(SimSettings.VM_TYPES.CLOUD_VM);
 					Log.formatLine("%.2f: Cloud VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),CloudSim.clock());
 					result = true;
 				}
@@ -69,7 +69,7 @@ public class CloudVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
 			getVmTable().put(vm.getUid(), host);
-			createdVmNum++;
+			SimulationContext.current().increaseCreatedVmNum(SimSettings.VM_TYPES.CLOUD_VM);
 			
 			Log.formatLine("%.2f: Cloud VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),CloudSim.clock());
 			return true;
@@ -104,7 +104,7 @@ public class CloudVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	}
 
 	public static int getCreatedVmNum(){
-		return createdVmNum;
+		return SimulationContext.current().getCreatedVmNum(SimSettings.VM_TYPES.CLOUD_VM);
 	}
 	
 	/**
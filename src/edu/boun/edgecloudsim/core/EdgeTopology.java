@@ -0,0 +1,300 @@
+/*
+ * Title:        EdgeCloudSim - Edge Topology
+ *
+ * Description:
+ * EdgeTopology keeps the datacenters, hosts and VMs defined in
+ * edge_devices.xml in primitive arrays. It is built once while the
+ * settings are read and it is not modified afterwards, so the modules
+ * do not need to walk the XML document again.
+ * Hosts and VMs are numbered in the order they are defined in the file;
+ * the hosts of a datacenter and the VMs of a host have consecutive
+ * indexes, which is the same numbering used for the host and VM ids.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.util.Arrays;
+
+import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.NearestPointIndex;
+
+public class EdgeTopology {
+	private int numOfDatacenters;
+	private int numOfHosts;
+	private int numOfVms;
+	private int numOfPlaceTypes;
+
+	//datacenter properties
+	private String[] datacenterArch;
+	private String[] datacenterOs;
+	private String[] datacenterVmm;
+	private double[] costPerBw;
+	private double[] costPerSec;
+	private double[] costPerMem;
+	private double[] costPerStorage;
+	private Location[] datacenterLocation;
+	private int[] firstHostOfDatacenter;
+
+	//host properties
+	private int[] hostDatacenter;
+	private int[] hostCores;
+	private double[] hostMips;
+	private int[] hostRam;
+	private long[] hostStorage;
+	private int[] firstVmOfHost;
+
+	//VM properties
+	private int[] vmHost;
+	private String[] vmVmm;
+	private int[] vmCores;
+	private double[] vmMips;
+	private int[] vmRam;
+	private long[] vmStorage;
+
+	//index of the datacenter of each AP, -1 for unused wlan ids
+	private int[] wlanDatacenter;
+
+	//built when the nearest AP is requested first
+	private NearestPointIndex apIndex;
+
+	EdgeTopology(int maxNumOfDatacenters, int maxNumOfHosts, int maxNumOfVms) {
+		datacenterArch = new String[maxNumOfDatacenters];
+		datacenterOs = new String[maxNumOfDatacenters];
+		datacenterVmm = new String[maxNumOfDatacenters];
+		costPerBw = new double[maxNumOfDatacenters];
+		costPerSec = new double[maxNumOfDatacenters];
+		costPerMem = new double[maxNumOfDatacenters];
+		costPerStorage = new double[maxNumOfDatacenters];
+		datacenterLocation = new Location[maxNumOfDatacenters];
+		firstHostOfDatacenter = new int[maxNumOfDatacenters + 1];
+
+		hostDatacenter = new int[maxNumOfHosts];
+		hostCores = new int[maxNumOfHosts];
+		hostMips = new double[maxNumOfHosts];
+		hostRam = new int[maxNumOfHosts];
+		hostStorage = new long[maxNumOfHosts];
+		firstVmOfHost = new int[maxNumOfHosts + 1];
+
+		vmHost = new int[maxNumOfVms];
+		vmVmm = new String[maxNumOfVms];
+		vmCores = new int[maxNumOfVms];
+		vmMips = new double[maxNumOfVms];
+		vmRam = new int[maxNumOfVms];
+		vmStorage = new long[maxNumOfVms];
+
+		wlanDatacenter = new int[0];
+	}
+
+	/*
+	 * following methods are used by SimSettings while edge_devices.xml is parsed;
+	 * a datacenter is followed by its hosts and a host is followed by its VMs
+	 */
+	void addDatacenter(String arch, String os, String vmm, double _costPerBw, double _costPerSec,
+			double _costPerMem, double _costPerStorage, Location location) {
+		int index = numOfDatacenters++;
+		datacenterArch[index] = arch;
+		datacenterOs[index] = os;
+		datacenterVmm[index] = vmm;
+		costPerBw[index] = _costPerBw;
+		costPerSec[index] = _costPerSec;
+		costPerMem[index] = _costPerMem;
+		costPerStorage[index] = _costPerStorage;
+		datacenterLocation[index] = location;
+		firstHostOfDatacenter[index] = numOfHosts;
+		firstHostOfDatacenter[index + 1] = numOfHosts;
+
+		numOfPlaceTypes = Math.max(numOfPlaceTypes, location.getPlaceTypeIndex() + 1);
+
+		int wlanId = location.getServingWlanId();
+		if(wlanId >= wlanDatacenter.length) {
+			int oldLength = wlanDatacenter.length;
+			wlanDatacenter = Arrays.copyOf(wlanDatacenter, Math.max(wlanId + 1, 2 * oldLength));
+			Arrays.fill(wlanDatacenter, oldLength, wlanDatacenter.length, -1);
+		}
+		if(wlanId >= 0 && wlanDatacenter[wlanId] == -1)
+			wlanDatacenter[wlanId] = index;
+	}
+
+	void addHost(int cores, double mips, int ram, long storage) {
+		int index = numOfHosts++;
+		hostDatacenter[index] = numOfDatacenters - 1;
+		hostCores[index] = cores;
+		hostMips[index] = mips;
+		hostRam[index] = ram;
+		hostStorage[index] = storage;
+		firstVmOfHost[index] = numOfVms;
+		firstVmOfHost[index + 1] = numOfVms;
+		firstHostOfDatacenter[numOfDatacenters] = numOfHosts;
+	}
+
+	void addVm(String vmm, int cores, double mips, int ram, long storage) {
+		int index = numOfVms++;
+		vmHost[index] = numOfHosts - 1;
+		vmVmm[index] = vmm;
+		vmCores[index] = cores;
+		vmMips[index] = mips;
+		vmRam[index] = ram;
+		vmStorage[index] = storage;
+		firstVmOfHost[numOfHosts] = numOfVms;
+	}
+
+	public int getNumOfDatacenters() {
+		return numOfDatacenters;
+	}
+
+	public int getNumOfHosts() {
+		return numOfHosts;
+	}
+
+	public int getNumOfVms() {
+		return numOfVms;
+	}
+
+	public int getNumOfPlaceTypes() {
+		return numOfPlaceTypes;
+	}
+
+	public String getDatacenterArch(int datacenterIndex) {
+		return datacenterArch[datacenterIndex];
+	}
+
+	public String getDatacenterOs(int datacenterIndex) {
+		return datacenterOs[datacenterIndex];
+	}
+
+	public String getDatacenterVmm(int datacenterIndex) {
+		return datacenterVmm[datacenterIndex];
+	}
+
+	public double getCostPerBw(int datacenterIndex) {
+		return costPerBw[datacenterIndex];
+	}
+
+	public double getCostPerSec(int datacenterIndex) {
+		return costPerSec[datacenterIndex];
+	}
+
+	public double getCostPerMem(int datacenterIndex) {
+		return costPerMem[datacenterIndex];
+	}
+
+	public double getCostPerStorage(int datacenterIndex) {
+		return costPerStorage[datacenterIndex];
+	}
+
+	/**
+	 * returns the location of the AP of the datacenter; the returned object is shared
+	 */
+	public Location getDatacenterLocation(int datacenterIndex) {
+		return datacenterLocation[datacenterIndex];
+	}
+
+	public int getPlaceTypeIndex(int datacenterIndex) {
+		return datacenterLocation[datacenterIndex].getPlaceTypeIndex();
+	}
+
+	public int getWlanId(int datacenterIndex) {
+		return datacenterLocation[datacenterIndex].getServingWlanId();
+	}
+
+	public int getXPos(int datacenterIndex) {
+		return datacenterLocation[datacenterIndex].getXPos();
+	}
+
+	public int getYPos(int datacenterIndex) {
+		return datacenterLocation[datacenterIndex].getYPos();
+	}
+
+	/**
+	 * returns the index of the datacenter whose AP has the given wlan id, -1 if there is none
+	 */
+	public int getDatacenterOfWlan(int wlanId) {
+		return (wlanId >= 0 && wlanId < wlanDatacenter.length) ? wlanDatacenter[wlanId] : -1;
+	}
+
+	/**
+	 * returns the index of the datacenter whose AP is the nearest one to the
+	 * given position; ties are resolved in favor of the smaller index
+	 */
+	public int getNearestDatacenter(int x, int y) {
+		if(apIndex == null) {
+			int[] xPos = new int[numOfDatacenters];
+			int[] yPos = new int[numOfDatacenters];
+			for(int i=0; i<numOfDatacenters; i++) {
+				xPos[i] = datacenterLocation[i].getXPos();
+				yPos[i] = datacenterLocation[i].getYPos();
+			}
+			apIndex = new NearestPointIndex(xPos, yPos);
+		}
+		return apIndex.findNearest(x, y);
+	}
+
+	/**
+	 * returns the index of the first host of the datacenter
+	 */
+	public int getFirstHost(int datacenterIndex) {
+		return firstHostOfDatacenter[datacenterIndex];
+	}
+
+	public int getNumOfHosts(int datacenterIndex) {
+		return firstHostOfDatacenter[datacenterIndex + 1] - firstHostOfDatacenter[datacenterIndex];
+	}
+
+	public int getDatacenterOfHost(int hostIndex) {
+		return hostDatacenter[hostIndex];
+	}
+
+	public int getHostCores(int hostIndex) {
+		return hostCores[hostIndex];
+	}
+
+	public double getHostMips(int hostIndex) {
+		return hostMips[hostIndex];
+	}
+
+	public int getHostRam(int hostIndex) {
+		return hostRam[hostIndex];
+	}
+
+	public long getHostStorage(int hostIndex) {
+		return hostStorage[hostIndex];
+	}
+
+	/**
+	 * returns the index of the first VM of the host
+	 */
+	public int getFirstVm(int hostIndex) {
+		return firstVmOfHost[hostIndex];
+	}
+
+	public int getNumOfVms(int hostIndex) {
+		return firstVmOfHost[hostIndex + 1] - firstVmOfHost[hostIndex];
+	}
+
+	public int getHostOfVm(int vmIndex) {
+		return vmHost[vmIndex];
+	}
+
+	public String getVmVmm(int vmIndex) {
+		return vmVmm[vmIndex];
+	}
+
+	public int getVmCores(int vmIndex) {
+		return vmCores[vmIndex];
+	}
+
+	public double getVmMips(int vmIndex) {
+		return vmMips[vmIndex];
+	}
+
+	public int getVmRam(int vmIndex) {
+		return vmRam[vmIndex];
+	}
+
+	public long getVmStorage(int vmIndex) {
+		return vmStorage[vmIndex];
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Title:        EdgeCloudSim - MAN Topology
+ *
+ * Description:
+ * ManTopology keeps the metropolitan area network (MAN) links between the
+ * edge datacenters, which are read from the optional MAN topology file.
+ * Each link connects two edge sites in both directions and has a bandwidth
+ * and a propagation delay. The shortest paths between all pairs of sites
+ * with respect to the propagation delay are computed once while the
+ * settings are read, so the path of a transfer is found in O(1).
+ * Sites are the edge datacenters numbered as in EdgeTopology; the number
+ * of active transfers on the links is kept by the network models.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.util.Arrays;
+
+public class ManTopology {
+	private int numOfSites;
+	private int numOfLinks;
+
+	//link properties
+	private int[] linkSource;
+	private int[] linkDestination;
+	private double[] linkBandwidth; //Kbps
+	private double[] linkPropagationDelay; //seconds
+
+	//propagation delay of the shortest path between each pair of sites, infinity if there is no path
+	private double[] pathDelay;
+
+	//links on the path from site i to site j are pathLinks[pathStart[i*n+j]] to pathLinks[pathStart[i*n+j+1]-1]
+	private int[] pathStart;
+	private int[] pathLinks;
+
+	ManTopology(int _numOfSites) {
+		numOfSites = _numOfSites;
+		linkSource = new int[4];
+		linkDestination = new int[4];
+		linkBandwidth = new double[4];
+		linkPropagationDelay = new double[4];
+	}
+
+	/*
+	 * following methods are used by SimSettings while the MAN topology file is parsed;
+	 * the paths are computed after all links are added
+	 */
+	void addLink(int source, int destination, double bandwidth, double propagationDelay) {
+		if(source < 0 || source >= numOfSites || destination < 0 || destination >= numOfSites || source == destination)
+			throw new IllegalArgumentException("MAN link between sites " + source + " and " + destination + " is not valid");
+
+		if(numOfLinks == linkSource.length) {
+			int capacity = 2 * linkSource.length;
+			linkSource = Arrays.copyOf(linkSource, capacity);
+			linkDestination = Arrays.copyOf(linkDestination, capacity);
+			linkBandwidth = Arrays.copyOf(linkBandwidth, capacity);
+			linkPropagationDelay = Arrays.copyOf(linkPropagationDelay, capacity);
+		}
+		linkSource[numOfLinks] = source;
+		linkDestination[numOfLinks] = destination;
+		linkBandwidth[numOfLinks] = bandwidth;
+		linkPropagationDelay[numOfLinks] = propagationDelay;
+		numOfLinks++;
+	}
+
+	/**
+	 * computes the shortest paths between all pairs of sites by Floyd-Warshall;
+	 * among the paths with the same delay, the one with fewer links is selected
+	 */
+	void computePaths() {
+		int n = numOfSites;
+		pathDelay = new double[n * n];
+		int[] hops = new int[n * n];
+		//first link on the shortest path from i to j, -1 if there is none
+		int[] firstLink = new int[n * n];
+
+		Arrays.fill(pathDelay, Double.POSITIVE_INFINITY);
+		Arrays.fill(firstLink, -1);
+		for(int i=0; i<n; i++)
+			pathDelay[i * n + i] = 0;
+
+		for(int l=0; l<numOfLinks; l++) {
+			int s = linkSource[l], d = linkDestination[l];
+			//parallel links, the faster one is used
+			if(linkPropagationDelay[l] < pathDelay[s * n + d]) {
+				pathDelay[s * n + d] = pathDelay[d * n + s] = linkPropagationDelay[l];
+				hops[s * n + d] = hops[d * n + s] = 1;
+				firstLink[s * n + d] = firstLink[d * n + s] = l;
+			}
+		}
+
+		for(int k=0; k<n; k++) {
+			for(int i=0; i<n; i++) {
+				double delayToK = pathDelay[i * n + k];
+				if(delayToK == Double.POSITIVE_INFINITY)
+					continue;
+				for(int j=0; j<n; j++) {
+					double delay = delayToK + pathDelay[k * n + j];
+					int numOfHops = hops[i * n + k] + hops[k * n + j];
+					if(delay < pathDelay[i * n + j] || (delay == pathDelay[i * n + j] && numOfHops < hops[i * n + j])) {
+						pathDelay[i * n + j] = delay;
+						hops[i * n + j] = numOfHops;
+						firstLink[i * n + j] = firstLink[i * n + k];
+					}
+				}
+			}
+		}
+
+		//store the links of each path in order, starting from the source site
+		pathStart = new int[n * n + 1];
+		for(int p=0; p<n * n; p++)
+			pathStart[p + 1] = pathStart[p] + (pathDelay[p] == Double.POSITIVE_INFINITY ? 0 : hops[p]);
+		pathLinks = new int[pathStart[n * n]];
+		for(int i=0; i<n; i++) {
+			for(int j=0; j<n; j++) {
+				int index = pathStart[i * n + j];
+				int site = i;
+				while(index < pathStart[i * n + j + 1]) {
+					int link = firstLink[site * n + j];
+					pathLinks[index++] = link;
+					site = (linkSource[link] == site) ? linkDestination[link] : linkSource[link];
+				}
+			}
+		}
+	}
+
+	public int getNumOfSites() {
+		return numOfSites;
+	}
+
+	public int getNumOfLinks() {
+		return numOfLinks;
+	}
+
+	public int getLinkSource(int linkIndex) {
+		return linkSource[linkIndex];
+	}
+
+	public int getLinkDestination(int linkIndex) {
+		return linkDestination[linkIndex];
+	}
+
+	public double getLinkBandwidth(int linkIndex) {
+		return linkBandwidth[linkIndex];
+	}
+
+	public double getLinkPropagationDelay(int linkIndex) {
+		return linkPropagationDelay[linkIndex];
+	}
+
+	public boolean hasPath(int sourceSite, int destinationSite) {
+		return pathDelay[sourceSite * numOfSites + destinationSite] != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * returns the total propagation delay on the shortest path, infinity if there is no path
+	 */
+	public double getPathDelay(int sourceSite, int destinationSite) {
+		return pathDelay[sourceSite * numOfSites + destinationSite];
+	}
+
+	/**
+	 * returns the number of links on the shortest path, 0 if there is no path
+	 */
+	public int getPathLength(int sourceSite, int destinationSite) {
+		int path = sourceSite * numOfSites + destinationSite;
+		return pathStart[path + 1] - pathStart[path];
+	}
+
+	/**
+	 * returns the index of the link at the given position on the shortest path
+	 */
+	public int getPathLink(int sourceSite, int destinationSite, int position) {
+		return pathLinks[pathStart[sourceSite * numOfSites + destinationSite] + position];
+	}
+}
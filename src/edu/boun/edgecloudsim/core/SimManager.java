@@ -27,11 +27,14 @@ import edu.boun.edgecloudsim.edge_server.EdgeVmAllocationPolicy_Custom;
 import edu.boun.edgecloudsim.cloud_server.CloudServerManager;
 import edu.boun.edgecloudsim.edge_client.MobileDeviceManager;
 import edu.boun.edgecloudsim.edge_client.mobile_processing_unit.MobileServerManager;
+import edu.boun.edgecloudsim.mobility.HandoverListener;
 import edu.boun.edgecloudsim.mobility.MobilityModel;
+import edu.boun.edgecloudsim.mobility.PlaceOccupancyTracker;
 import edu.boun.edgecloudsim.task_generator.LoadGeneratorModel;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimRandom;
 
 public class SimManager extends SimEntity {
 	private static final int CREATE_TASK = 0;
@@ -39,12 +42,19 @@ public class SimManager extends SimEntity {
 	private static final int GET_LOAD_LOG = 2;
 	private static final int PRINT_PROGRESS = 3;
 	private static final int STOP_SIMULATION = 4;
+	private static final int GET_LOCATION_LOG = 5;
+	private static final int CHECK_HANDOVERS = 6;
+	private static final int WARM_UP_CHECKPOINT = 7;
 	
 	private String simScenario;
 	private String orchestratorPolicy;
 	private int numOfMobileDevice;
+	private String scenarioKey;
 	private NetworkModel networkModel;
 	private MobilityModel mobilityModel;
+	private PlaceOccupancyTracker placeOccupancyTracker;
+	private int locationLogCounter;
+	private double[] hostLoads;
 	private ScenarioFactory scenarioFactory;
 	private EdgeOrchestrator edgeOrchestrator;
 	private EdgeServerManager edgeServerManager;
@@ -53,8 +63,6 @@ public class SimManager extends SimEntity {
 	private LoadGeneratorModel loadGeneratorModel;
 	private MobileDeviceManager mobileDeviceManager;
 	
-	private static SimManager instance = null;
-	
 	public SimManager(ScenarioFactory _scenarioFactory, int _numOfMobileDevice, String _simScenario, String _orchestratorPolicy) throws Exception {
 		super("SimManager");
 		simScenario = _simScenario;
@@ -62,14 +70,30 @@ public class SimManager extends SimEntity {
 		numOfMobileDevice = _numOfMobileDevice;
 		orchestratorPolicy = _orchestratorPolicy;
 
+		//each run of an iteration starts from the same random numbers
+		SimRandom.getInstance().reset();
+		//the runs of the same scenario in an iteration differ only in the orchestrator policy
+		scenarioKey = simScenario + "_" + numOfMobileDevice + "_" + SimRandom.getInstance().getRunSeed();
+
 		SimLogger.print("Creating tasks...");
 		loadGeneratorModel = scenarioFactory.getLoadGeneratorModel();
 		loadGeneratorModel.initializeModel();
 		SimLogger.printLine("Done, ");
 		
 		SimLogger.print("Creating device locations...");
-		mobilityModel = scenarioFactory.getMobilityModel();
-		mobilityModel.initialize();
+		//device locations do not depend on the orchestrator policy, the runs of the same
+		//scenario in an iteration share the mobility model; the traces generated on demand
+		//are not shared since they discard the entries before the clock of the run using them
+		boolean shareMobilityModel = SimSettings.getInstance().getMobilityLookahead() <= 0;
+		mobilityModel = shareMobilityModel ? SimulationContext.current().getSharedMobilityModel(scenarioKey) : null;
+		if(mobilityModel == null) {
+			mobilityModel = scenarioFactory.getMobilityModel();
+			mobilityModel.initialize();
+			if(shareMobilityModel)
+				SimulationContext.current().setSharedMobilityModel(scenarioKey, mobilityModel);
+		}
+		placeOccupancyTracker = new PlaceOccupancyTracker(mobilityModel, numOfMobileDevice,
+				SimSettings.getInstance().getNumOfPlaceTypes(), SimSettings.getInstance().getNumOfEdgeDatacenters());
 		SimLogger.printLine("Done.");
 
 		//Generate network model
@@ -96,11 +120,22 @@ public class SimManager extends SimEntity {
 		mobileDeviceManager = scenarioFactory.getMobileDeviceManager();
 		mobileDeviceManager.initialize();
 		
-		instance = this;
+		//the modules which keep per AP state are notified at handover time
+		if(networkModel instanceof HandoverListener)
+			addHandoverListener((HandoverListener)networkModel);
+		if(edgeOrchestrator instanceof HandoverListener)
+			addHandoverListener((HandoverListener)edgeOrchestrator);
+		if(mobileDeviceManager instanceof HandoverListener)
+			addHandoverListener((HandoverListener)mobileDeviceManager);
+		
+		SimulationContext.current().setSimManager(this);
 	}
 	
+	/**
+	 * returns the simulation manager of the simulation context bound to the calling thread
+	 */
 	public static SimManager getInstance(){
-		return instance;
+		return SimulationContext.current().getSimManager();
 	}
 	
 	/**
@@ -110,6 +145,15 @@ public class SimManager extends SimEntity {
 		//Starts the simulation
 		SimLogger.print(super.getName()+" is starting...");
 		
+		//the runs following the one which takes the warm-up checkpoint resume from it
+		WarmUpCheckpoint checkpoint = SimulationContext.current().getWarmUpCheckpoint(scenarioKey);
+		if(checkpoint != null) {
+			checkpoint.restore(this);
+			SimLogger.printLine("Done, resuming from the warm-up checkpoint.");
+			CloudSim.startSimulation();
+			return;
+		}
+		
 		//Start Edge Datacenters & Generate VMs
 		edgeServerManager.startDatacenters();
 		edgeServerManager.createVmList(mobileDeviceManager.getId());
@@ -132,6 +176,10 @@ public class SimManager extends SimEntity {
 	public String getOrchestratorPolicy(){
 		return orchestratorPolicy;
 	}
+
+	void setOrchestratorPolicy(String _orchestratorPolicy){
+		orchestratorPolicy = _orchestratorPolicy;
+	}
 	
 	public ScenarioFactory getScenarioFactory(){
 		return scenarioFactory;
@@ -148,6 +196,18 @@ public class SimManager extends SimEntity {
 	public MobilityModel getMobilityModel(){
 		return mobilityModel;
 	}
+
+	public PlaceOccupancyTracker getPlaceOccupancyTracker(){
+		return placeOccupancyTracker;
+	}
+
+	/**
+	 * registers a listener which is notified when a device changes its AP;
+	 * listeners must be registered before the simulation starts
+	 */
+	public void addHandoverListener(HandoverListener listener){
+		placeOccupancyTracker.addHandoverListener(listener);
+	}
 	
 	public EdgeOrchestrator getEdgeOrchestrator(){
 		return edgeOrchestrator;
@@ -195,15 +255,36 @@ public class SimManager extends SimEntity {
 		}
 		
 		//Creation of tasks are scheduled here!
-		for(int i=0; i< loadGeneratorModel.getTaskList().size(); i++)
-			schedule(getId(), loadGeneratorModel.getTaskList().get(i).getStartTime(), CREATE_TASK, loadGeneratorModel.getTaskList().get(i));
+		//Only the first arrival of each device is scheduled, next one is
+		//scheduled while the CREATE_TASK event of the device is processed
+		for(int i=0; i<numOfMobileDevice; i++)
+			scheduleNextTask(i);
 		
 		//Periodic event loops starts from here!
 		schedule(getId(), 5, CHECK_ALL_VM);
 		schedule(getId(), SimSettings.getInstance().getSimulationTime()/100, PRINT_PROGRESS);
 		schedule(getId(), SimSettings.getInstance().getVmLoadLogInterval(), GET_LOAD_LOG);
+		locationLogCounter = 1;
+		if(locationLogCounter < SimSettings.getInstance().getSimulationTime() / SimSettings.getInstance().getVmLocationLogInterval())
+			schedule(getId(), SimSettings.getInstance().getVmLocationLogInterval(), GET_LOCATION_LOG);
 		schedule(getId(), SimSettings.getInstance().getSimulationTime(), STOP_SIMULATION);
 		
+		//handover checks keep the occupancy tracker up to date for the listeners and the
+		//network models querying it; the tracker is not advanced by the queries
+		if(SimSettings.getInstance().getHandoverCheckInterval() <= 0){
+			SimLogger.printLine("Handover check interval must be positive! Terminating simulation...");
+			SimulationContext.terminate(0);
+		}
+		//devices are located after the client activity starts
+		schedule(getId(), SimSettings.CLIENT_ACTIVITY_START_TIME, CHECK_HANDOVERS);
+		
+		//the runs of the other orchestrator policies resume from the end of the warm-up period;
+		//scheduled before the other events of that time, so it is the first one processed
+		double warmUpPeriod = SimSettings.getInstance().getWarmUpPeriod();
+		if(SimSettings.getInstance().getWarmUpCheckpointEnabled() && SimSettings.getInstance().getOrchestratorPolicies().length > 1 &&
+				warmUpPeriod > 0 && warmUpPeriod < SimSettings.getInstance().getSimulationTime())
+			schedule(getId(), warmUpPeriod, WARM_UP_CHECKPOINT);
+		
 		SimLogger.printLine("Done.");
 	}
 
@@ -214,17 +295,18 @@ public class SimManager extends SimEntity {
 			case CREATE_TASK:
 				try {
 					TaskProperty edgeTask = (TaskProperty) ev.getData();
+					scheduleNextTask(edgeTask.getMobileDeviceId());
 					mobileDeviceManager.submitTask(edgeTask);						
 				} catch (Exception e) {
 					e.printStackTrace();
-					System.exit(0);
+					SimulationContext.terminate(0);
 				}
 				break;
 			case CHECK_ALL_VM:
 				int totalNumOfVm = SimSettings.getInstance().getNumOfEdgeVMs();
 				if(EdgeVmAllocationPolicy_Custom.getCreatedVmNum() != totalNumOfVm){
 					SimLogger.printLine("All VMs cannot be created! Terminating simulation...");
-					System.exit(0);
+					SimulationContext.terminate(0);
 				}
 				break;
 			case GET_LOAD_LOG:
@@ -232,10 +314,39 @@ public class SimManager extends SimEntity {
 						CloudSim.clock(),
 						edgeServerManager.getAvgUtilization(),
 						cloudServerManager.getAvgUtilization(),
-						mobileServerManager.getAvgUtilization());
+						mobileServerManager.getAvgUtilization(),
+						getHostLoads());
 				
 				schedule(getId(), SimSettings.getInstance().getVmLoadLogInterval(), GET_LOAD_LOG);
 				break;
+			case GET_LOCATION_LOG:
+				//sample times are multiples of the interval, they do not drift with the clock
+				double interval = SimSettings.getInstance().getVmLocationLogInterval();
+				double time = locationLogCounter * interval;
+				if(time >= SimSettings.getInstance().getWarmUpPeriod()) {
+					int[] numOfDevicesInPlace = new int[SimSettings.getInstance().getNumOfPlaceTypes()];
+					//the handover checks may have advanced the tracker to the current clock already
+					placeOccupancyTracker.advanceTo(Math.max(time, placeOccupancyTracker.getCurrentTime()));
+					placeOccupancyTracker.getPlaceOccupancy(numOfDevicesInPlace);
+					SimLogger.getInstance().addLocationLog(time, numOfDevicesInPlace);
+				}
+
+				locationLogCounter++;
+				if(locationLogCounter < SimSettings.getInstance().getSimulationTime() / interval)
+					schedule(getId(), locationLogCounter * interval - CloudSim.clock(), GET_LOCATION_LOG);
+				break;
+			case CHECK_HANDOVERS:
+				placeOccupancyTracker.advanceTo(CloudSim.clock());
+				scheduleHandoverCheck();
+				break;
+			case WARM_UP_CHECKPOINT:
+				try {
+					SimulationContext.current().setWarmUpCheckpoint(WarmUpCheckpoint.capture(scenarioKey, this));
+				} catch (Exception e) {
+					SimLogger.printLine("Warm-up checkpoint cannot be taken: " + e.getMessage() + " Terminating simulation...");
+					SimulationContext.terminate(0);
+				}
+				break;
 			case PRINT_PROGRESS:
 				int progress = (int)((CloudSim.clock()*100)/SimSettings.getInstance().getSimulationTime());
 				if(progress % 10 == 0)
@@ -253,7 +364,7 @@ public class SimManager extends SimEntity {
 					SimLogger.getInstance().simStopped();
 				} catch (IOException e) {
 					e.printStackTrace();
-					System.exit(0);
+					SimulationContext.terminate(0);
 				}
 				break;
 			default:
@@ -263,6 +374,53 @@ public class SimManager extends SimEntity {
 		}
 	}
 
+	/**
+	 * Returns the utilization of each edge datacenter, edge host and cloud host
+	 * in this order if host load logging is enabled, null otherwise
+	 */
+	private double[] getHostLoads() {
+		if(!SimSettings.getInstance().getHostLoadLogEnabled())
+			return null;
+
+		int numOfEdgeDatacenters = edgeServerManager.getDatacenterList().size();
+		int numOfEdgeHosts = SimSettings.getInstance().getNumOfEdgeHosts();
+		int numOfCloudHosts = SimSettings.getInstance().getNumOfCoudHost();
+		if(hostLoads == null)
+			hostLoads = new double[numOfEdgeDatacenters + numOfEdgeHosts + numOfCloudHosts];
+
+		int index = 0;
+		for(int i=0; i<numOfEdgeDatacenters; i++)
+			hostLoads[index++] = edgeServerManager.getDatacenterUtilization(i);
+		for(int i=0; i<numOfEdgeHosts; i++)
+			hostLoads[index++] = edgeServerManager.getHostUtilization(i);
+		for(int i=0; i<numOfCloudHosts; i++)
+			hostLoads[index++] = cloudServerManager.getHostUtilization(i);
+		return hostLoads;
+	}
+
+	/**
+	 * Schedules the next handover check at the earliest time a device may
+	 * change its location; if there are devices whose location may change
+	 * at any time, they are checked after the handover check interval
+	 */
+	private void scheduleHandoverCheck() {
+		double now = CloudSim.clock();
+		double nextTime = placeOccupancyTracker.getNextChangeTime();
+		if(nextTime <= now)
+			nextTime = now + SimSettings.getInstance().getHandoverCheckInterval();
+		if(nextTime < SimSettings.getInstance().getSimulationTime())
+			schedule(getId(), nextTime - now, CHECK_HANDOVERS);
+	}
+
+	/**
+	 * Schedules the next task arrival of the given mobile device if any
+	 */
+	private void scheduleNextTask(int deviceId) {
+		TaskProperty edgeTask = loadGeneratorModel.getNextTask(deviceId);
+		if(edgeTask != null)
+			schedule(getId(), Math.max(0, edgeTask.getStartTime() - CloudSim.clock()), CREATE_TASK, edgeTask);
+	}
+
 	@Override
 	public void shutdownEntity() {
 		edgeServerManager.terminateDatacenters();
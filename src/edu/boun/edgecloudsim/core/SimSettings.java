@@ -27,11 +27,13 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import edu.boun.edgecloudsim.utils.Location;
 import edu.boun.edgecloudsim.utils.SimLogger;
 
 public class SimSettings {
-	private static SimSettings instance = null;
 	private Document edgeDevicesDoc = null;
+	private EdgeTopology edgeTopology = null;
+	private ManTopology manTopology = null;
 	
 	public static final double CLIENT_ACTIVITY_START_TIME = 10;
 	
@@ -56,6 +58,16 @@ public class SimSettings {
     private double INTERVAL_TO_GET_VM_LOCATION_LOG; //minutes unit in properties file
     private boolean FILE_LOG_ENABLED; //boolean to check file logging option
     private boolean DEEP_FILE_LOG_ENABLED; //boolean to check deep file logging option
+    private boolean BINARY_FILE_LOG_ENABLED; //boolean to check binary file logging option, optional in properties file
+    private boolean HOST_LOAD_LOG_ENABLED; //boolean to check per host load logging option, optional in properties file
+    private int VM_LOAD_LOG_MAX_POINTS; //maximum number of vm load log points, 0 keeps all, optional in properties file
+    private double MOBILITY_LOOKAHEAD; //seconds unit in properties file, 0 generates the whole trajectories, optional in properties file
+    private boolean FLOW_NETWORK_MODEL_ENABLED; //boolean to share the link capacities among the transfers, optional in properties file
+    private double HANDOVER_CHECK_INTERVAL; //seconds unit in properties file, optional in properties file
+    private long RANDOM_SEED; //seed of the random number streams, optional in properties file
+    private String MAN_TOPOLOGY_FILE; //path of the MAN topology file relative to the properties file, optional in properties file
+    private double MAN_ARRIVAL_RATE_HALF_LIFE; //seconds unit in properties file, optional in properties file
+    private boolean WARM_UP_CHECKPOINT_ENABLED; //boolean to resume the policies from the end of the warm-up period, optional in properties file
 
     private int MIN_NUM_OF_MOBILE_DEVICES;
     private int MAX_NUM_OF_MOBILE_DEVICES;
@@ -108,15 +120,18 @@ public class SimSettings {
     
     private String[] taskNames = null;
 
-	private SimSettings() {
+	/*
+	 * Settings are owned by the simulation context, see getInstance()
+	 */
+	SimSettings() {
 		NUM_OF_PLACE_TYPES = 0;
 	}
 	
+	/*
+	 * returns the settings of the simulation context bound to the calling thread
+	 */
 	public static SimSettings getInstance() {
-		if(instance == null) {
-			instance = new SimSettings();
-		}
-		return instance;
+		return SimulationContext.current().getSimSettings();
 	}
 	
 	/**
@@ -140,6 +155,24 @@ public class SimSettings {
 			INTERVAL_TO_GET_VM_LOCATION_LOG = (double)60 * Double.parseDouble(prop.getProperty("vm_location_check_interval")); //seconds
 			FILE_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("file_log_enabled"));
 			DEEP_FILE_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("deep_file_log_enabled"));
+			BINARY_FILE_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("binary_file_log_enabled"));
+			HOST_LOAD_LOG_ENABLED = Boolean.parseBoolean(prop.getProperty("host_load_log_enabled"));
+			VM_LOAD_LOG_MAX_POINTS = Integer.parseInt(prop.getProperty("vm_load_log_max_points", "0").trim());
+			MOBILITY_LOOKAHEAD = Double.parseDouble(prop.getProperty("mobility_lookahead", "0").trim()); //seconds
+			FLOW_NETWORK_MODEL_ENABLED = Boolean.parseBoolean(prop.getProperty("flow_network_model", "false").trim());
+			HANDOVER_CHECK_INTERVAL = Double.parseDouble(prop.getProperty("handover_check_interval", "1").trim()); //seconds
+			MAN_ARRIVAL_RATE_HALF_LIFE = Double.parseDouble(prop.getProperty("man_arrival_rate_half_life", "5").trim()); //seconds
+			WARM_UP_CHECKPOINT_ENABLED = Boolean.parseBoolean(prop.getProperty("warm_up_checkpoint", "false").trim());
+			
+			//runs are not reproducible if the seed is not provided
+			String randomSeed = prop.getProperty("random_seed");
+			RANDOM_SEED = (randomSeed != null) ? Long.parseLong(randomSeed.trim()) : System.currentTimeMillis();
+			
+			//single MAN link shared by all edge datacenters is used if the topology is not provided
+			String manTopologyFile = prop.getProperty("man_topology_file", "").trim();
+			if(!manTopologyFile.isEmpty() && !new File(manTopologyFile).isAbsolute())
+				manTopologyFile = new File(new File(propertiesFile).getAbsoluteFile().getParentFile(), manTopologyFile).getPath();
+			MAN_TOPOLOGY_FILE = manTopologyFile.isEmpty() ? null : manTopologyFile;
 			
 			MIN_NUM_OF_MOBILE_DEVICES = Integer.parseInt(prop.getProperty("min_number_of_mobile_devices"));
 			MAX_NUM_OF_MOBILE_DEVICES = Integer.parseInt(prop.getProperty("max_number_of_mobile_devices"));
@@ -194,6 +227,8 @@ public class SimSettings {
 		}
 		parseApplicatinosXML(applicationsFile);
 		parseEdgeDevicesXML(edgeDevicesFile);
+		if(MAN_TOPOLOGY_FILE != null)
+			parseManTopologyXML(MAN_TOPOLOGY_FILE);
 		
 		return result;
 	}
@@ -205,6 +240,21 @@ public class SimSettings {
 		return edgeDevicesDoc;
 	}
 
+	/**
+	 * returns the datacenters, hosts and VMs parsed from edge_devices.xml
+	 */
+	public EdgeTopology getEdgeTopology(){
+		return edgeTopology;
+	}
+
+	/**
+	 * returns the MAN links between the edge datacenters parsed from the MAN
+	 * topology file, null if the file is not provided in properties file
+	 */
+	public ManTopology getManTopology(){
+		return manTopology;
+	}
+
 
 	/**
 	 * returns simulation time (in seconds unit) from properties file
@@ -253,6 +303,89 @@ public class SimSettings {
 	{
 		return FILE_LOG_ENABLED; 
 	}
+
+	/**
+	 * returns binary file logging status from properties file;
+	 * task and vm load logs are written in BinaryLogFormat if it is enabled
+	 */
+	public boolean getBinaryFileLoggingEnabled()
+	{
+		return BINARY_FILE_LOG_ENABLED; 
+	}
+
+	/**
+	 * returns per host load logging status from properties file;
+	 * the load of each edge datacenter, edge host and cloud host is
+	 * written to the _HOST_LOAD.log file if it is enabled
+	 */
+	public boolean getHostLoadLogEnabled()
+	{
+		return HOST_LOAD_LOG_ENABLED; 
+	}
+
+	/**
+	 * returns the maximum number of points kept for the vm load log;
+	 * older points are downsampled when it is exceeded, 0 keeps all samples
+	 */
+	public int getVmLoadLogMaxPoints()
+	{
+		return VM_LOAD_LOG_MAX_POINTS; 
+	}
+
+	/**
+	 * returns how far (in seconds unit) the trajectories of the mobile devices
+	 * are generated ahead of the requested time; 0 means that the trajectories
+	 * are generated for the whole simulation while the mobility model is initialized
+	 */
+	public double getMobilityLookahead()
+	{
+		return MOBILITY_LOOKAHEAD; 
+	}
+
+	/**
+	 * returns true if the scenarios which support it should use the flow level
+	 * network model sharing the link capacities max-min fairly among the transfers
+	 */
+	public boolean getFlowNetworkModelEnabled()
+	{
+		return FLOW_NETWORK_MODEL_ENABLED;
+	}
+
+	/**
+	 * returns the minimum interval (in seconds unit) between two handover checks;
+	 * the handovers of the devices moving continuously are detected at this resolution
+	 */
+	public double getHandoverCheckInterval()
+	{
+		return HANDOVER_CHECK_INTERVAL; 
+	}
+
+	/**
+	 * returns the half life (in seconds unit) of the MAN transfer statistics used by
+	 * the queue models; the weight of a transfer halves at each half life
+	 */
+	public double getManArrivalRateHalfLife()
+	{
+		return MAN_ARRIVAL_RATE_HALF_LIFE;
+	}
+
+	/**
+	 * returns true if the warm-up period of a scenario is simulated only by the
+	 * run of the first orchestrator policy; the runs of the other policies
+	 * resume from its state at the end of the warm-up period
+	 */
+	public boolean getWarmUpCheckpointEnabled()
+	{
+		return WARM_UP_CHECKPOINT_ENABLED;
+	}
+
+	/**
+	 * returns the seed of the random number streams from properties file
+	 */
+	public long getRandomSeed()
+	{
+		return RANDOM_SEED; 
+	}
 	
 	/**
 	 * returns WAN propogation delay (in second unit) from properties file
@@ -509,6 +642,10 @@ public class SimSettings {
 		}
 	}
 	
+	private String getElementText(Element element, String key) {
+		return element.getElementsByTagName(key).item(0).getTextContent().trim();
+	}
+	
 	private void parseApplicatinosXML(String filePath)
 	{
 		Document doc = null;
@@ -576,7 +713,7 @@ public class SimSettings {
 		} catch (Exception e) {
 			SimLogger.printLine("Edge Devices XML cannot be parsed! Terminating simulation...");
 			e.printStackTrace();
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 
@@ -590,6 +727,10 @@ public class SimSettings {
 			edgeDevicesDoc.getDocumentElement().normalize();
 
 			NodeList datacenterList = edgeDevicesDoc.getElementsByTagName("datacenter");
+			edgeTopology = new EdgeTopology(datacenterList.getLength(),
+					edgeDevicesDoc.getElementsByTagName("host").getLength(),
+					edgeDevicesDoc.getElementsByTagName("VM").getLength());
+
 			for (int i = 0; i < datacenterList.getLength(); i++) {
 			    NUM_OF_EDGE_DATACENTERS++;
 				Node datacenterNode = datacenterList.item(i);
@@ -614,6 +755,18 @@ public class SimSettings {
 				if(NUM_OF_PLACE_TYPES < placeTypeIndex+1)
 					NUM_OF_PLACE_TYPES = placeTypeIndex+1;
 
+				edgeTopology.addDatacenter(datacenterElement.getAttribute("arch"),
+						datacenterElement.getAttribute("os"),
+						datacenterElement.getAttribute("vmm"),
+						Double.parseDouble(getElementText(datacenterElement, "costPerBw")),
+						Double.parseDouble(getElementText(datacenterElement, "costPerSec")),
+						Double.parseDouble(getElementText(datacenterElement, "costPerMem")),
+						Double.parseDouble(getElementText(datacenterElement, "costPerStorage")),
+						new Location(placeTypeIndex,
+								Integer.parseInt(getElementText(location, "wlan_id")),
+								Integer.parseInt(getElementText(location, "x_pos")),
+								Integer.parseInt(getElementText(location, "y_pos"))));
+
 				NodeList hostList = datacenterElement.getElementsByTagName("host");
 				for (int j = 0; j < hostList.getLength(); j++) {
 				    NUM_OF_EDGE_HOSTS++;
@@ -625,6 +778,11 @@ public class SimSettings {
 					isElementPresent(hostElement, "ram");
 					isElementPresent(hostElement, "storage");
 
+					edgeTopology.addHost(Integer.parseInt(getElementText(hostElement, "core")),
+							Double.parseDouble(getElementText(hostElement, "mips")),
+							Integer.parseInt(getElementText(hostElement, "ram")),
+							Long.parseLong(getElementText(hostElement, "storage")));
+
 					NodeList vmList = hostElement.getElementsByTagName("VM");
 					for (int k = 0; k < vmList.getLength(); k++) {
 					    NUM_OF_EDGE_VMS++;
@@ -636,6 +794,12 @@ public class SimSettings {
 						isElementPresent(vmElement, "mips");
 						isElementPresent(vmElement, "ram");
 						isElementPresent(vmElement, "storage");
+
+						edgeTopology.addVm(vmElement.getAttribute("vmm"),
+								Integer.parseInt(getElementText(vmElement, "core")),
+								Double.parseDouble(getElementText(vmElement, "mips")),
+								Integer.parseInt(getElementText(vmElement, "ram")),
+								Long.parseLong(getElementText(vmElement, "storage")));
 					}
 				}
 			}
@@ -643,7 +807,45 @@ public class SimSettings {
 		} catch (Exception e) {
 			SimLogger.printLine("Edge Devices XML cannot be parsed! Terminating simulation...");
 			e.printStackTrace();
-			System.exit(0);
+			SimulationContext.terminate(0);
+		}
+	}
+
+	private void parseManTopologyXML(String filePath)
+	{
+		try {	
+			File topologyFile = new File(filePath);
+			DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+			DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+			Document doc = dBuilder.parse(topologyFile);
+			doc.getDocumentElement().normalize();
+
+			manTopology = new ManTopology(edgeTopology.getNumOfDatacenters());
+
+			NodeList linkList = doc.getElementsByTagName("link");
+			for (int i = 0; i < linkList.getLength(); i++) {
+				Element linkElement = (Element) linkList.item(i);
+				isElementPresent(linkElement, "source");
+				isElementPresent(linkElement, "destination");
+				isElementPresent(linkElement, "bandwidth");
+				isElementPresent(linkElement, "propagation_delay");
+
+				//links connect the edge datacenters, which are identified by the wlan id of their AP
+				int source = edgeTopology.getDatacenterOfWlan(Integer.parseInt(getElementText(linkElement, "source")));
+				int destination = edgeTopology.getDatacenterOfWlan(Integer.parseInt(getElementText(linkElement, "destination")));
+				double bandwidth = 1000 * Double.parseDouble(getElementText(linkElement, "bandwidth")); //Mbps unit in topology file
+				double propagationDelay = Double.parseDouble(getElementText(linkElement, "propagation_delay")); //seconds
+				if(bandwidth <= 0 || propagationDelay < 0)
+					throw new IllegalArgumentException("MAN link " + i + " has invalid bandwidth or propagation delay");
+
+				manTopology.addLink(source, destination, bandwidth, propagationDelay);
+			}
+			manTopology.computePaths();
+	
+		} catch (Exception e) {
+			SimLogger.printLine("MAN Topology XML cannot be parsed! Terminating simulation...");
+			e.printStackTrace();
+			SimulationContext.terminate(0);
 		}
 	}
 }
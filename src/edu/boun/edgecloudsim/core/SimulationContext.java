@@ -0,0 +1,205 @@
+/*
+ * Title:        EdgeCloudSim - Simulation Context
+ *
+ * Description:
+ * SimulationContext owns the components which were process wide
+ * singletons before: simulation settings, simulation manager, logger,
+ * random number service and the created VM counters of the allocation
+ * policies. getInstance() methods of these classes resolve to the context
+ * bound to the calling thread, or to the default context if no context
+ * is bound. Therefore, existing code works without any modification.
+ *
+ * Please note that CloudSim keeps its simulation kernel (clock, event
+ * queues, entities) in static fields. Two simulations can run on separate
+ * threads only if their CloudSim classes are loaded by separate class
+ * loaders; the context then keeps the EdgeCloudSim side of each run apart
+ * so that a class loader can be reused for many runs.
+ *
+ * The context also keeps the state shared by the runs of a scenario in
+ * an iteration: the mobility model and the warm-up checkpoint.
+ *
+ * Errors which make the simulation unable to continue are reported by
+ * terminate(). It exits the JVM, unless the context is run by a caller
+ * which handles the termination, like SweepRunner.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.io.OutputStream;
+import java.util.function.Function;
+
+import edu.boun.edgecloudsim.mobility.MobilityModel;
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimRandom;
+
+public class SimulationContext {
+	private static final SimulationContext defaultContext = new SimulationContext();
+	private static final ThreadLocal<SimulationContext> boundContext = new ThreadLocal<SimulationContext>();
+
+	//created with the context since a context is only used by the thread it is bound to,
+	//so the getters called on the hot paths need no synchronization
+	private final SimSettings simSettings;
+	private final SimLogger simLogger;
+	private SimManager simManager;
+	private SimRandom simRandom;
+	private int[] createdVmNum;
+	private String sharedMobilityKey;
+	private MobilityModel sharedMobilityModel;
+	private WarmUpCheckpoint warmUpCheckpoint;
+	private boolean terminationHandledByCaller;
+	private Function<String, OutputStream> resultArchive;
+
+	public SimulationContext() {
+		simSettings = new SimSettings();
+		simLogger = new SimLogger();
+		simRandom = new SimRandom();
+		createdVmNum = new int[SimSettings.VM_TYPES.values().length];
+	}
+
+	/**
+	 * returns the context bound to the calling thread, or the default
+	 * context if there is no bound context
+	 */
+	public static SimulationContext current() {
+		SimulationContext context = boundContext.get();
+		return (context == null) ? defaultContext : context;
+	}
+
+	/**
+	 * binds this context to the calling thread; all getInstance() calls
+	 * made by this thread resolve to this context until unbind() is called
+	 */
+	public void bind() {
+		boundContext.set(this);
+	}
+
+	/**
+	 * removes the context bound to the calling thread
+	 */
+	public static void unbind() {
+		boundContext.remove();
+	}
+
+	/**
+	 * makes terminate() throw SimulationTerminatedException while this
+	 * context is bound instead of exiting the JVM
+	 */
+	public void handleTerminationByCaller() {
+		terminationHandledByCaller = true;
+	}
+
+	/**
+	 * terminates the simulation of the context bound to the calling thread
+	 * after an unrecoverable error; it is used instead of System.exit()
+	 */
+	public static void terminate(int status) {
+		if(current().terminationHandledByCaller)
+			throw new SimulationTerminatedException(status);
+		System.exit(status);
+	}
+
+	/**
+	 * makes the logger write its result files into an archive instead of the
+	 * output folder; the given function opens the archive entry of a file
+	 */
+	public void setResultArchive(Function<String, OutputStream> _resultArchive) {
+		resultArchive = _resultArchive;
+	}
+
+	/**
+	 * returns the function opening the archive entries of the result files,
+	 * or null if the results are written to the output folder
+	 */
+	public Function<String, OutputStream> getResultArchive() {
+		return resultArchive;
+	}
+
+	public SimSettings getSimSettings() {
+		return simSettings;
+	}
+
+	public SimLogger getSimLogger() {
+		return simLogger;
+	}
+
+	public SimManager getSimManager() {
+		return simManager;
+	}
+
+	void setSimManager(SimManager _simManager) {
+		simManager = _simManager;
+	}
+
+	/**
+	 * returns the random number service of this context
+	 */
+	public SimRandom getSimRandom() {
+		return simRandom;
+	}
+
+	void setSimRandom(SimRandom _simRandom) {
+		simRandom = _simRandom;
+	}
+
+	/**
+	 * returns the number of VMs created by the allocation policies of the given VM type
+	 */
+	public int getCreatedVmNum(SimSettings.VM_TYPES vmType) {
+		return createdVmNum[vmType.ordinal()];
+	}
+
+	public void resetCreatedVmNum(SimSettings.VM_TYPES vmType) {
+		createdVmNum[vmType.ordinal()] = 0;
+	}
+
+	public void increaseCreatedVmNum(SimSettings.VM_TYPES vmType) {
+		createdVmNum[vmType.ordinal()]++;
+	}
+
+	/**
+	 * returns the created VM counters of all VM types indexed by their ordinals
+	 */
+	int[] getCreatedVmNums() {
+		return createdVmNum;
+	}
+
+	void setCreatedVmNums(int[] _createdVmNum) {
+		createdVmNum = _createdVmNum;
+	}
+
+	/**
+	 * returns the mobility model initialized by a previous run with the
+	 * same key, or null if the last initialized model has a different key
+	 */
+	MobilityModel getSharedMobilityModel(String key) {
+		return key.equals(sharedMobilityKey) ? sharedMobilityModel : null;
+	}
+
+	/**
+	 * keeps the given initialized mobility model for the following runs;
+	 * only the last model is kept since the runs sharing a model are consecutive
+	 */
+	void setSharedMobilityModel(String key, MobilityModel model) {
+		sharedMobilityKey = key;
+		sharedMobilityModel = model;
+	}
+
+	/**
+	 * returns the warm-up checkpoint with the given key, or null if the
+	 * last checkpoint is taken by a run with a different key
+	 */
+	WarmUpCheckpoint getWarmUpCheckpoint(String key) {
+		return (warmUpCheckpoint != null && key.equals(warmUpCheckpoint.getKey())) ? warmUpCheckpoint : null;
+	}
+
+	/**
+	 * keeps the given checkpoint for the following runs; only the last one
+	 * is kept since the runs of a scenario are consecutive
+	 */
+	void setWarmUpCheckpoint(WarmUpCheckpoint checkpoint) {
+		warmUpCheckpoint = checkpoint;
+	}
+}
@@ -0,0 +1,28 @@
+/*
+ * Title:        EdgeCloudSim - Simulation Terminated Exception
+ *
+ * Description:
+ * SimulationTerminatedException is thrown by SimulationContext.terminate()
+ * when the termination of the simulation is handled by the caller which
+ * runs it, like SweepRunner, instead of exiting the JVM.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+public class SimulationTerminatedException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final int status;
+
+	public SimulationTerminatedException(int _status) {
+		super("The simulation has been terminated with status " + _status);
+		status = _status;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+}
@@ -0,0 +1,379 @@
+/*
+ * Title:        EdgeCloudSim - Sweep Runner
+ *
+ * Description:
+ * SweepRunner runs all iterations of the scenarios listed in simulation.list
+ * in a single JVM. Each (scenario, iteration) pair is a job executed on a
+ * work stealing pool sized to the number of available processors, so that
+ * a core finishing its short runs picks up the remaining work instead of
+ * waiting idle at the end of the sweep.
+ *
+ * Since CloudSim keeps its kernel in static fields, every worker thread
+ * loads the simulator classes through its own class loader. The loader is
+ * kept for the lifetime of the worker so the JIT compiled code is reused
+ * by the following jobs; each job runs in a fresh SimulationContext.
+ *
+ * The simulator reports its errors by SimulationContext.terminate(), which
+ * throws SimulationTerminatedException in the contexts of the jobs, so only
+ * the failing job is lost. System.exit() calls of the application code are
+ * turned into exceptions on the worker threads by a security manager; the
+ * JVM must allow it by -Djava.security.manager=allow on Java 18 and later.
+ * The sweep is not started if the security manager cannot be installed,
+ * since a single System.exit() would end it with a successful exit status.
+ *
+ * The output layout is the same as the one produced by runner.sh:
+ * <output folder>/<scenario>/ite<N>.tar.gz and ite<N>.log
+ * The logger writes the result files of a job into its archive directly;
+ * only the files written by the application itself to the output folder
+ * are packed after the job finishes.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.Permission;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.TarGzArchive;
+
+public class SweepRunner {
+	private static final String CONTEXT_CLASS = "edu.boun.edgecloudsim.core.SimulationContext";
+	private static final String TERMINATED_EXCEPTION_CLASS = "edu.boun.edgecloudsim.core.SimulationTerminatedException";
+
+	private final String mainClassName;
+	private final File scriptRootFolder;
+	private final File outputFolder;
+	private final int numOfIterations;
+	private final URL[] classPath;
+
+	private final ThreadLocal<ClassLoader> workerClassLoader = new ThreadLocal<ClassLoader>();
+	private final ThreadLocal<PrintStream> workerOutput = new ThreadLocal<PrintStream>();
+	private final ThreadLocal<Integer> workerExitStatus = new ThreadLocal<Integer>();
+	private final AtomicInteger finishedJobs = new AtomicInteger();
+	private PrintStream console;
+
+	public SweepRunner(String _mainClassName, File _scriptRootFolder, File _outputFolder, int _numOfIterations) throws IOException {
+		mainClassName = _mainClassName;
+		scriptRootFolder = _scriptRootFolder;
+		outputFolder = _outputFolder;
+		numOfIterations = _numOfIterations;
+
+		String[] entries = System.getProperty("java.class.path").split(File.pathSeparator);
+		classPath = new URL[entries.length];
+		for(int i=0; i<entries.length; i++)
+			classPath[i] = Paths.get(entries[i]).toUri().toURL();
+	}
+
+	/**
+	 * usage: SweepRunner <main class> <script root folder> <output folder> <number of iterations> [number of threads]
+	 */
+	public static void main(String[] args) throws Exception {
+		if(args.length != 4 && args.length != 5) {
+			System.out.println("Usage: SweepRunner <main class> <script root folder> <output folder> <number of iterations> [number of threads]");
+			System.exit(1);
+		}
+
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		if(args.length == 5)
+			numOfThreads = Integer.parseInt(args[4]);
+
+		SweepRunner runner = new SweepRunner(args[0], new File(args[1]), new File(args[2]), Integer.parseInt(args[3]));
+		try {
+			int failedJobs = runner.run(numOfThreads);
+			System.exit(failedJobs == 0 ? 0 : 1);
+		}
+		catch (IllegalStateException e) {
+			System.out.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * runs all jobs on a work stealing pool and returns the number of failed jobs;
+	 * IllegalStateException is thrown if System.exit() cannot be trapped
+	 */
+	public int run(int numOfThreads) throws Exception {
+		List<String[]> simulations = readSimulationList();
+		int numOfJobs = simulations.size() * numOfIterations;
+		if(!installExitTrap())
+			throw new IllegalStateException("System.exit() cannot be trapped, the sweep is not started (use -Djava.security.manager=allow)");
+
+		console = System.out;
+		PrintStream originalErr = System.err;
+
+		console.println("Sweep started at " + new Date() + ": " + numOfJobs + " jobs on " + numOfThreads + " threads");
+		Date sweepStartDate = new Date();
+
+		//console output of the simulations is routed to the log file of the job running on the calling thread
+		System.setOut(new PrintStream(new WorkerOutputStream(console), true));
+		System.setErr(new PrintStream(new WorkerOutputStream(originalErr), true));
+
+		int failedJobs = 0;
+		ExecutorService pool = Executors.newWorkStealingPool(numOfThreads);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for(final String[] simulation : simulations) {
+				for(int i=1; i<=numOfIterations; i++) {
+					final int iterationNumber = i;
+					results.add(pool.submit(new Callable<Boolean>() {
+						public Boolean call() {
+							return runJob(simulation, iterationNumber, numOfJobs);
+						}
+					}));
+				}
+			}
+			for(Future<Boolean> result : results) {
+				if(!result.get())
+					failedJobs++;
+			}
+		}
+		finally {
+			pool.shutdown();
+			uninstallExitTrap();
+			System.setOut(console);
+			System.setErr(originalErr);
+		}
+
+		console.println("Sweep finished at " + new Date() + ". It took " + SimUtils.getTimeDifference(sweepStartDate, new Date()) +
+				" (" + failedJobs + " failed job(s))");
+		return failedJobs;
+	}
+
+	private List<String[]> readSimulationList() throws IOException {
+		List<String[]> simulations = new ArrayList<String[]>();
+		File listFile = new File(scriptRootFolder, "simulation.list");
+		for(String line : Files.readAllLines(listFile.toPath(), StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if(line.isEmpty())
+				continue;
+
+			String[] fields = line.split(";");
+			if(fields.length != 3)
+				throw new IOException("Invalid line in " + listFile + ": " + line);
+			simulations.add(fields);
+		}
+		return simulations;
+	}
+
+	private boolean runJob(String[] simulation, int iterationNumber, int numOfJobs) {
+		String scenarioName = simulation[0];
+		File configFolder = new File(scriptRootFolder, "config");
+		File scenarioFolder = new File(outputFolder, scenarioName);
+		File iterationFolder = new File(scenarioFolder, "ite" + iterationNumber);
+		File logFile = new File(scenarioFolder, "ite" + iterationNumber + ".log");
+
+		String[] args = new String[] {
+				new File(configFolder, scenarioName + ".properties").getPath(),
+				new File(configFolder, simulation[1]).getPath(),
+				new File(configFolder, simulation[2]).getPath(),
+				iterationFolder.getPath(),
+				Integer.toString(iterationNumber)
+		};
+
+		boolean success = false;
+		iterationFolder.mkdirs();
+		try {
+			TarGzArchive.Writer archive = new TarGzArchive.Writer(new File(scenarioFolder, "ite" + iterationNumber + ".tar.gz"),
+					iterationFolder.getName(), System.currentTimeMillis() / 1000);
+			try {
+				PrintStream log = new PrintStream(new BufferedOutputStream(new FileOutputStream(logFile)), true);
+				workerOutput.set(log);
+				try {
+					runSimulation(args, archive);
+					//the simulation may catch the exception thrown by System.exit() and return normally
+					success = (workerExitStatus.get() == null);
+					if(!success)
+						log.println("The simulation has been terminated by System.exit(" + workerExitStatus.get() + ")");
+				}
+				catch (Throwable e) {
+					//the exception class is loaded by the class loader of the worker
+					if(e.getClass().getName().equals(TERMINATED_EXCEPTION_CLASS)) {
+						log.println(e.getMessage());
+					}
+					else {
+						log.println("The simulation has been terminated due to an unexpected error");
+						e.printStackTrace(log);
+					}
+				}
+				finally {
+					workerOutput.remove();
+					workerExitStatus.remove();
+					log.close();
+				}
+
+				//static fields of the simulator may be left inconsistent, the next job loads the classes again
+				if(!success)
+					workerClassLoader.remove();
+
+				//files which are not written by the logger of the simulation are packed as well
+				File[] files = iterationFolder.listFiles();
+				if(files != null) {
+					Arrays.sort(files);
+					for(File f : files) {
+						if(f.isFile())
+							archive.addFile(f);
+					}
+				}
+			}
+			finally {
+				archive.close();
+			}
+			TarGzArchive.deleteFolder(iterationFolder);
+		}
+		catch (IOException e) {
+			synchronized (console) {
+				console.println("Output of " + scenarioName + " ite" + iterationNumber + " cannot be saved: " + e.getMessage());
+			}
+			success = false;
+		}
+
+		synchronized (console) {
+			console.println("[" + finishedJobs.incrementAndGet() + "/" + numOfJobs + "] " + scenarioName + " ite" + iterationNumber +
+					(success ? " finished" : " failed, see " + logFile.getPath()));
+		}
+		return success;
+	}
+
+	/**
+	 * invokes the main method of the application in a fresh simulation
+	 * context of the class loader owned by the calling worker thread
+	 */
+	private void runSimulation(String[] args, final TarGzArchive.Writer archive) throws Throwable {
+		ClassLoader loader = workerClassLoader.get();
+		if(loader == null) {
+			//parent is the platform loader so that simulator classes are never shared between workers
+			loader = new URLClassLoader(classPath, ClassLoader.getPlatformClassLoader());
+			workerClassLoader.set(loader);
+		}
+
+		Thread thread = Thread.currentThread();
+		ClassLoader previousLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(loader);
+
+		Class<?> contextClass = loader.loadClass(CONTEXT_CLASS);
+		Object context = contextClass.getConstructor().newInstance();
+		contextClass.getMethod("handleTerminationByCaller").invoke(context);
+		//result files are written into the archive of the job
+		contextClass.getMethod("setResultArchive", Function.class).invoke(context, new Function<String, OutputStream>() {
+			public OutputStream apply(String fileName) {
+				return archive.newEntry(fileName);
+			}
+		});
+		contextClass.getMethod("bind").invoke(context);
+		try {
+			Method main = loader.loadClass(mainClassName).getMethod("main", String[].class);
+			main.invoke(null, (Object)args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+		finally {
+			contextClass.getMethod("unbind").invoke(null);
+			thread.setContextClassLoader(previousLoader);
+		}
+	}
+
+	@SuppressWarnings("removal")
+	private boolean installExitTrap() {
+		try {
+			System.setSecurityManager(new ExitTrap());
+			return true;
+		}
+		catch (UnsupportedOperationException | SecurityException e) {
+			return false;
+		}
+	}
+
+	@SuppressWarnings("removal")
+	private void uninstallExitTrap() {
+		System.setSecurityManager(null);
+	}
+
+	/**
+	 * permits everything except the System.exit() calls of the jobs running
+	 * on the worker threads, which are reported by JobExitException
+	 */
+	@SuppressWarnings("removal")
+	private class ExitTrap extends SecurityManager {
+		@Override
+		public void checkExit(int status) {
+			if(workerOutput.get() != null) {
+				workerExitStatus.set(status);
+				throw new JobExitException(status);
+			}
+		}
+
+		@Override
+		public void checkPermission(Permission perm) {
+		}
+
+		@Override
+		public void checkPermission(Permission perm, Object context) {
+		}
+	}
+
+	private static class JobExitException extends SecurityException {
+		private static final long serialVersionUID = 1L;
+
+		JobExitException(int status) {
+			super("The simulation called System.exit(" + status + ")");
+		}
+	}
+
+	/**
+	 * forwards the written bytes to the output of the job running on the
+	 * calling thread, or to the default stream for the other threads
+	 */
+	private class WorkerOutputStream extends OutputStream {
+		private final PrintStream defaultStream;
+
+		WorkerOutputStream(PrintStream _defaultStream) {
+			defaultStream = _defaultStream;
+		}
+
+		private PrintStream target() {
+			PrintStream stream = workerOutput.get();
+			return (stream == null) ? defaultStream : stream;
+		}
+
+		@Override
+		public void write(int b) {
+			target().write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			target().write(b, off, len);
+		}
+
+		@Override
+		public void flush() {
+			target().flush();
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Title:        EdgeCloudSim - Warm-up Checkpoint
+ *
+ * Description:
+ * WarmUpCheckpoint keeps a copy of the simulation at the end of the warm-up
+ * period, so that the other orchestrator policies of a scenario continue
+ * from it instead of simulating the warm-up period again. The copy covers
+ * the CloudSim kernel (clock, future and deferred event queues, entities
+ * with their datacenters, VMs and cloudlet schedulers), the components of
+ * the simulation manager (load generator cursors, mobility model, place
+ * occupancy tracker, network model counters, device managers), the random
+ * number streams, the created VM counters and the logs.
+ *
+ * A run resuming from the checkpoint uses a new edge orchestrator of its
+ * own policy in place of the checkpointed one; the other components
+ * continue from the checkpointed state. All policies therefore see the
+ * same devices, tasks in flight and server load at the end of the warm-up
+ * period, which are produced by the policy of the run taking the checkpoint.
+ * The tasks of the warm-up period are skipped by the results as before, but
+ * the VM load log of a resumed run starts with the warm-up samples of the
+ * run taking the checkpoint.
+ *
+ * CloudSim keeps its kernel in static fields, so the checkpoint is resumed
+ * in the class loader it is taken in; the sweep runner runs the policies of
+ * an iteration in one job, hence in one class loader.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+
+import edu.boun.edgecloudsim.edge_orchestrator.EdgeOrchestrator;
+import edu.boun.edgecloudsim.utils.ObjectGraphCopier;
+import edu.boun.edgecloudsim.utils.SimLogger;
+import edu.boun.edgecloudsim.utils.SimRandom;
+
+class WarmUpCheckpoint {
+	//indexes of the checkpointed objects in the state array
+	private static final int KERNEL = 0;
+	private static final int SIM_MANAGER = 1;
+	private static final int SIM_RANDOM = 2;
+	private static final int CREATED_VM_NUM = 3;
+	private static final int LOG_STATE = 4;
+
+	private static final Field[] kernelFields = getKernelFields();
+	private static final Field entityIdField = getEntityIdField();
+
+	private final String key;
+	private final Object[] state;
+
+	private WarmUpCheckpoint(String _key, Object[] _state) {
+		key = _key;
+		state = _state;
+	}
+
+	/**
+	 * copies the state of the running simulation; it is called while the
+	 * given simulation manager processes an event, the events following it
+	 * in the same clock tick are processed after the simulation is resumed
+	 */
+	static WarmUpCheckpoint capture(String key, SimManager simManager) throws IllegalAccessException {
+		SimulationContext context = SimulationContext.current();
+		Object[] kernel = new Object[kernelFields.length];
+		for(int i=0; i<kernelFields.length; i++)
+			kernel[i] = kernelFields[i].get(null);
+
+		Object[] state = new Object[] {
+				kernel,
+				simManager,
+				context.getSimRandom(),
+				context.getCreatedVmNums(),
+				SimLogger.getInstance().getLogState() };
+		return new WarmUpCheckpoint(key, newCopier(simManager).copy(state));
+	}
+
+	/**
+	 * returns the key of the runs which can resume from this checkpoint
+	 */
+	String getKey() {
+		return key;
+	}
+
+	/**
+	 * restores a copy of the checkpoint into the CloudSim kernel and the
+	 * simulation context; the given simulation manager is created for the
+	 * run but not started, only its edge orchestrator and scenario factory
+	 * are used by the restored simulation manager
+	 */
+	void restore(SimManager simManager) throws IllegalAccessException {
+		SimManager checkpointedManager = (SimManager)state[SIM_MANAGER];
+		EdgeOrchestrator edgeOrchestrator = simManager.getEdgeOrchestrator();
+
+		//the new orchestrator receives the events sent to the checkpointed one
+		entityIdField.setInt(edgeOrchestrator, checkpointedManager.getEdgeOrchestrator().getId());
+
+		ObjectGraphCopier copier = newCopier(checkpointedManager);
+		copier.substitute(checkpointedManager.getEdgeOrchestrator(), edgeOrchestrator);
+		copier.substitute(checkpointedManager.getScenarioFactory(), simManager.getScenarioFactory());
+		Object[] copy = copier.copy(state);
+
+		Object[] kernel = (Object[])copy[KERNEL];
+		for(int i=0; i<kernelFields.length; i++)
+			kernelFields[i].set(null, kernel[i]);
+
+		SimManager restoredManager = (SimManager)copy[SIM_MANAGER];
+		restoredManager.setOrchestratorPolicy(simManager.getOrchestratorPolicy());
+
+		SimulationContext context = SimulationContext.current();
+		context.setSimRandom((SimRandom)copy[SIM_RANDOM]);
+		context.setCreatedVmNums((int[])copy[CREATED_VM_NUM]);
+		context.setSimManager(restoredManager);
+		SimLogger.getInstance().setLogState((SimLogger.LogState)copy[LOG_STATE]);
+	}
+
+	/**
+	 * the settings and the logger belong to the context, and the mobility
+	 * model is shared by the runs unless its traces are generated on demand
+	 */
+	private static ObjectGraphCopier newCopier(SimManager simManager) {
+		ObjectGraphCopier copier = new ObjectGraphCopier();
+		copier.share(SimulationContext.current());
+		copier.share(SimSettings.getInstance());
+		copier.share(SimLogger.getInstance());
+		if(SimSettings.getInstance().getMobilityLookahead() <= 0)
+			copier.share(simManager.getMobilityModel());
+		return copier;
+	}
+
+	/**
+	 * returns the static fields of CloudSim which keep the simulation kernel
+	 */
+	private static Field[] getKernelFields() {
+		List<Field> fields = new ArrayList<Field>();
+		for(Field f : CloudSim.class.getDeclaredFields()) {
+			int modifiers = f.getModifiers();
+			if(Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+				f.setAccessible(true);
+				fields.add(f);
+			}
+		}
+		return fields.toArray(new Field[fields.size()]);
+	}
+
+	private static Field getEntityIdField() {
+		try {
+			Field f = SimEntity.class.getDeclaredField("id");
+			f.setAccessible(true);
+			return f;
+		} catch (NoSuchFieldException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -19,6 +19,7 @@ package edu.boun.edgecloudsim.edge_client;
 import org.cloudbus.cloudsim.UtilizationModel;
 
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.utils.SimLogger;
 
 public class CpuUtilizationModel_Custom implements UtilizationModel {
@@ -56,7 +57,7 @@ public class CpuUtilizationModel_Custom implements UtilizationModel {
 			index = 11;
 		else{
 			SimLogger.printLine("Unknown VM Type! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 		return SimSettings.getInstance().getTaskLookUpTable()[task.getTaskType()][index];
 	}
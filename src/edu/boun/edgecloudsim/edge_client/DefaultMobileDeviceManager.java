@@ -25,6 +25,9 @@ import org.cloudbus.cloudsim.core.SimEvent;
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+import edu.boun.edgecloudsim.core.SimulationContext;
+import edu.boun.edgecloudsim.mobility.MobilityModel;
+import edu.boun.edgecloudsim.network.FlowNetworkModel;
 import edu.boun.edgecloudsim.network.NetworkModel;
 import edu.boun.edgecloudsim.utils.TaskProperty;
 import edu.boun.edgecloudsim.utils.Location;
@@ -77,12 +80,11 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 			double WanDelay = networkModel.getDownloadDelay(SimSettings.CLOUD_DATACENTER_ID, task.getMobileDeviceId(), task);
 			if(WanDelay > 0)
 			{
-				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+WanDelay);
-				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
+				int currentWlanId = SimManager.getInstance().getMobilityModel().getServingWlanId(task.getMobileDeviceId(),CloudSim.clock()+WanDelay);
+				if(task.getSubmittedLocation().getServingWlanId() == currentWlanId)
 				{
 					networkModel.downloadStarted(task.getSubmittedLocation(), SimSettings.CLOUD_DATACENTER_ID);
-					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY);
-					schedule(getId(), WanDelay, RESPONSE_RECEIVED_BY_MOBILE_DEVICE, task);
+					startDownload(task, SimSettings.CLOUD_DATACENTER_ID, WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY);
 				}
 				else
 				{
@@ -99,12 +101,13 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 			double WlanDelay = networkModel.getDownloadDelay(task.getAssociatedHostId(), task.getMobileDeviceId(), task);
 			if(WlanDelay > 0)
 			{
-				Location currentLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(),CloudSim.clock()+WlanDelay);
-				if(task.getSubmittedLocation().getServingWlanId() == currentLocation.getServingWlanId())
+				MobilityModel mobilityModel = SimManager.getInstance().getMobilityModel();
+				int currentWlanId = mobilityModel.getServingWlanId(task.getMobileDeviceId(),CloudSim.clock()+WlanDelay);
+				if(task.getSubmittedLocation().getServingWlanId() == currentWlanId)
 				{
+					Location currentLocation = mobilityModel.getLocation(task.getMobileDeviceId(),CloudSim.clock()+WlanDelay);
 					networkModel.downloadStarted(currentLocation, SimSettings.GENERIC_EDGE_DEVICE_ID);
-					SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), WlanDelay, NETWORK_DELAY_TYPES.WLAN_DELAY);
-					schedule(getId(), WlanDelay, RESPONSE_RECEIVED_BY_MOBILE_DEVICE, task);
+					startDownload(task, task.getAssociatedHostId(), WlanDelay, NETWORK_DELAY_TYPES.WLAN_DELAY);
 				}
 				else
 				{
@@ -121,7 +124,7 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 	protected void processOtherEvent(SimEvent ev) {
 		if (ev == null) {
 			SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - an event is null! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
 			return;
 		}
 		
@@ -162,7 +165,7 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 			}
 			default:
 				SimLogger.printLine(getName() + ".processOtherEvent(): " + "Error - event unknown by this DatacenterBroker. Terminating simulation...");
-				System.exit(0);
+				SimulationContext.terminate(0);
 				break;
 		}
 	}
@@ -194,8 +197,7 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 			if(WanDelay>0){
 				networkModel.uploadStarted(currentLocation, nextHopId);
 				SimLogger.getInstance().taskStarted(task.getCloudletId(), CloudSim.clock());
-				SimLogger.getInstance().setUploadDelay(task.getCloudletId(), WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY);
-				schedule(getId(), WanDelay, REQUEST_RECEIVED_BY_CLOUD, task);
+				startUpload(task, nextHopId, WanDelay, NETWORK_DELAY_TYPES.WAN_DELAY, REQUEST_RECEIVED_BY_CLOUD);
 			}
 			else
 			{
@@ -212,9 +214,8 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 			
 			if(WlanDelay > 0){
 				networkModel.uploadStarted(currentLocation, nextHopId);
-				schedule(getId(), WlanDelay, REQUEST_RECIVED_BY_EDGE_DEVICE, task);
 				SimLogger.getInstance().taskStarted(task.getCloudletId(), CloudSim.clock());
-				SimLogger.getInstance().setUploadDelay(task.getCloudletId(), WlanDelay, NETWORK_DELAY_TYPES.WLAN_DELAY);
+				startUpload(task, nextHopId, WlanDelay, NETWORK_DELAY_TYPES.WLAN_DELAY, REQUEST_RECIVED_BY_EDGE_DEVICE);
 			}
 			else {
 				SimLogger.getInstance().rejectedDueToBandwidth(
@@ -226,7 +227,37 @@ public class DefaultMobileDeviceManager extends MobileDeviceManager {
 		}
 		else {
 			SimLogger.printLine("Unknown nextHopId! Terminating simulation...");
-			System.exit(0);
+			SimulationContext.terminate(0);
+		}
+	}
+	
+	/**
+	 * Starts the upload of the task; a flow level network model decides when
+	 * the upload finishes, otherwise it takes the given delay.
+	 */
+	private void startUpload(Task task, int destDeviceId, double delay, NETWORK_DELAY_TYPES delayType, int tag) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof FlowNetworkModel) {
+			((FlowNetworkModel)networkModel).startUpload(task, destDeviceId, getId(), tag);
+		}
+		else {
+			SimLogger.getInstance().setUploadDelay(task.getCloudletId(), delay, delayType);
+			schedule(getId(), delay, tag, task);
+		}
+	}
+	
+	/**
+	 * Starts the download of the task result; a flow level network model
+	 * decides when the download finishes, otherwise it takes the given delay.
+	 */
+	private void startDownload(Task task, int sourceDeviceId, double delay, NETWORK_DELAY_TYPES delayType) {
+		NetworkModel networkModel = SimManager.getInstance().getNetworkModel();
+		if(networkModel instanceof FlowNetworkModel) {
+			((FlowNetworkModel)networkModel).startDownload(task, sourceDeviceId, getId(), RESPONSE_RECEIVED_BY_MOBILE_DEVICE);
+		}
+		else {
+			SimLogger.getInstance().setDownloadDelay(task.getCloudletId(), delay, delayType);
+			schedule(getId(), delay, RESPONSE_RECEIVED_BY_MOBILE_DEVICE, task);
 		}
 	}
 	
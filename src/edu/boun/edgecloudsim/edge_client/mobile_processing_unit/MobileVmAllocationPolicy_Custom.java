@@ -29,6 +29,7 @@ import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
 
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 
 /*
  * Same as VmAllocationPolicySimple.
@@ -36,7 +37,6 @@ import edu.boun.edgecloudsim.core.SimSettings;
 public class MobileVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	/** The vm table. */
 	private Map<String, Host> vmTable;
-	private static int createdVmNum;
 	private int DataCenterIndex;
 	
 	public MobileVmAllocationPolicy_Custom(List<? extends Host> list, int _DataCenterIndex) {
@@ -44,7 +44,7 @@ public class MobileVmAllocationPolicy_Custom extends VmAllocationPolicy {
 		
 		setVmTable(new HashMap<String, Host>());
 		DataCenterIndex = _DataCenterIndex;
-		createdVmNum = 0;
+		SimulationContext.current().resetCreatedVmNum(SimSettings.VM_TYPES.MOBILE_VM);
 	}
 
 	@Override
@@ -60,7 +60,7 @@ public class MobileVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	
 				if (result) { // if vm were succesfully created in the host
 					getVmTable().put(vm.getUid(), host);
-					createdVmNum++;
+					SimulationContext.current().increaseCreatedVmNum(SimSettings.VM_TYPES.MOBILE_VM);
 					Log.formatLine("%.2f: Mobile VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),CloudSim.clock());
 					result = true;
 				}
@@ -74,7 +74,7 @@ public class MobileVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
 			getVmTable().put(vm.getUid(), host);
-			createdVmNum++;
+			SimulationContext.current().increaseCreatedVmNum(SimSettings.VM_TYPES.MOBILE_VM);
 			
 			Log.formatLine("%.2f: Mobile VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),CloudSim.clock());
 			return true;
@@ -109,7 +109,7 @@ public class MobileVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	}
 
 	public static int getCreatedVmNum(){
-		return createdVmNum;
+		return SimulationContext.current().getCreatedVmNum(SimSettings.VM_TYPES.MOBILE_VM);
 	}
 	
 	/**
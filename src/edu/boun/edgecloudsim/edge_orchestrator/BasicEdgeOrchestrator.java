@@ -25,7 +25,6 @@ import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_server.EdgeVM;
 import edu.boun.edgecloudsim.edge_client.CpuUtilizationModel_Custom;
 import edu.boun.edgecloudsim.edge_client.Task;
-import edu.boun.edgecloudsim.utils.Location;
 import edu.boun.edgecloudsim.utils.SimUtils;
 
 public class BasicEdgeOrchestrator extends EdgeOrchestrator {
@@ -94,10 +93,9 @@ public class BasicEdgeOrchestrator extends EdgeOrchestrator {
 	public EdgeVM selectVmOnHost(Task task){
 		EdgeVM selectedVM = null;
 		
-		Location deviceLocation = SimManager.getInstance().getMobilityModel().getLocation(task.getMobileDeviceId(), CloudSim.clock());
 		//in our scenasrio, serving wlan ID is equal to the host id
 		//because there is only one host in one place
-		int relatedHostId=deviceLocation.getServingWlanId();
+		int relatedHostId=SimManager.getInstance().getMobilityModel().getServingWlanId(task.getMobileDeviceId(), CloudSim.clock());
 		List<EdgeVM> vmArray = SimManager.getInstance().getEdgeServerManager().getVmList(relatedHostId);
 		
 		if(policy.equalsIgnoreCase("RANDOM_FIT")){
@@ -22,6 +22,7 @@ import java.util.List;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.Host;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.core.CloudSim;
 
 public abstract class EdgeServerManager {
 	protected List<Datacenter> localDatacenters;
@@ -68,4 +69,36 @@ public abstract class EdgeServerManager {
 	 * returns average utilization of all VMs
 	 */
 	public abstract double getAvgUtilization();
+
+	/*
+	 * returns average utilization of the VMs on the given host
+	 */
+	public double getHostUtilization(int hostId){
+		List<EdgeVM> vmArray = getVmList(hostId);
+		if(vmArray.isEmpty())
+			return 0;
+
+		double totalUtilization = 0;
+		for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++)
+			totalUtilization += vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+		return totalUtilization / vmArray.size();
+	}
+
+	/*
+	 * returns average utilization of the VMs in the given datacenter
+	 */
+	public double getDatacenterUtilization(int datacenterIndex){
+		double totalUtilization = 0;
+		double vmCounter = 0;
+
+		List<? extends Host> list = localDatacenters.get(datacenterIndex).getHostList();
+		for (int j=0; j < list.size(); j++) {
+			List<EdgeVM> vmArray = getVmList(list.get(j).getId());
+			for(int vmIndex=0; vmIndex<vmArray.size(); vmIndex++){
+				totalUtilization += vmArray.get(vmIndex).getCloudletScheduler().getTotalUtilizationOfCpu(CloudSim.clock());
+				vmCounter++;
+			}
+		}
+		return (vmCounter == 0) ? 0 : totalUtilization / vmCounter;
+	}
 }
\ No newline at end of file
@@ -22,12 +22,10 @@ import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
 import org.cloudbus.cloudsim.core.CloudSim;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 
 /*
  * Same as VmAllocationPolicySimple.
@@ -35,7 +33,6 @@ import edu.boun.edgecloudsim.core.SimSettings;
 public class EdgeVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	/** The vm table. */
 	private Map<String, Host> vmTable;
-	private static int createdVmNum;
 	private int DataCenterIndex;
 	
 	public EdgeVmAllocationPolicy_Custom(List<? extends Host> list, int _DataCenterIndex) {
@@ -43,7 +40,7 @@ public class EdgeVmAllocationPolicy_Custom extends VmAllocationPolicy {
 		
 		setVmTable(new HashMap<String, Host>());
 		DataCenterIndex=_DataCenterIndex;
-		createdVmNum = 0;
+		SimulationContext.current().resetCreatedVmNum(SimSettings.VM_TYPES.EDGE_VM);
 	}
 
 	@Override
@@ -51,33 +48,15 @@ public class EdgeVmAllocationPolicy_Custom extends VmAllocationPolicy {
 		boolean result = false;
 		
 		if (!getVmTable().containsKey(vm.getUid()) && vm instanceof EdgeVM) { // if this vm was not created
-			boolean vmFound = false;
-			int vmCounter = 0;
+			//find proper datacenter id and host id for this VM
+			EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+			boolean vmFound = vm.getId() >= 0 && vm.getId() < topology.getNumOfVms();
 			int hostIndex = 0;
 			int dataCenterIndex = 0;
-			
-			//find proper datacenter id and host id for this VM
-			Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-			NodeList datacenterList = doc.getElementsByTagName("datacenter");
-			for (int i = 0; (!vmFound && i < datacenterList.getLength()); i++) {
-				Node datacenterNode = datacenterList.item(i);
-				Element datacenterElement = (Element) datacenterNode;
-				NodeList hostNodeList = datacenterElement.getElementsByTagName("host");
-				for (int j = 0; (!vmFound  && j < hostNodeList.getLength()); j++) {
-					Node hostNode = hostNodeList.item(j);
-					Element hostElement = (Element) hostNode;
-					NodeList vmNodeList = hostElement.getElementsByTagName("VM");
-					for (int k = 0; (!vmFound && k < vmNodeList.getLength()); k++) {
-
-						if(vmCounter == vm.getId()){
-							dataCenterIndex = i;
-							hostIndex = j;
-							vmFound = true;
-						}
-
-						vmCounter++;
-					}
-				}
+			if(vmFound) {
+				int hostId = topology.getHostOfVm(vm.getId());
+				dataCenterIndex = topology.getDatacenterOfHost(hostId);
+				hostIndex = hostId - topology.getFirstHost(dataCenterIndex);
 			}
 
 			if(vmFound && dataCenterIndex == DataCenterIndex && hostIndex < getHostList().size()){
@@ -86,7 +65,7 @@ public class EdgeVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	
 				if (result) { // if vm were succesfully created in the host
 					getVmTable().put(vm.getUid(), host);
-					createdVmNum++;
+					SimulationContext.current().increaseCreatedVmNum(SimSettings.VM_TYPES.EDGE_VM);
 					Log.formatLine("%.2f: Edge VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),CloudSim.clock());
 					result = true;
 				}
@@ -100,7 +79,7 @@ public class EdgeVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	public boolean allocateHostForVm(Vm vm, Host host) {
 		if (host.vmCreate(vm)) { // if vm has been succesfully created in the host
 			getVmTable().put(vm.getUid(), host);
-			createdVmNum++;
+			SimulationContext.current().increaseCreatedVmNum(SimSettings.VM_TYPES.EDGE_VM);
 			
 			Log.formatLine("%.2f: Edge VM #" + vm.getId() + " has been allocated to the host #" + host.getId(),CloudSim.clock());
 			return true;
@@ -135,7 +114,7 @@ public class EdgeVmAllocationPolicy_Custom extends VmAllocationPolicy {
 	}
 
 	public static int getCreatedVmNum(){
-		return createdVmNum;
+		return SimulationContext.current().getCreatedVmNum(SimSettings.VM_TYPES.EDGE_VM);
 	}
 	
 	/**
@@ -0,0 +1,25 @@
+/*
+ * Title:        EdgeCloudSim - Handover Listener
+ *
+ * Description:
+ * HandoverListener is notified when a mobile device moves from the
+ * coverage of one access point (AP) to another. The handovers are detected
+ * by PlaceOccupancyTracker while SimManager advances it with the simulation
+ * clock, so the listeners can keep per-AP state up to date incrementally
+ * instead of asking the location of the devices again and again.
+ * Network models, edge orchestrators and mobile device managers which
+ * implement this interface are registered by SimManager automatically.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.mobility;
+
+public interface HandoverListener {
+	/*
+	 * called when the serving AP of a device changes; the time is the
+	 * simulation time at which the handover is detected
+	 */
+	void handover(int deviceId, double time, int previousWlanId, int newWlanId);
+}
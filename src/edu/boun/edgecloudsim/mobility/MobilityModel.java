@@ -33,4 +33,37 @@ public abstract class MobilityModel {
 	 * returns location of a device at a certain time
 	 */
 	public abstract Location getLocation(int deviceId, double time);
+	
+	/*
+	 * following methods return a single property of the location of a
+	 * device at a certain time without creating a Location object; most
+	 * callers only need the serving WLAN id. Models which can answer them
+	 * from their own data should override them.
+	 */
+	public int getServingWlanId(int deviceId, double time) {
+		return getLocation(deviceId, time).getServingWlanId();
+	}
+	
+	public int getPlaceTypeIndex(int deviceId, double time) {
+		return getLocation(deviceId, time).getPlaceTypeIndex();
+	}
+	
+	public int getXPos(int deviceId, double time) {
+		return getLocation(deviceId, time).getXPos();
+	}
+	
+	public int getYPos(int deviceId, double time) {
+		return getLocation(deviceId, time).getYPos();
+	}
+	
+	/*
+	 * returns the earliest time after the given time at which the location
+	 * of a device may change; returning the given time means that the
+	 * location may change at any time. PlaceOccupancyTracker visits a device
+	 * only after this time, models which know their location changes in
+	 * advance should override it.
+	 */
+	public double getNextLocationChangeTime(int deviceId, double time) {
+		return time;
+	}
 }
@@ -0,0 +1,208 @@
+/*
+ * Title:        EdgeCloudSim - Mobility Trace
+ *
+ * Description:
+ * MobilityTrace keeps the trajectory of a single mobile device as a list
+ * of (time, location) entries in primitive arrays sorted by time. It is a
+ * compact replacement of TreeMap<Double, Location> for the mobility models.
+ * Since the simulation time only moves forward, the index of the last
+ * lookup is kept as a cursor and the next lookup checks the entries around
+ * it first; binary search is used only when the cursor does not match.
+ * Entries which are no longer needed can be discarded from the front, so
+ * a trace generated on demand keeps only a window of the trajectory.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.mobility;
+
+import java.util.Arrays;
+
+import edu.boun.edgecloudsim.utils.Location;
+
+public class MobilityTrace {
+	private static final int INITIAL_CAPACITY = 8;
+	private static final int MIN_DISCARD_SIZE = 8;
+
+	private double[] times;
+	private int[] placeTypes;
+	private int[] wlanIds;
+	private int[] xPos;
+	private int[] yPos;
+	private int size;
+
+	//index of the entry found by the last lookup
+	private int cursor;
+
+	//the Location object of the last requested entry is reused
+	private int locationIndex;
+	private Location location;
+
+	public MobilityTrace() {
+		times = new double[INITIAL_CAPACITY];
+		placeTypes = new int[INITIAL_CAPACITY];
+		wlanIds = new int[INITIAL_CAPACITY];
+		xPos = new int[INITIAL_CAPACITY];
+		yPos = new int[INITIAL_CAPACITY];
+		size = 0;
+		cursor = 0;
+		locationIndex = -1;
+	}
+
+	/**
+	 * adds an entry to the end of the trace; the time cannot be smaller
+	 * than the time of the last entry, an entry with the same time
+	 * replaces the last entry
+	 */
+	public void add(double time, int placeTypeIndex, int wlanId, int x, int y) {
+		if(size > 0 && time < times[size - 1])
+			throw new IllegalArgumentException("Trace entry at " + time + " is added after " + times[size - 1]);
+
+		int index = size;
+		if(size > 0 && time == times[size - 1]) {
+			index = size - 1;
+			if(locationIndex == index)
+				locationIndex = -1;
+		}
+		else {
+			if(size == times.length) {
+				int capacity = 2 * times.length;
+				times = Arrays.copyOf(times, capacity);
+				placeTypes = Arrays.copyOf(placeTypes, capacity);
+				wlanIds = Arrays.copyOf(wlanIds, capacity);
+				xPos = Arrays.copyOf(xPos, capacity);
+				yPos = Arrays.copyOf(yPos, capacity);
+			}
+			size++;
+		}
+
+		times[index] = time;
+		placeTypes[index] = placeTypeIndex;
+		wlanIds[index] = wlanId;
+		xPos[index] = x;
+		yPos[index] = y;
+	}
+
+	public void add(double time, Location loc) {
+		add(time, loc.getPlaceTypeIndex(), loc.getServingWlanId(), loc.getXPos(), loc.getYPos());
+	}
+
+	/**
+	 * discards the entries before the entry which is valid at the given time;
+	 * the arrays are compacted only when at least half of the entries are
+	 * discarded, so the indexes returned before stay valid until then
+	 */
+	public void discardBefore(double time) {
+		int index = floorIndex(time);
+		if(index < MIN_DISCARD_SIZE || index < size / 2)
+			return;
+
+		int count = size - index;
+		System.arraycopy(times, index, times, 0, count);
+		System.arraycopy(placeTypes, index, placeTypes, 0, count);
+		System.arraycopy(wlanIds, index, wlanIds, 0, count);
+		System.arraycopy(xPos, index, xPos, 0, count);
+		System.arraycopy(yPos, index, yPos, 0, count);
+		size = count;
+		cursor -= index;
+		locationIndex = (locationIndex >= index) ? locationIndex - index : -1;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * returns the index of the last entry whose time is smaller than or
+	 * equal to the given time, -1 if there is no such entry
+	 */
+	public int floorIndex(double time) {
+		if(size == 0 || time < times[0])
+			return -1;
+
+		//the cursor or one of the next entries matches in most cases
+		int index = cursor;
+		if(times[index] <= time) {
+			for(int i=0; i<2 && index + 1 < size && times[index + 1] <= time; i++)
+				index++;
+			if(index + 1 == size || times[index + 1] > time) {
+				cursor = index;
+				return index;
+			}
+		}
+
+		//binary search for the last entry not after the given time
+		int low = 0;
+		int high = size - 1;
+		while(low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if(times[mid] <= time)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		cursor = low;
+		return low;
+	}
+
+	/**
+	 * returns the index of the first entry whose time is greater than or
+	 * equal to the given time, -1 if there is no such entry
+	 */
+	public int ceilingIndex(double time) {
+		int index = floorIndex(time);
+		if(index >= 0 && times[index] == time)
+			return index;
+		return (index + 1 < size) ? index + 1 : -1;
+	}
+
+	/**
+	 * returns the index of the first entry whose time is greater than
+	 * the given time, -1 if there is no such entry
+	 */
+	public int higherIndex(double time) {
+		int index = floorIndex(time) + 1;
+		return (index < size) ? index : -1;
+	}
+
+	public double getTime(int index) {
+		return times[index];
+	}
+
+	public double getLastTime() {
+		return times[size - 1];
+	}
+
+	public int getPlaceTypeIndex(int index) {
+		return placeTypes[index];
+	}
+
+	public int getWlanId(int index) {
+		return wlanIds[index];
+	}
+
+	public int getXPos(int index) {
+		return xPos[index];
+	}
+
+	public int getYPos(int index) {
+		return yPos[index];
+	}
+
+	/**
+	 * returns the location of the entry at the given index; the same
+	 * object is returned until an entry with another index is requested
+	 */
+	public Location getLocation(int index) {
+		if(index != locationIndex) {
+			location = new Location(placeTypes[index], wlanIds[index], xPos[index], yPos[index]);
+			locationIndex = index;
+		}
+		return location;
+	}
+}
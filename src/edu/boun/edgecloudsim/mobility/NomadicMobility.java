@@ -12,24 +12,22 @@
 
 package edu.boun.edgecloudsim.mobility;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
-import java.util.Map.Entry;
-
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.cloudbus.cloudsim.core.CloudSim;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.RandomStream;
 import edu.boun.edgecloudsim.utils.SimLogger;
-import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.SimRandom;
 
 public class NomadicMobility extends MobilityModel {
-	private List<TreeMap<Double, Location>> treeMapArray;
+	private MobilityTrace[] traces;
+	private RandomStream[] rngList;
+	private EdgeTopology topology;
+	private double[] meanWaitingTimes;
+	private double lookahead;
 	
 	public NomadicMobility(int _numberOfMobileDevices, double _simulationTime) {
 		super(_numberOfMobileDevices, _simulationTime);
@@ -38,86 +36,129 @@ public class NomadicMobility extends MobilityModel {
 	
 	@Override
 	public void initialize() {
-		treeMapArray = new ArrayList<TreeMap<Double, Location>>();
+		traces = new MobilityTrace[numberOfMobileDevices];
+		lookahead = SimSettings.getInstance().getMobilityLookahead();
 		
-		ExponentialDistribution[] expRngList = new ExponentialDistribution[SimSettings.getInstance().getNumOfEdgeDatacenters()];
-
-		//create random number generator for each place
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-			int placeTypeIndex = Integer.parseInt(attractiveness);
-			
-			expRngList[i] = new ExponentialDistribution(SimSettings.getInstance().getMobilityLookUpTable()[placeTypeIndex]);
+		topology = SimSettings.getInstance().getEdgeTopology();
+		int numOfDatacenters = topology.getNumOfDatacenters();
+		meanWaitingTimes = new double[numOfDatacenters];
+
+		//find the mean waiting time of each place
+		for (int i = 0; i < numOfDatacenters; i++) {
+			meanWaitingTimes[i] = SimSettings.getInstance().getMobilityLookUpTable()[topology.getPlaceTypeIndex(i)];
 		}
 		
-		//initialize tree maps and position of mobile devices
+		//each mobile device moves according to its own random number stream
+		rngList = new RandomStream[numberOfMobileDevices];
+		
+		//initialize traces and position of mobile devices
 		for(int i=0; i<numberOfMobileDevices; i++) {
-			treeMapArray.add(i, new TreeMap<Double, Location>());
+			traces[i] = new MobilityTrace();
+			rngList[i] = SimRandom.getInstance().getStream("mobility", i);
 			
-			int randDatacenterId = SimUtils.getRandomNumber(0, SimSettings.getInstance().getNumOfEdgeDatacenters()-1);
-			Node datacenterNode = datacenterList.item(randDatacenterId);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-			int placeTypeIndex = Integer.parseInt(attractiveness);
-			int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-			int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-			int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
+			int randDatacenterId = rngList[i].nextInt(numOfDatacenters);
 
 			//start locating user shortly after the simulation started (e.g. 10 seconds)
-			treeMapArray.get(i).put(SimSettings.CLIENT_ACTIVITY_START_TIME, new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
+			traces[i].add(SimSettings.CLIENT_ACTIVITY_START_TIME, topology.getDatacenterLocation(randDatacenterId));
 		}
 		
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			TreeMap<Double, Location> treeMap = treeMapArray.get(i);
-
-			while(treeMap.lastKey() < SimSettings.getInstance().getSimulationTime()) {				
-				boolean placeFound = false;
-				int currentLocationId = treeMap.lastEntry().getValue().getServingWlanId();
-				double waitingTime = expRngList[currentLocationId].sample();
-				
-				while(placeFound == false){
-					int newDatacenterId = SimUtils.getRandomNumber(0,SimSettings.getInstance().getNumOfEdgeDatacenters()-1);
-					if(newDatacenterId != currentLocationId){
-						placeFound = true;
-						Node datacenterNode = datacenterList.item(newDatacenterId);
-						Element datacenterElement = (Element) datacenterNode;
-						Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-						String attractiveness = location.getElementsByTagName("attractiveness").item(0).getTextContent();
-						int placeTypeIndex = Integer.parseInt(attractiveness);
-						int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-						int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-						int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
-						
-						treeMap.put(treeMap.lastKey()+waitingTime, new Location(placeTypeIndex, wlan_id, x_pos, y_pos));
-					}
-				}
-				if(!placeFound){
-					SimLogger.printLine("impossible is occured! location cannot be assigned to the device!");
-			    	System.exit(0);
+		//without a lookahead, the traces are generated for the whole simulation
+		if(lookahead <= 0) {
+			for(int i=0; i<numberOfMobileDevices; i++)
+				extendTrace(i, SimSettings.getInstance().getSimulationTime());
+		}
+	}
+
+	/**
+	 * generates the trace of the device until the given time
+	 */
+	private void extendTrace(int deviceId, double time) {
+		MobilityTrace trace = traces[deviceId];
+		double endTime = Math.min(time, SimSettings.getInstance().getSimulationTime());
+		int numOfDatacenters = topology.getNumOfDatacenters();
+
+		while(trace.getLastTime() < endTime) {				
+			boolean placeFound = false;
+			int currentLocationId = trace.getWlanId(trace.size() - 1);
+			double waitingTime = SimRandom.sampleExponential(rngList[deviceId], meanWaitingTimes[currentLocationId]);
+			
+			while(placeFound == false){
+				int newDatacenterId = rngList[deviceId].nextInt(numOfDatacenters);
+				if(newDatacenterId != currentLocationId){
+					placeFound = true;
+					trace.add(trace.getLastTime()+waitingTime, topology.getDatacenterLocation(newDatacenterId));
 				}
 			}
+			if(!placeFound){
+				SimLogger.printLine("impossible is occured! location cannot be assigned to the device!");
+		    	SimulationContext.terminate(0);
+			}
 		}
+	}
 
+	/**
+	 * returns the trace of the device, generated at least until the given time
+	 * if the traces are generated on demand
+	 */
+	private MobilityTrace getTrace(int deviceId, double time) {
+		MobilityTrace trace = traces[deviceId];
+		if(lookahead > 0) {
+			if(trace.getLastTime() <= time)
+				extendTrace(deviceId, time + lookahead);
+			trace.discardBefore(CloudSim.clock());
+		}
+		return trace;
 	}
 
-	@Override
-	public Location getLocation(int deviceId, double time) {
-		TreeMap<Double, Location> treeMap = treeMapArray.get(deviceId);
-		
-		Entry<Double, Location> e = treeMap.floorEntry(time);
+	/**
+	 * returns the index of the trace entry of the device which is valid at the given time
+	 */
+	private int getEntryIndex(MobilityTrace trace, int deviceId, double time) {
+		int index = trace.floorIndex(time);
 	    
-	    if(e == null){
+	    if(index < 0){
 	    	SimLogger.printLine("impossible is occured! no location is found for the device '" + deviceId + "' at " + time);
-	    	System.exit(0);
+	    	SimulationContext.terminate(0);
 	    }
 	    
-		return e.getValue();
+		return index;
+	}
+
+	@Override
+	public Location getLocation(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		return trace.getLocation(getEntryIndex(trace, deviceId, time));
+	}
+
+	@Override
+	public int getServingWlanId(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		return trace.getWlanId(getEntryIndex(trace, deviceId, time));
+	}
+
+	@Override
+	public int getPlaceTypeIndex(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		return trace.getPlaceTypeIndex(getEntryIndex(trace, deviceId, time));
+	}
+
+	@Override
+	public int getXPos(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		return trace.getXPos(getEntryIndex(trace, deviceId, time));
+	}
+
+	@Override
+	public int getYPos(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		return trace.getYPos(getEntryIndex(trace, deviceId, time));
+	}
+
+	@Override
+	public double getNextLocationChangeTime(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		int index = trace.higherIndex(time);
+		return (index < 0) ? Double.MAX_VALUE : trace.getTime(index);
 	}
 
 }
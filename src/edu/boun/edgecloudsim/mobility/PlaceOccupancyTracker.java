@@ -0,0 +1,273 @@
+/*
+ * Title:        EdgeCloudSim - Place Occupancy Tracker
+ *
+ * Description:
+ * PlaceOccupancyTracker keeps the number of mobile devices in each place
+ * type and on each access point (AP) up to date while the simulation time
+ * advances. Instead of asking the location of every device at each query,
+ * only the devices whose location changes are visited; the devices are
+ * kept in a min-heap ordered by the time of their next location change
+ * reported by the mobility model. The devices which are moving, i.e. whose
+ * location may change at any time, are kept in a list and checked at each
+ * advance instead. Queries are O(1) per place type or AP.
+ * The registered HandoverListeners are notified when the AP of a device
+ * changes while the tracker is advanced.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.mobility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.boun.edgecloudsim.utils.Location;
+
+public class PlaceOccupancyTracker {
+	private MobilityModel mobilityModel;
+	private int numOfDevices;
+	private double currentTime;
+	private boolean initialized;
+
+	private int[] placeOccupancy;
+	private int[] apOccupancy;
+
+	//current place type, AP and next location change time of each device
+	private int[] devicePlaceType;
+	private int[] deviceAp;
+	private double[] nextChangeTime;
+
+	//devices ordered by the next location change time
+	private int[] heap;
+	private int heapSize;
+	//devices whose location may change at any time
+	private int[] movingDevices;
+	private int numOfMovingDevices;
+	private int[] dueDevices;
+	private int[] previousAps;
+	private int[] heapStack;
+
+	private List<HandoverListener> handoverListeners;
+
+	public PlaceOccupancyTracker(MobilityModel _mobilityModel, int _numOfDevices, int numOfPlaceTypes, int numOfAps) {
+		mobilityModel = _mobilityModel;
+		numOfDevices = _numOfDevices;
+		placeOccupancy = new int[numOfPlaceTypes];
+		apOccupancy = new int[numOfAps];
+		devicePlaceType = new int[numOfDevices];
+		deviceAp = new int[numOfDevices];
+		nextChangeTime = new double[numOfDevices];
+		heap = new int[numOfDevices];
+		movingDevices = new int[numOfDevices];
+		dueDevices = new int[numOfDevices];
+		previousAps = new int[numOfDevices];
+		heapStack = new int[numOfDevices];
+		handoverListeners = new ArrayList<HandoverListener>();
+		initialized = false;
+	}
+
+	public void addHandoverListener(HandoverListener listener) {
+		handoverListeners.add(listener);
+	}
+
+	/**
+	 * moves the tracker to the given time; the time cannot go backwards
+	 */
+	public void advanceTo(double time) {
+		if(!initialized) {
+			initialize(time);
+			return;
+		}
+
+		if(time < currentTime)
+			throw new IllegalArgumentException("Occupancy is requested for " + time + " after " + currentTime);
+		currentTime = time;
+
+		//take the devices which may have moved out of the heap and the moving devices first
+		int numOfDueDevices = 0;
+		for(int i=0; i<numOfMovingDevices; i++)
+			dueDevices[numOfDueDevices++] = movingDevices[i];
+		numOfMovingDevices = 0;
+		while(heapSize > 0 && nextChangeTime[heap[0]] <= time)
+			dueDevices[numOfDueDevices++] = poll();
+
+		for(int i=0; i<numOfDueDevices; i++) {
+			int deviceId = dueDevices[i];
+			Location loc = mobilityModel.getLocation(deviceId, time);
+			previousAps[i] = deviceAp[deviceId];
+			if(loc.getPlaceTypeIndex() != devicePlaceType[deviceId] || loc.getServingWlanId() != deviceAp[deviceId]) {
+				placeOccupancy[devicePlaceType[deviceId]]--;
+				apOccupancy[deviceAp[deviceId]]--;
+				enter(deviceId, loc);
+			}
+			nextChangeTime[deviceId] = mobilityModel.getNextLocationChangeTime(deviceId, time);
+			schedule(deviceId);
+		}
+
+		//listeners are notified after all devices are moved, so they see consistent occupancies
+		if(!handoverListeners.isEmpty()) {
+			for(int i=0; i<numOfDueDevices; i++) {
+				int deviceId = dueDevices[i];
+				if(previousAps[i] != deviceAp[deviceId])
+					for(int j=0; j<handoverListeners.size(); j++)
+						handoverListeners.get(j).handover(deviceId, time, previousAps[i], deviceAp[deviceId]);
+			}
+		}
+	}
+
+	private void initialize(double time) {
+		currentTime = time;
+		for(int deviceId=0; deviceId<numOfDevices; deviceId++) {
+			enter(deviceId, mobilityModel.getLocation(deviceId, time));
+			nextChangeTime[deviceId] = mobilityModel.getNextLocationChangeTime(deviceId, time);
+			schedule(deviceId);
+		}
+		initialized = true;
+	}
+
+	/**
+	 * a device reporting that its location may change at any time is
+	 * moving, it is checked at the next advance; others wait in the heap
+	 */
+	private void schedule(int deviceId) {
+		if(nextChangeTime[deviceId] <= currentTime)
+			movingDevices[numOfMovingDevices++] = deviceId;
+		else
+			offer(deviceId);
+	}
+
+	private void enter(int deviceId, Location loc) {
+		int placeType = loc.getPlaceTypeIndex();
+		int ap = loc.getServingWlanId();
+		if(placeType >= placeOccupancy.length)
+			placeOccupancy = Arrays.copyOf(placeOccupancy, placeType + 1);
+		if(ap >= apOccupancy.length)
+			apOccupancy = Arrays.copyOf(apOccupancy, ap + 1);
+
+		devicePlaceType[deviceId] = placeType;
+		deviceAp[deviceId] = ap;
+		placeOccupancy[placeType]++;
+		apOccupancy[ap]++;
+	}
+
+	public double getCurrentTime() {
+		return currentTime;
+	}
+
+	public boolean isInitialized() {
+		return initialized;
+	}
+
+	/**
+	 * returns the earliest time at which the location of a device may change,
+	 * Double.MAX_VALUE if no device moves anymore
+	 */
+	public double getNextChangeTime() {
+		if(numOfMovingDevices > 0)
+			return currentTime;
+		return heapSize > 0 ? nextChangeTime[heap[0]] : Double.MAX_VALUE;
+	}
+
+	/**
+	 * returns the AP serving the given device at the current time
+	 */
+	public int getServingWlanId(int deviceId) {
+		return deviceAp[deviceId];
+	}
+
+	/**
+	 * returns the number of devices in the given place type at the current time
+	 */
+	public int getNumOfDevicesInPlace(int placeTypeIndex) {
+		return placeTypeIndex < placeOccupancy.length ? placeOccupancy[placeTypeIndex] : 0;
+	}
+
+	/**
+	 * returns the number of devices served by the given AP at the current time
+	 */
+	public int getNumOfDevicesOnAp(int wlanId) {
+		return wlanId < apOccupancy.length ? apOccupancy[wlanId] : 0;
+	}
+
+	/**
+	 * returns the number of devices served by the given AP at a time which
+	 * is not before the current time, without advancing the tracker; only
+	 * the devices in the heap whose location may change until that time are
+	 * visited. The moving devices are counted on the AP found by the last
+	 * advance, so their count is as old as the last handover check.
+	 */
+	public int getNumOfDevicesOnAp(int wlanId, double time) {
+		if(time < currentTime)
+			throw new IllegalArgumentException("Occupancy is requested for " + time + " before " + currentTime);
+
+		int result = getNumOfDevicesOnAp(wlanId);
+
+		//visit the part of the heap whose next location change time is not after the given time
+		int stackSize = 0;
+		if(heapSize > 0 && nextChangeTime[heap[0]] <= time)
+			heapStack[stackSize++] = 0;
+		while(stackSize > 0) {
+			int index = heapStack[--stackSize];
+			int deviceId = heap[index];
+			int ap = mobilityModel.getServingWlanId(deviceId, time);
+			if(deviceAp[deviceId] == wlanId && ap != wlanId)
+				result--;
+			else if(deviceAp[deviceId] != wlanId && ap == wlanId)
+				result++;
+
+			for(int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++)
+				if(nextChangeTime[heap[child]] <= time)
+					heapStack[stackSize++] = child;
+		}
+		return result;
+	}
+
+	/**
+	 * copies the number of devices in each place type to the given array
+	 */
+	public void getPlaceOccupancy(int[] result) {
+		Arrays.fill(result, 0);
+		System.arraycopy(placeOccupancy, 0, result, 0, Math.min(result.length, placeOccupancy.length));
+	}
+
+	/**
+	 * copies the number of devices on each AP to the given array
+	 */
+	public void getApOccupancy(int[] result) {
+		Arrays.fill(result, 0);
+		System.arraycopy(apOccupancy, 0, result, 0, Math.min(result.length, apOccupancy.length));
+	}
+
+	private void offer(int deviceId) {
+		int index = heapSize++;
+		while(index > 0) {
+			int parent = (index - 1) >>> 1;
+			if(nextChangeTime[heap[parent]] <= nextChangeTime[deviceId])
+				break;
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = deviceId;
+	}
+
+	private int poll() {
+		int result = heap[0];
+		int last = heap[--heapSize];
+		int index = 0;
+		while(true) {
+			int child = 2 * index + 1;
+			if(child >= heapSize)
+				break;
+			if(child + 1 < heapSize && nextChangeTime[heap[child + 1]] < nextChangeTime[heap[child]])
+				child++;
+			if(nextChangeTime[last] <= nextChangeTime[heap[child]])
+				break;
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = last;
+		return result;
+	}
+}
@@ -9,25 +9,29 @@
 
 package edu.boun.edgecloudsim.mobility;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.TreeMap;
-import java.util.Map.Entry;
-
 import org.apache.commons.math3.distribution.AbstractRealDistribution;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
+import org.cloudbus.cloudsim.core.CloudSim;
 
+import edu.boun.edgecloudsim.core.EdgeTopology;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.RandomStream;
 import edu.boun.edgecloudsim.utils.SimLogger;
-import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.SimRandom;
 
 public class RWPMobility extends MobilityModel {
-	private ArrayList<Location> datacenters;
-	private List<TreeMap<Double, Location>> treeMapArray;
+	private EdgeTopology topology;
+	private MobilityTrace[] traces;
+	private RandomStream[] rngList;
+	private double lookahead;
+
+	// result of the last location query
+	private int cachedDeviceId = -1;
+	private double cachedTime;
+	private boolean cachedMoving;
+	private int cachedXPos, cachedYPos;
+	private int cachedWlanId, cachedPlaceTypeIndex;
 	protected int x_size, y_size;
 	protected AbstractRealDistribution velocityDistr;
 	protected AbstractRealDistribution pauseTimeDistr;
@@ -39,7 +43,7 @@ public class RWPMobility extends MobilityModel {
 	 * @param _simulationTime Currently unused, keeping it for compatibility. SimSettings.getInstance().getSimulationTime() is being used instead.
 	 * @param _x_size Maximum x-size of the movable area
 	 * @param _y_size Maximum y-size of the movable area
-	 * @param _velocityDistr Distribution used for the velocity of movement
+	 * @param _velocityDistr Distribution used for the velocity of movement, see SimRandom.getGenerator() for a reproducible one
 	 * @param _pauseTimeDistr Distribution used for the waiting time between movements
 	 */
 	public RWPMobility(int _numberOfMobileDevices, double _simulationTime, int _x_size, int _y_size, AbstractRealDistribution _velocityDistr, AbstractRealDistribution _pauseTimeDistr) {
@@ -54,104 +58,183 @@ public class RWPMobility extends MobilityModel {
 
 	@Override
 	public void initialize() {
-		readDatacenters();
-		treeMapArray = new ArrayList<TreeMap<Double, Location>>();
+		topology = SimSettings.getInstance().getEdgeTopology();
+		traces = new MobilityTrace[numberOfMobileDevices];
+		lookahead = SimSettings.getInstance().getMobilityLookahead();
+		cachedDeviceId = -1;
+
+		// each mobile device moves according to its own random number stream
+		rngList = new RandomStream[numberOfMobileDevices];
 
 		for (int i = 0; i < numberOfMobileDevices; i++) {
-			// Initialize tree map of each mobile devices
-			treeMapArray.add(i, new TreeMap<Double, Location>());
+			// Initialize trace of each mobile devices
+			traces[i] = new MobilityTrace();
+			rngList[i] = SimRandom.getInstance().getStream("mobility", i);
 
 			// assign random initial position
-			int x_pos = SimUtils.getRandomNumber(0, x_size);
-			int y_pos = SimUtils.getRandomNumber(0, y_size);
+			int x_pos = rngList[i].nextInt(x_size + 1);
+			int y_pos = rngList[i].nextInt(y_size + 1);
 
 			// start locating user shortly after the simulation started (e.g. 10 seconds)
-			treeMapArray.get(i).put(SimSettings.CLIENT_ACTIVITY_START_TIME, makeLocation(x_pos, y_pos));
+			traces[i].add(SimSettings.CLIENT_ACTIVITY_START_TIME, makeLocation(x_pos, y_pos));
 		}
 
-		// calculate random waypoints for all devices for the whole simulation
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			TreeMap<Double, Location> treeMap = treeMapArray.get(i);
-
-			while(treeMap.lastKey() < SimSettings.getInstance().getSimulationTime()) {
-				Entry<Double, Location> lastEntry = treeMap.lastEntry();
-				int x_last = lastEntry.getValue().getXPos();
-				int y_last = lastEntry.getValue().getYPos();
-				int x_new = SimUtils.getRandomNumber(0, x_size-1);
-				int y_new = SimUtils.getRandomNumber(0, y_size-1);
-				Location newLoc = makeLocation(x_new, y_new);
-				double distance = Math.sqrt(Math.pow(x_new - x_last, 2) + Math.pow(y_new - y_last, 2));
-				double velocity = Math.abs(velocityDistr.sample());
-				double moveTime = distance / velocity;
-				//SimLogger.printLine("Time: " + treeMap.lastKey() +" Device " + i + " moves to (" + newLoc.getXPos() + "," + newLoc.getYPos() + ") which needs " + moveTime + " with velocity " + velocity);
-				treeMap.put(treeMap.lastKey()+moveTime, newLoc);
-				double pauseTime = Math.abs(pauseTimeDistr.sample());
-				//SimLogger.printLine("Time: " + treeMap.lastKey() +" Device " + i + " waits for " + pauseTime + ", connected to AP " + newLoc.getServingWlanId() + ", placeTypeIndex=" + newLoc.getPlaceTypeIndex());
-				treeMap.put(treeMap.lastKey()+pauseTime, newLoc);
-			}
+		// calculate random waypoints for all devices for the whole simulation if there is no lookahead
+		if(lookahead <= 0) {
+			for(int i=0; i<numberOfMobileDevices; i++)
+				extendTrace(i, SimSettings.getInstance().getSimulationTime());
 		}
 	}
 
-	@Override
-	public Location getLocation(int deviceId, double time) {
-		TreeMap<Double, Location> treeMap = treeMapArray.get(deviceId);
+	/**
+	 * Generates random waypoints of the device until the given time.
+	 */
+	private void extendTrace(int deviceId, double time) {
+		MobilityTrace trace = traces[deviceId];
+		double endTime = Math.min(time, SimSettings.getInstance().getSimulationTime());
 
-		Entry<Double, Location> floorEntry = treeMap.floorEntry(time);
-		Entry<Double, Location> ceilingEntry = treeMap.ceilingEntry(time);
+		while(trace.getLastTime() < endTime) {
+			int x_last = trace.getXPos(trace.size() - 1);
+			int y_last = trace.getYPos(trace.size() - 1);
+			int x_new = rngList[deviceId].nextInt(x_size);
+			int y_new = rngList[deviceId].nextInt(y_size);
+			Location newLoc = makeLocation(x_new, y_new);
+			double distance = Math.sqrt(Math.pow(x_new - x_last, 2) + Math.pow(y_new - y_last, 2));
+			double velocity = Math.abs(velocityDistr.sample());
+			double moveTime = distance / velocity;
+			//SimLogger.printLine("Time: " + trace.getLastTime() +" Device " + deviceId + " moves to (" + newLoc.getXPos() + "," + newLoc.getYPos() + ") which needs " + moveTime + " with velocity " + velocity);
+			trace.add(trace.getLastTime()+moveTime, newLoc);
+			double pauseTime = Math.abs(pauseTimeDistr.sample());
+			//SimLogger.printLine("Time: " + trace.getLastTime() +" Device " + deviceId + " waits for " + pauseTime + ", connected to AP " + newLoc.getServingWlanId() + ", placeTypeIndex=" + newLoc.getPlaceTypeIndex());
+			trace.add(trace.getLastTime()+pauseTime, newLoc);
+		}
+	}
 
-		if(floorEntry == null){
+	/**
+	 * Returns the trace of the device. If the traces are generated on demand, the trace is extended
+	 * beyond the given time by the lookahead and the waypoints before the current clock are discarded.
+	 */
+	private MobilityTrace getTrace(int deviceId, double time) {
+		MobilityTrace trace = traces[deviceId];
+		if(lookahead > 0) {
+			if(trace.getLastTime() <= time)
+				extendTrace(deviceId, time + lookahead);
+			trace.discardBefore(CloudSim.clock());
+		}
+		return trace;
+	}
+
+	/**
+	 * Finds the position of the device at the given time and keeps it in the cache fields. The result of
+	 * the last query is reused, since the same location is usually requested several times in an event.
+	 */
+	private void locate(int deviceId, double time) {
+		if(deviceId == cachedDeviceId && time == cachedTime)
+			return;
+
+		MobilityTrace trace = getTrace(deviceId, time);
+
+		int floorIndex = trace.floorIndex(time);
+		int ceilingIndex = trace.ceilingIndex(time);
+
+		if(floorIndex < 0){
 			SimLogger.printLine("ERROR: No location found for the device '" + deviceId + "' at time '" + time + "'.");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 
-		if(ceilingEntry == null){
+		cachedDeviceId = deviceId;
+		cachedTime = time;
+		cachedMoving = false;
+		cachedXPos = trace.getXPos(floorIndex);
+		cachedYPos = trace.getYPos(floorIndex);
+		cachedWlanId = trace.getWlanId(floorIndex);
+		cachedPlaceTypeIndex = trace.getPlaceTypeIndex(floorIndex);
+
+		if(ceilingIndex < 0){
 			SimLogger.printLine("WARNING (RWPMobility.getLocation): No ceilingEntry for device '" + deviceId + "' at time '" + time + "'.");
-			return floorEntry.getValue();
+			return;
 		}
-		int x_floor = floorEntry.getValue().getXPos();
-		int y_floor = floorEntry.getValue().getYPos();
-		int x_ceiling = ceilingEntry.getValue().getXPos();
-		int y_ceiling = ceilingEntry.getValue().getYPos();
+		int x_floor = trace.getXPos(floorIndex);
+		int y_floor = trace.getYPos(floorIndex);
+		int x_ceiling = trace.getXPos(ceilingIndex);
+		int y_ceiling = trace.getYPos(ceilingIndex);
 		
 		if(x_floor == x_ceiling && y_floor == y_ceiling) {
-			// Both entries have the same position, device is waiting. Return one of the entries.
-			return floorEntry.getValue();
+			// Both entries have the same position, device is waiting at the floor entry.
+			return;
 		}
 
 		// Device is moving between these two entries. Calculate actual position at requested time:
 		int x_delta = x_ceiling - x_floor;
 		int y_delta = y_ceiling - y_floor;
-		double totalMovingTime = ceilingEntry.getKey() - floorEntry.getKey();
-		double requestetMovingTime = time - floorEntry.getKey();
+		double totalMovingTime = trace.getTime(ceilingIndex) - trace.getTime(floorIndex);
+		double requestetMovingTime = time - trace.getTime(floorIndex);
 		double timeRatio = requestetMovingTime / totalMovingTime;
 		int x_loc = x_floor + (int) Math.round(x_delta*timeRatio);
 		int y_loc = y_floor + (int) Math.round(y_delta*timeRatio);
 		//SimLogger.printLine("Device " + deviceId + " requested Location at time " + time + ":");
-		//SimLogger.printLine("Device is moving from (" + x_floor + "," + y_floor + ") [" + floorEntry.getKey() + "] to (" + x_ceiling + "," + y_ceiling + ") [" + ceilingEntry.getKey() + "].");
+		//SimLogger.printLine("Device is moving from (" + x_floor + "," + y_floor + ") [" + trace.getTime(floorIndex) + "] to (" + x_ceiling + "," + y_ceiling + ") [" + trace.getTime(ceilingIndex) + "].");
 		//SimLogger.printLine("timeRatio=" + timeRatio + ", calculated Location: (" + x_loc + "," + y_loc + ")");
-		return makeLocation(x_loc, y_loc);
+		int nearest = getNearestDatacenter(x_loc, y_loc);
+		cachedMoving = true;
+		cachedXPos = x_loc;
+		cachedYPos = y_loc;
+		cachedWlanId = topology.getWlanId(nearest);
+		cachedPlaceTypeIndex = topology.getPlaceTypeIndex(nearest);
 	}
 
-	/**
-	 * Read datacenters into own data structure for performance reasons.
-	 */
-	private void readDatacenters() {
-		Document doc = SimSettings.getInstance().getEdgeDevicesDocument();
-		NodeList datacenterList = doc.getElementsByTagName("datacenter");
-		datacenters = new ArrayList<Location>(datacenterList.getLength());
-
-		for (int i = 0; i < datacenterList.getLength(); i++) {
-			Node datacenterNode = datacenterList.item(i);
-			Element datacenterElement = (Element) datacenterNode;
-			Element location = (Element)datacenterElement.getElementsByTagName("location").item(0);
-			int attractiveness = Integer.parseInt(location.getElementsByTagName("attractiveness").item(0).getTextContent());
-			int wlan_id = Integer.parseInt(location.getElementsByTagName("wlan_id").item(0).getTextContent());
-			int x_pos = Integer.parseInt(location.getElementsByTagName("x_pos").item(0).getTextContent());
-			int y_pos = Integer.parseInt(location.getElementsByTagName("y_pos").item(0).getTextContent());
-			
-			Location dc = new Location(attractiveness, wlan_id, x_pos, y_pos);
-			datacenters.add(dc);
-		}
+	@Override
+	public Location getLocation(int deviceId, double time) {
+		locate(deviceId, time);
+
+		if(cachedMoving)
+			return new Location(cachedPlaceTypeIndex, cachedWlanId, cachedXPos, cachedYPos);
+
+		// the entries of the trace are returned while the device is waiting
+		MobilityTrace trace = traces[deviceId];
+		return trace.getLocation(trace.floorIndex(time));
+	}
+
+	@Override
+	public int getServingWlanId(int deviceId, double time) {
+		locate(deviceId, time);
+		return cachedWlanId;
+	}
+
+	@Override
+	public int getPlaceTypeIndex(int deviceId, double time) {
+		locate(deviceId, time);
+		return cachedPlaceTypeIndex;
+	}
+
+	@Override
+	public int getXPos(int deviceId, double time) {
+		locate(deviceId, time);
+		return cachedXPos;
+	}
+
+	@Override
+	public int getYPos(int deviceId, double time) {
+		locate(deviceId, time);
+		return cachedYPos;
+	}
+
+	@Override
+	public double getNextLocationChangeTime(int deviceId, double time) {
+		MobilityTrace trace = getTrace(deviceId, time);
+		int floorIndex = trace.floorIndex(time);
+		int higherIndex = trace.higherIndex(time);
+
+		if(higherIndex < 0)
+			return Double.MAX_VALUE;
+
+		// Device is waiting at a waypoint, the location does not change until it starts moving.
+		if(floorIndex >= 0 && trace.getXPos(floorIndex) == trace.getXPos(higherIndex) &&
+				trace.getYPos(floorIndex) == trace.getYPos(higherIndex))
+			return trace.getTime(higherIndex);
+
+		// Device is moving, the serving AP may change at any time.
+		return time;
 	}
 
 	/**
@@ -162,27 +245,21 @@ public class RWPMobility extends MobilityModel {
 	 * @return Finished Location object that contains appropriate 'servingWlanId' and 'placeTypeIndex' of nearest AP (also called 'datacenter' or 'edge device' in EdgeCloudSim).
 	 */
 	private Location makeLocation(int x_client, int y_client) {
-		int nearest_wlan_id = -1;
-		int placeTypeIndex = -1;
-		double min_distance = Double.MAX_VALUE;
-
-		for (int i = 0; i < datacenters.size(); i++) {
-			int x_pos = datacenters.get(i).getXPos();
-			int y_pos = datacenters.get(i).getYPos();
-
-			double distance = Math.sqrt(Math.pow(x_pos - x_client, 2) + Math.pow(y_pos - y_client, 2));
-			if(distance < min_distance) {
-				min_distance = distance;
-				nearest_wlan_id = datacenters.get(i).getServingWlanId();
-				placeTypeIndex = datacenters.get(i).getPlaceTypeIndex();
-			}
-		}
+		int nearest = getNearestDatacenter(x_client, y_client);
+		return new Location(topology.getPlaceTypeIndex(nearest), topology.getWlanId(nearest), x_client, y_client);
+	}
+
+	/**
+	 * Returns the index of the datacenter of the nearest AP for a given position in the 2D grid.
+	 */
+	private int getNearestDatacenter(int x_client, int y_client) {
+		int nearest = topology.getNearestDatacenter(x_client, y_client);
 
-		if (placeTypeIndex == -1 || nearest_wlan_id == -1) {
+		if (nearest == -1) {
 			SimLogger.printLine("ERROR: RWPMobility.makeLocation failed.");
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 
-		return new Location(placeTypeIndex, nearest_wlan_id, x_client, y_client);
+		return nearest;
 	}
 }
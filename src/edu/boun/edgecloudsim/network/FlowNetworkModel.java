@@ -0,0 +1,599 @@
+/*
+ * Title:        EdgeCloudSim - Flow Level Network Model
+ *
+ * Description:
+ * FlowNetworkModel simulates the network at flow level. Each access point
+ * (AP) has a WLAN link and a WAN link to the cloud, and the edge
+ * datacenters share a single MAN link. The capacity of each link is shared
+ * among the active transfers passing through it in a max-min fair manner,
+ * so the transfer rates change whenever a transfer starts or finishes.
+ *
+ * When the set of transfers on a link changes, the rates are recomputed
+ * by progressive filling only for the links and transfers connected to
+ * that link; the completion time is rescheduled only for the transfers
+ * whose rate actually changes. The completion times are kept in a min-heap
+ * and a helper entity wakes up at the earliest one, then the related
+ * event is sent to the mobile device manager.
+ *
+ * The mobile device manager should start the transfers by startUpload()
+ * and startDownload() instead of scheduling its events with the delays
+ * returned by getUploadDelay() and getDownloadDelay(); these methods only
+ * estimate the delay of a transfer which would start now. Similarly, the
+ * transfers between the edge datacenters are started by startManTransfer()
+ * and their delay is estimated by getManDelay().
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+
+import edu.boun.edgecloudsim.core.EdgeTopology;
+import edu.boun.edgecloudsim.core.SimManager;
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+import edu.boun.edgecloudsim.core.SimulationContext;
+import edu.boun.edgecloudsim.edge_client.Task;
+import edu.boun.edgecloudsim.utils.Location;
+import edu.boun.edgecloudsim.utils.SimLogger;
+
+public class FlowNetworkModel extends NetworkModel {
+	public static double MAN_BW = 1300*1024; //Kbps
+
+	//transfers finishing within this time are assumed to be finished together
+	private static final double TIME_EPSILON = 1e-9;
+
+	private double wlanBandwidth; //Kbps
+	private double wanBandwidth; //Kbps
+	private double manBandwidth; //Kbps
+
+	private int numOfAccessPoints;
+	private int manLink;
+	private int[] manPath;
+	private double[] linkCapacity; //Kbps
+	private List<List<Transfer>> linkTransfers;
+
+	//active transfers ordered by their completion time
+	private Transfer[] heap;
+	private int heapSize;
+
+	//scratch data of the rate computation
+	private int[] linkVisited;
+	private int visitStamp;
+	private double[] remainingCapacity;
+	private int[] numOfUnfixedTransfers;
+	private List<Integer> componentLinks;
+	private List<Transfer> componentTransfers;
+
+	private TransferScheduler scheduler;
+
+	private static class Transfer {
+		Task task;
+		boolean upload;
+		NETWORK_DELAY_TYPES delayType;
+		int[] links;
+		double propagationDelay;
+		double startTime;
+		int destEntityId;
+		int tag;
+
+		double remainingSize; //Kb
+		double rate; //Kbps
+		double lastUpdateTime;
+		double finishTime;
+		int heapIndex;
+
+		//used while the rates are computed
+		int visitStamp;
+		double newRate;
+		boolean fixed;
+	}
+
+	/**
+	 * creates the model with the WLAN and WAN bandwidths of the properties file
+	 */
+	public FlowNetworkModel(int _numberOfMobileDevices, String _simScenario) {
+		this(_numberOfMobileDevices, _simScenario,
+				SimSettings.getInstance().getWlanBandwidth(),
+				SimSettings.getInstance().getWanBandwidth(),
+				MAN_BW);
+	}
+
+	/**
+	 * creates the model with the given link capacities (in Kbps unit) for the
+	 * scenarios which do not use the bandwidths of the properties file
+	 */
+	public FlowNetworkModel(int _numberOfMobileDevices, String _simScenario,
+			double _wlanBandwidth, double _wanBandwidth, double _manBandwidth) {
+		super(_numberOfMobileDevices, _simScenario);
+		wlanBandwidth = _wlanBandwidth;
+		wanBandwidth = _wanBandwidth;
+		manBandwidth = _manBandwidth;
+	}
+
+	@Override
+	public void initialize() {
+		//we have one access point for each datacenter
+		numOfAccessPoints = SimSettings.getInstance().getNumOfEdgeDatacenters();
+
+		//WLAN links of the APs, WAN links of the APs and the MAN link in this order
+		int numOfLinks = 2 * numOfAccessPoints + 1;
+		manLink = numOfLinks - 1;
+		manPath = new int[] {manLink};
+		linkCapacity = new double[numOfLinks];
+		linkTransfers = new ArrayList<List<Transfer>>(numOfLinks);
+		for(int i=0; i<numOfLinks; i++) {
+			if(i < numOfAccessPoints)
+				linkCapacity[i] = wlanBandwidth;
+			else if(i < 2 * numOfAccessPoints)
+				linkCapacity[i] = wanBandwidth;
+			else
+				linkCapacity[i] = manBandwidth;
+			linkTransfers.add(new ArrayList<Transfer>());
+		}
+
+		heap = new Transfer[16];
+		heapSize = 0;
+
+		linkVisited = new int[numOfLinks];
+		visitStamp = 0;
+		remainingCapacity = new double[numOfLinks];
+		numOfUnfixedTransfers = new int[numOfLinks];
+		componentLinks = new ArrayList<Integer>();
+		componentTransfers = new ArrayList<Transfer>();
+
+		scheduler = new TransferScheduler();
+	}
+
+	private int getWlanLink(int accessPointId) {
+		return accessPointId;
+	}
+
+	private int getWanLink(int accessPointId) {
+		return numOfAccessPoints + accessPointId;
+	}
+
+	/**
+	 * returns the WLAN id of the AP serving the given edge host
+	 */
+	private int getHostAccessPoint(int hostId) {
+		EdgeTopology topology = SimSettings.getInstance().getEdgeTopology();
+		return topology.getWlanId(topology.getDatacenterOfHost(hostId));
+	}
+
+	/**
+	 * returns the links used by a transfer between the mobile device and the peer,
+	 * null if the peer is unknown
+	 */
+	private int[] getPath(int mobileDeviceId, int peerDeviceId) {
+		int accessPointId = SimManager.getInstance().getMobilityModel().getServingWlanId(mobileDeviceId, CloudSim.clock());
+		if(peerDeviceId == SimSettings.CLOUD_DATACENTER_ID)
+			return new int[] {getWlanLink(accessPointId), getWanLink(accessPointId)};
+		else if(peerDeviceId == SimSettings.MOBILE_DATACENTER_ID)
+			return null;
+		else
+			return new int[] {getWlanLink(accessPointId)};
+	}
+
+	/**
+	 * returns the propagation delay of a transfer between the mobile device and the peer
+	 */
+	private double getPropagationDelay(int mobileDeviceId, int peerDeviceId, boolean upload) {
+		if(peerDeviceId == SimSettings.CLOUD_DATACENTER_ID)
+			return SimSettings.getInstance().getWanPropogationDelay();
+		else if(peerDeviceId == SimSettings.EDGE_ORCHESTRATOR_ID)
+			return SimSettings.getInstance().getInternalLanDelay();
+		else if(!upload && peerDeviceId != SimSettings.GENERIC_EDGE_DEVICE_ID) {
+			//if the edge server is located in another place, add internal lan delay
+			int accessPointId = SimManager.getInstance().getMobilityModel().getServingWlanId(mobileDeviceId, CloudSim.clock());
+			if(getHostAccessPoint(peerDeviceId) != accessPointId)
+				return SimSettings.getInstance().getInternalLanDelay() * 2;
+		}
+		return 0;
+	}
+
+	private NETWORK_DELAY_TYPES getDelayType(int mobileDeviceId, int peerDeviceId) {
+		if(peerDeviceId == SimSettings.CLOUD_DATACENTER_ID)
+			return NETWORK_DELAY_TYPES.WAN_DELAY;
+		else
+			return NETWORK_DELAY_TYPES.WLAN_DELAY;
+	}
+
+	/**
+	 * estimates the delay of a transfer which would start now; the rate
+	 * is the fair share of the new transfer on its most loaded link;
+	 * 0 is returned if a link on the path has no capacity
+	 */
+	private double estimateDelay(int[] links, double dataSize /*KB*/, double propagationDelay) {
+		if(links == null)
+			return 0;
+
+		double rate = Double.MAX_VALUE;
+		for(int link : links)
+			rate = Math.min(rate, linkCapacity[link] / (linkTransfers.get(link).size() + 1));
+		if(rate <= 0)
+			return 0;
+		return dataSize * (double)8 /*KB to Kb*/ / rate + propagationDelay;
+	}
+
+    /**
+    * source device is always mobile device in our simulation scenarios!
+    */
+	@Override
+	public double getUploadDelay(int sourceDeviceId, int destDeviceId, Task task) {
+		return estimateDelay(getPath(sourceDeviceId, destDeviceId),
+				task.getCloudletFileSize(),
+				getPropagationDelay(sourceDeviceId, destDeviceId, true));
+	}
+
+    /**
+    * destination device is always mobile device in our simulation scenarios!
+    */
+	@Override
+	public double getDownloadDelay(int sourceDeviceId, int destDeviceId, Task task) {
+		//Special Case -> edge orchestrator to edge device
+		if(sourceDeviceId == SimSettings.EDGE_ORCHESTRATOR_ID &&
+				destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID){
+			return SimSettings.getInstance().getInternalLanDelay();
+		}
+
+		return estimateDelay(getPath(destDeviceId, sourceDeviceId),
+				task.getCloudletOutputSize(),
+				getPropagationDelay(destDeviceId, sourceDeviceId, false));
+	}
+
+	/**
+	 * estimates the delay of the MAN transfer of the task which would start now
+	 */
+	public double getManDelay(Task task, boolean upload) {
+		return estimateDelay(manPath,
+				upload ? task.getCloudletFileSize() : task.getCloudletOutputSize(),
+				SimSettings.getInstance().getInternalLanDelay());
+	}
+
+	/**
+	 * starts the upload of the task from its mobile device to the destination;
+	 * when the upload finishes, its delay is logged and an event with the
+	 * given tag and the task is sent to the given entity
+	 */
+	public void startUpload(Task task, int destDeviceId, int entityId, int tag) {
+		int sourceDeviceId = task.getMobileDeviceId();
+		startTransfer(task, true,
+				getPath(sourceDeviceId, destDeviceId),
+				task.getCloudletFileSize(),
+				getPropagationDelay(sourceDeviceId, destDeviceId, true),
+				getDelayType(sourceDeviceId, destDeviceId),
+				entityId, tag);
+	}
+
+	/**
+	 * starts the download of the task result from the source to its mobile device;
+	 * when the download finishes, its delay is logged and an event with the
+	 * given tag and the task is sent to the given entity
+	 */
+	public void startDownload(Task task, int sourceDeviceId, int entityId, int tag) {
+		int destDeviceId = task.getMobileDeviceId();
+		startTransfer(task, false,
+				getPath(destDeviceId, sourceDeviceId),
+				task.getCloudletOutputSize(),
+				getPropagationDelay(destDeviceId, sourceDeviceId, false),
+				getDelayType(destDeviceId, sourceDeviceId),
+				entityId, tag);
+	}
+
+	/**
+	 * starts the transfer between the MAN peers of the task; the man
+	 * delay is logged as the upload or download delay of the task
+	 */
+	public void startManTransfer(Task task, boolean upload, int entityId, int tag) {
+		startTransfer(task, upload,
+				manPath,
+				upload ? task.getCloudletFileSize() : task.getCloudletOutputSize(),
+				SimSettings.getInstance().getInternalLanDelay(),
+				NETWORK_DELAY_TYPES.MAN_DELAY,
+				entityId, tag);
+	}
+
+	private void startTransfer(Task task, boolean upload, int[] links, double dataSize /*KB*/,
+			double propagationDelay, NETWORK_DELAY_TYPES delayType, int entityId, int tag) {
+		if(links == null) {
+			SimLogger.printLine("Error - unknown peer device in startTransfer(). Terminating simulation...");
+			SimulationContext.terminate(0);
+		}
+
+		double now = CloudSim.clock();
+		Transfer transfer = new Transfer();
+		transfer.task = task;
+		transfer.upload = upload;
+		transfer.delayType = delayType;
+		transfer.links = links;
+		transfer.propagationDelay = propagationDelay;
+		transfer.startTime = now;
+		transfer.destEntityId = entityId;
+		transfer.tag = tag;
+		transfer.remainingSize = dataSize * (double)8; //KB to Kb
+		transfer.rate = 0;
+		transfer.lastUpdateTime = now;
+		transfer.finishTime = Double.MAX_VALUE;
+		transfer.heapIndex = -1;
+
+		for(int link : links)
+			linkTransfers.get(link).add(transfer);
+
+		//empty transfers are finished without waiting for a rate
+		if(transfer.remainingSize <= 0) {
+			transfer.finishTime = now;
+			offer(transfer);
+		}
+		updateRates(links);
+		if(heapSize > 0)
+			scheduler.wakeUpAt(heap[0].finishTime);
+	}
+
+	/**
+	 * finishes the transfers whose completion time has come
+	 */
+	private void finishTransfers() {
+		double now = CloudSim.clock();
+		List<Transfer> finishedTransfers = new ArrayList<Transfer>();
+		while(heapSize > 0 && heap[0].finishTime <= now + TIME_EPSILON)
+			finishedTransfers.add(poll());
+
+		if(finishedTransfers.isEmpty())
+			return;
+
+		List<Integer> changedLinks = new ArrayList<Integer>();
+		for(Transfer transfer : finishedTransfers) {
+			for(int link : transfer.links) {
+				linkTransfers.get(link).remove(transfer);
+				changedLinks.add(link);
+			}
+		}
+
+		int[] links = new int[changedLinks.size()];
+		for(int i=0; i<links.length; i++)
+			links[i] = changedLinks.get(i);
+		updateRates(links);
+
+		for(Transfer transfer : finishedTransfers) {
+			double delay = now - transfer.startTime + transfer.propagationDelay;
+			if(transfer.upload)
+				SimLogger.getInstance().setUploadDelay(transfer.task.getCloudletId(), delay, transfer.delayType);
+			else
+				SimLogger.getInstance().setDownloadDelay(transfer.task.getCloudletId(), delay, transfer.delayType);
+			scheduler.deliver(transfer);
+		}
+	}
+
+	/**
+	 * recomputes the max-min fair rates of the transfers connected to the given
+	 * links by progressive filling; the completion times of the transfers
+	 * whose rate changes are updated
+	 */
+	private void updateRates(int[] changedLinks) {
+		//find the links and transfers sharing capacity with the changed links
+		visitStamp++;
+		componentLinks.clear();
+		componentTransfers.clear();
+		for(int link : changedLinks) {
+			if(linkVisited[link] != visitStamp) {
+				linkVisited[link] = visitStamp;
+				componentLinks.add(link);
+			}
+		}
+		for(int i=0; i<componentLinks.size(); i++) {
+			for(Transfer transfer : linkTransfers.get(componentLinks.get(i))) {
+				if(transfer.visitStamp == visitStamp)
+					continue;
+				transfer.visitStamp = visitStamp;
+				transfer.fixed = transfer.remainingSize <= 0;
+				transfer.newRate = 0;
+				componentTransfers.add(transfer);
+				for(int link : transfer.links) {
+					if(linkVisited[link] != visitStamp) {
+						linkVisited[link] = visitStamp;
+						componentLinks.add(link);
+					}
+				}
+			}
+		}
+
+		for(int link : componentLinks) {
+			remainingCapacity[link] = linkCapacity[link];
+			numOfUnfixedTransfers[link] = 0;
+			for(Transfer transfer : linkTransfers.get(link))
+				if(!transfer.fixed)
+					numOfUnfixedTransfers[link]++;
+		}
+
+		//the link with the smallest fair share is the bottleneck of its unfixed transfers
+		while(true) {
+			int bottleneck = -1;
+			double share = Double.MAX_VALUE;
+			for(int link : componentLinks) {
+				if(numOfUnfixedTransfers[link] > 0) {
+					double linkShare = Math.max(0, remainingCapacity[link]) / numOfUnfixedTransfers[link];
+					if(linkShare < share) {
+						share = linkShare;
+						bottleneck = link;
+					}
+				}
+			}
+			if(bottleneck == -1)
+				break;
+
+			for(Transfer transfer : linkTransfers.get(bottleneck)) {
+				if(transfer.fixed)
+					continue;
+				transfer.fixed = true;
+				transfer.newRate = share;
+				for(int link : transfer.links) {
+					remainingCapacity[link] -= share;
+					numOfUnfixedTransfers[link]--;
+				}
+			}
+		}
+
+		double now = CloudSim.clock();
+		for(Transfer transfer : componentTransfers) {
+			if(transfer.remainingSize <= 0 || transfer.newRate == transfer.rate)
+				continue;
+
+			transfer.remainingSize = Math.max(0, transfer.remainingSize - transfer.rate * (now - transfer.lastUpdateTime));
+			transfer.lastUpdateTime = now;
+			transfer.rate = transfer.newRate;
+			transfer.finishTime = (transfer.rate > 0) ? now + transfer.remainingSize / transfer.rate : Double.MAX_VALUE;
+			if(transfer.heapIndex == -1)
+				offer(transfer);
+			else
+				update(transfer);
+		}
+	}
+
+	private void offer(Transfer transfer) {
+		if(heapSize == heap.length) {
+			Transfer[] newHeap = new Transfer[2 * heap.length];
+			System.arraycopy(heap, 0, newHeap, 0, heapSize);
+			heap = newHeap;
+		}
+		transfer.heapIndex = heapSize++;
+		heap[transfer.heapIndex] = transfer;
+		siftUp(transfer.heapIndex);
+	}
+
+	private Transfer poll() {
+		Transfer result = heap[0];
+		Transfer last = heap[--heapSize];
+		heap[heapSize] = null;
+		if(heapSize > 0) {
+			heap[0] = last;
+			last.heapIndex = 0;
+			siftDown(0);
+		}
+		result.heapIndex = -1;
+		return result;
+	}
+
+	private void update(Transfer transfer) {
+		siftUp(transfer.heapIndex);
+		siftDown(transfer.heapIndex);
+	}
+
+	private void siftUp(int index) {
+		Transfer transfer = heap[index];
+		while(index > 0) {
+			int parent = (index - 1) >>> 1;
+			if(heap[parent].finishTime <= transfer.finishTime)
+				break;
+			heap[index] = heap[parent];
+			heap[index].heapIndex = index;
+			index = parent;
+		}
+		heap[index] = transfer;
+		transfer.heapIndex = index;
+	}
+
+	private void siftDown(int index) {
+		Transfer transfer = heap[index];
+		while(true) {
+			int child = 2 * index + 1;
+			if(child >= heapSize)
+				break;
+			if(child + 1 < heapSize && heap[child + 1].finishTime < heap[child].finishTime)
+				child++;
+			if(transfer.finishTime <= heap[child].finishTime)
+				break;
+			heap[index] = heap[child];
+			heap[index].heapIndex = index;
+			index = child;
+		}
+		heap[index] = transfer;
+		transfer.heapIndex = index;
+	}
+
+	/*
+	 * the transfers are tracked by the model itself, the mobile device
+	 * manager does not need to report them
+	 */
+	@Override
+	public void uploadStarted(Location accessPointLocation, int destDeviceId) {
+	}
+
+	@Override
+	public void uploadFinished(Location accessPointLocation, int destDeviceId) {
+	}
+
+	@Override
+	public void downloadStarted(Location accessPointLocation, int sourceDeviceId) {
+	}
+
+	@Override
+	public void downloadFinished(Location accessPointLocation, int sourceDeviceId) {
+	}
+
+	/**
+	 * wakes up at the earliest completion time of the transfers and
+	 * sends the events of the finished transfers to their entities
+	 */
+	private class TransferScheduler extends SimEntity {
+		private static final int TRANSFER_FINISHED = 0;
+
+		//times of the wake up events which are not processed yet
+		private PriorityQueue<Double> wakeUpTimes;
+
+		public TransferScheduler() {
+			super("FlowNetworkModel");
+			wakeUpTimes = new PriorityQueue<Double>();
+		}
+
+		/**
+		 * makes sure that there is a wake up event not later than the given time
+		 */
+		void wakeUpAt(double time) {
+			if(time == Double.MAX_VALUE)
+				return;
+			if(!wakeUpTimes.isEmpty() && wakeUpTimes.peek() <= time + TIME_EPSILON)
+				return;
+
+			double delay = Math.max(0, time - CloudSim.clock());
+			wakeUpTimes.add(CloudSim.clock() + delay);
+			schedule(getId(), delay, TRANSFER_FINISHED);
+		}
+
+		void deliver(Transfer transfer) {
+			schedule(transfer.destEntityId, transfer.propagationDelay, transfer.tag, transfer.task);
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			switch (ev.getTag()) {
+			case TRANSFER_FINISHED:
+				wakeUpTimes.poll();
+				finishTransfers();
+				if(heapSize > 0)
+					wakeUpAt(heap[0].finishTime);
+				break;
+			default:
+				Log.printLine(getName() + ": unknown event type");
+				break;
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+}
@@ -10,12 +10,15 @@
 
 package edu.boun.edgecloudsim.network;
 
+import java.util.Arrays;
+
 import org.cloudbus.cloudsim.core.CloudSim;
 
 import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.edge_client.Task;
 import edu.boun.edgecloudsim.edge_server.EdgeHost;
+import edu.boun.edgecloudsim.mobility.PlaceOccupancyTracker;
 import edu.boun.edgecloudsim.utils.Location;
 
 public class MM1Queue extends NetworkModel {
@@ -25,6 +28,14 @@ public class MM1Queue extends NetworkModel {
 	private double avgTaskOutputSize; //bytes
 	private int maxNumOfClientsInPlace;
 	
+	//the delays only depend on the device count after the initialization,
+	//they are cached for each link type and device count
+	private static final int WLAN_DOWNLOAD = 0;
+	private static final int WLAN_UPLOAD = 1;
+	private static final int WAN_DOWNLOAD = 2;
+	private static final int WAN_UPLOAD = 3;
+	private double[][] delayCache;
+	
 	public MM1Queue(int _numberOfMobileDevices, String _simScenario) {
 		super(_numberOfMobileDevices, _simScenario);
 	}
@@ -60,6 +71,8 @@ public class MM1Queue extends NetworkModel {
 		WlanPoissonMean = WlanPoissonMean/numOfTaskType;
 		avgTaskInputSize = avgTaskInputSize/numOfTaskType;
 		avgTaskOutputSize = avgTaskOutputSize/numOfTaskType;
+		
+		delayCache = new double[4][0];
 	}
 
     /**
@@ -68,23 +81,23 @@ public class MM1Queue extends NetworkModel {
 	@Override
 	public double getUploadDelay(int sourceDeviceId, int destDeviceId, Task task) {
 		double delay = 0;
-		Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(sourceDeviceId,CloudSim.clock());
+		int accessPointId = SimManager.getInstance().getMobilityModel().getServingWlanId(sourceDeviceId,CloudSim.clock());
 
 		//mobile device to cloud server
 		if(destDeviceId == SimSettings.CLOUD_DATACENTER_ID){
-			double wlanDelay = getWlanUploadDelay(accessPointLocation, CloudSim.clock());
-			double wanDelay = getWanUploadDelay(accessPointLocation, CloudSim.clock() + wlanDelay);
+			double wlanDelay = getWlanUploadDelay(accessPointId, CloudSim.clock());
+			double wanDelay = getWanUploadDelay(accessPointId, CloudSim.clock() + wlanDelay);
 			if(wlanDelay > 0 && wanDelay >0)
 				delay = wlanDelay + wanDelay;
 		}
 		//mobile device to edge orchestrator
 		else if(destDeviceId == SimSettings.EDGE_ORCHESTRATOR_ID){
-			delay = getWlanUploadDelay(accessPointLocation, CloudSim.clock()) +
+			delay = getWlanUploadDelay(accessPointId, CloudSim.clock()) +
 					SimSettings.getInstance().getInternalLanDelay();
 		}
 		//mobile device to edge device (wifi access point)
 		else if (destDeviceId == SimSettings.GENERIC_EDGE_DEVICE_ID) {
-			delay = getWlanUploadDelay(accessPointLocation, CloudSim.clock());
+			delay = getWlanUploadDelay(accessPointId, CloudSim.clock());
 		}
 		
 		return delay;
@@ -102,18 +115,18 @@ public class MM1Queue extends NetworkModel {
 		}
 
 		double delay = 0;
-		Location accessPointLocation = SimManager.getInstance().getMobilityModel().getLocation(destDeviceId,CloudSim.clock());
+		int accessPointId = SimManager.getInstance().getMobilityModel().getServingWlanId(destDeviceId,CloudSim.clock());
 		
 		//cloud server to mobile device
 		if(sourceDeviceId == SimSettings.CLOUD_DATACENTER_ID){
-			double wlanDelay = getWlanDownloadDelay(accessPointLocation, CloudSim.clock());
-			double wanDelay = getWanDownloadDelay(accessPointLocation, CloudSim.clock() + wlanDelay);
+			double wlanDelay = getWlanDownloadDelay(accessPointId, CloudSim.clock());
+			double wanDelay = getWanDownloadDelay(accessPointId, CloudSim.clock() + wlanDelay);
 			if(wlanDelay > 0 && wanDelay >0)
 				delay = wlanDelay + wanDelay;
 		}
 		//edge device (wifi access point) to mobile device
 		else{
-			delay = getWlanDownloadDelay(accessPointLocation, CloudSim.clock());
+			delay = getWlanDownloadDelay(accessPointId, CloudSim.clock());
 			
 			EdgeHost host = (EdgeHost)(SimManager.
 					getInstance().
@@ -123,7 +136,7 @@ public class MM1Queue extends NetworkModel {
 			
 			//if source device id is the edge server which is located in another location, add internal lan delay
 			//in our scenasrio, serving wlan ID is equal to the host id, because there is only one host in one place
-			if(host.getLocation().getServingWlanId() != accessPointLocation.getServingWlanId())
+			if(host.getLocation().getServingWlanId() != accessPointId)
 				delay += (SimSettings.getInstance().getInternalLanDelay() * 2);
 		}
 		
@@ -134,14 +147,20 @@ public class MM1Queue extends NetworkModel {
 		return maxNumOfClientsInPlace;
 	}
 	
-	private int getDeviceCount(Location deviceLocation, double time){
-		int deviceCount = 0;
+	/**
+	 * returns the number of devices served by the given AP at the given time;
+	 * the occupancy tracker of the simulation keeps the number of devices on
+	 * each AP, so the devices are not scanned for each query
+	 */
+	private int getDeviceCount(int accessPointId, double time){
+		PlaceOccupancyTracker tracker = SimManager.getInstance().getPlaceOccupancyTracker();
 		
-		for(int i=0; i<numberOfMobileDevices; i++) {
-			Location location = SimManager.getInstance().getMobilityModel().getLocation(i,time);
-			if(location.equals(deviceLocation))
-				deviceCount++;
-		}
+		//the tracker is advanced by the handover checks of the simulation manager, not by
+		//the queries, so the handover listeners are never notified in the middle of a query;
+		//it is only initialized here if a task arrives before the first handover check
+		if(!tracker.isInitialized())
+			tracker.advanceTo(CloudSim.clock());
+		int deviceCount = tracker.getNumOfDevicesOnAp(accessPointId, Math.max(time, tracker.getCurrentTime()));
 		
 		//record max number of client just for debugging
 		if(maxNumOfClientsInPlace<deviceCount)
@@ -165,36 +184,68 @@ public class MM1Queue extends NetworkModel {
 		return (result > 5) ? -1 : result;
 	}
 	
-	private double getWlanDownloadDelay(Location accessPointLocation, double time) {
-		return calculateMM1(0,
-				SimSettings.getInstance().getWlanBandwidth(),
-				WlanPoissonMean,
-				avgTaskOutputSize,
-				getDeviceCount(accessPointLocation, time));
+	/**
+	 * returns the delay of the given link type for the given device count,
+	 * the delay is calculated only at the first request
+	 */
+	private double getDelay(int linkType, int deviceCount) {
+		double[] cache = delayCache[linkType];
+		if(deviceCount >= cache.length) {
+			int oldLength = cache.length;
+			cache = Arrays.copyOf(cache, Math.max(deviceCount + 1, 2 * oldLength));
+			Arrays.fill(cache, oldLength, cache.length, Double.NaN);
+			delayCache[linkType] = cache;
+		}
+		
+		if(Double.isNaN(cache[deviceCount])) {
+			switch(linkType) {
+			case WLAN_DOWNLOAD:
+				cache[deviceCount] = calculateMM1(0,
+						SimSettings.getInstance().getWlanBandwidth(),
+						WlanPoissonMean,
+						avgTaskOutputSize,
+						deviceCount);
+				break;
+			case WLAN_UPLOAD:
+				cache[deviceCount] = calculateMM1(0,
+						SimSettings.getInstance().getWlanBandwidth(),
+						WlanPoissonMean,
+						avgTaskInputSize,
+						deviceCount);
+				break;
+			case WAN_DOWNLOAD:
+				cache[deviceCount] = calculateMM1(SimSettings.getInstance().getWanPropogationDelay(),
+						SimSettings.getInstance().getWanBandwidth(),
+						WanPoissonMean,
+						avgTaskOutputSize,
+						deviceCount);
+				break;
+			default:
+				cache[deviceCount] = calculateMM1(SimSettings.getInstance().getWanPropogationDelay(),
+						SimSettings.getInstance().getWanBandwidth(),
+						WanPoissonMean,
+						avgTaskInputSize,
+						deviceCount);
+				break;
+			}
+		}
+		return cache[deviceCount];
+	}
+	
+	private double getWlanDownloadDelay(int accessPointId, double time) {
+		return getDelay(WLAN_DOWNLOAD, getDeviceCount(accessPointId, time));
 	}
 	
-	private double getWlanUploadDelay(Location accessPointLocation, double time) {
-		return calculateMM1(0,
-				SimSettings.getInstance().getWlanBandwidth(),
-				WlanPoissonMean,
-				avgTaskInputSize,
-				getDeviceCount(accessPointLocation, time));
+	private double getWlanUploadDelay(int accessPointId, double time) {
+		return getDelay(WLAN_UPLOAD, getDeviceCount(accessPointId, time));
 	}
 	
-	private double getWanDownloadDelay(Location accessPointLocation, double time) {
-		return calculateMM1(SimSettings.getInstance().getWanPropogationDelay(),
-				SimSettings.getInstance().getWanBandwidth(),
-				WanPoissonMean,
-				avgTaskOutputSize,
-				getDeviceCount(accessPointLocation, time));
+	private double getWanDownloadDelay(int accessPointId, double time) {
+		return getDelay(WAN_DOWNLOAD, getDeviceCount(accessPointId, time));
 	}
 	
-	private double getWanUploadDelay(Location accessPointLocation, double time) {
-		return calculateMM1(SimSettings.getInstance().getWanPropogationDelay(),
-				SimSettings.getInstance().getWanBandwidth(),
-				WanPoissonMean,
-				avgTaskInputSize,
-				getDeviceCount(accessPointLocation, time));
+	private double getWanUploadDelay(int accessPointId, double time) {
+		return getDelay(WAN_UPLOAD, getDeviceCount(accessPointId, time));
 	}
 
 	@Override
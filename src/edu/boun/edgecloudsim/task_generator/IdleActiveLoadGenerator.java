@@ -6,6 +6,10 @@
  * mobile devices generate task in active period and waits in idle period.
  * Task interarrival time (load generation period), Idle and active periods
  * are defined in the configuration file.
+ * Tasks are not created in advance; each device keeps its own generation
+ * state and the next task is produced on demand via getNextTask().
+ * Each device draws its random numbers from its own stream, so the tasks
+ * of a device do not depend on the order in which devices are served.
  * 
  * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
  * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
@@ -13,45 +17,42 @@
 
 package edu.boun.edgecloudsim.task_generator;
 
-import java.util.ArrayList;
-
-import org.apache.commons.math3.distribution.ExponentialDistribution;
-
 import edu.boun.edgecloudsim.core.SimSettings;
 import edu.boun.edgecloudsim.utils.TaskProperty;
+import edu.boun.edgecloudsim.utils.RandomStream;
 import edu.boun.edgecloudsim.utils.SimLogger;
-import edu.boun.edgecloudsim.utils.SimUtils;
+import edu.boun.edgecloudsim.utils.SimRandom;
 
 public class IdleActiveLoadGenerator extends LoadGeneratorModel{
 	int taskTypeOfDevices[];
+	
+	//random number stream of each mobile device
+	private RandomStream[] rngList;
+	
+	//generation state of each mobile device
+	private double[] virtualTimes;
+	private double[] activePeriodStartTimes;
+	
 	public IdleActiveLoadGenerator(int _numberOfMobileDevices, double _simulationTime, String _simScenario) {
 		super(_numberOfMobileDevices, _simulationTime, _simScenario);
 	}
 
 	@Override
 	public void initializeModel() {
-		taskList = new ArrayList<TaskProperty>();
-		
-		//exponential number generator for file input size, file output size and task length
-		ExponentialDistribution[][] expRngList = new ExponentialDistribution[SimSettings.getInstance().getTaskLookUpTable().length][3];
-		
-		//create random number generator for each place
-		for(int i=0; i<SimSettings.getInstance().getTaskLookUpTable().length; i++) {
-			if(SimSettings.getInstance().getTaskLookUpTable()[i][0] ==0)
-				continue;
-			
-			expRngList[i][0] = new ExponentialDistribution(SimSettings.getInstance().getTaskLookUpTable()[i][5]);
-			expRngList[i][1] = new ExponentialDistribution(SimSettings.getInstance().getTaskLookUpTable()[i][6]);
-			expRngList[i][2] = new ExponentialDistribution(SimSettings.getInstance().getTaskLookUpTable()[i][7]);
-		}
+		int numOfAppTypes = SimSettings.getInstance().getTaskLookUpTable().length;
 		
 		//Each mobile device utilizes an app type (task type)
 		taskTypeOfDevices = new int[numberOfMobileDevices];
+		virtualTimes = new double[numberOfMobileDevices];
+		activePeriodStartTimes = new double[numberOfMobileDevices];
+		rngList = new RandomStream[numberOfMobileDevices];
 		for(int i=0; i<numberOfMobileDevices; i++) {
+			rngList[i] = SimRandom.getInstance().getStream("load_generator", i);
+			
 			int randomTaskType = -1;
-			double taskTypeSelector = SimUtils.getRandomDoubleNumber(0,100);
+			double taskTypeSelector = rngList[i].nextDouble(0,100);
 			double taskTypePercentage = 0;
-			for (int j=0; j<SimSettings.getInstance().getTaskLookUpTable().length; j++) {
+			for (int j=0; j<numOfAppTypes; j++) {
 				taskTypePercentage += SimSettings.getInstance().getTaskLookUpTable()[j][0];
 				if(taskTypeSelector <= taskTypePercentage){
 					randomTaskType = j;
@@ -60,39 +61,55 @@ public class IdleActiveLoadGenerator extends LoadGeneratorModel{
 			}
 			if(randomTaskType == -1){
 				SimLogger.printLine("Impossible is occured! no random task type!");
+				//this device does not generate any task
+				virtualTimes[i] = simulationTime;
 				continue;
 			}
 			
 			taskTypeOfDevices[i] = randomTaskType;
 			
-			double poissonMean = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][2];
 			double activePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][3];
-			double idlePeriod = SimSettings.getInstance().getTaskLookUpTable()[randomTaskType][4];
-			double activePeriodStartTime = SimUtils.getRandomDoubleNumber(
+			activePeriodStartTimes[i] = rngList[i].nextDouble(
 					SimSettings.CLIENT_ACTIVITY_START_TIME, 
 					SimSettings.CLIENT_ACTIVITY_START_TIME + activePeriod);  //active period starts shortly after the simulation started (e.g. 10 seconds)
-			double virtualTime = activePeriodStartTime;
+			virtualTimes[i] = activePeriodStartTimes[i];
+		}
+	}
 
-			ExponentialDistribution rng = new ExponentialDistribution(poissonMean);
-			while(virtualTime < simulationTime) {
-				double interval = rng.sample();
+	@Override
+	public TaskProperty getNextTask(int deviceId) {
+		int taskType = taskTypeOfDevices[deviceId];
+		double activePeriod = SimSettings.getInstance().getTaskLookUpTable()[taskType][3];
+		double idlePeriod = SimSettings.getInstance().getTaskLookUpTable()[taskType][4];
+		double poissonMean = SimSettings.getInstance().getTaskLookUpTable()[taskType][2];
+		RandomStream rng = rngList[deviceId];
+		double activePeriodStartTime = activePeriodStartTimes[deviceId];
+		double virtualTime = virtualTimes[deviceId];
+		TaskProperty result = null;
 
-				if(interval <= 0){
-					SimLogger.printLine("Impossible is occured! interval is " + interval + " for device " + i + " time " + virtualTime);
-					continue;
-				}
-				//SimLogger.printLine(virtualTime + " -> " + interval + " for device " + i + " time ");
-				virtualTime += interval;
-				
-				if(virtualTime > activePeriodStartTime + activePeriod){
-					activePeriodStartTime = activePeriodStartTime + activePeriod + idlePeriod;
-					virtualTime = activePeriodStartTime;
-					continue;
-				}
-				
-				taskList.add(new TaskProperty(i,randomTaskType, virtualTime, expRngList));
+		while(result == null && virtualTime < simulationTime) {
+			double interval = SimRandom.sampleExponential(rng, poissonMean);
+
+			if(interval <= 0){
+				SimLogger.printLine("Impossible is occured! interval is " + interval + " for device " + deviceId + " time " + virtualTime);
+				continue;
+			}
+			//SimLogger.printLine(virtualTime + " -> " + interval + " for device " + deviceId + " time ");
+			virtualTime += interval;
+			
+			if(virtualTime > activePeriodStartTime + activePeriod){
+				activePeriodStartTime = activePeriodStartTime + activePeriod + idlePeriod;
+				virtualTime = activePeriodStartTime;
+				continue;
 			}
+			
+			result = new TaskProperty(deviceId, taskType, virtualTime, rng);
 		}
+		
+		activePeriodStartTimes[deviceId] = activePeriodStartTime;
+		virtualTimes[deviceId] = virtualTime;
+		
+		return result;
 	}
 
 	@Override
@@ -23,6 +23,11 @@ public abstract class LoadGeneratorModel {
 	protected double simulationTime;
 	protected String simScenario;
 	
+	//per device cursors used while streaming the task list
+	private int[] deviceTaskOffsets;
+	private int[] deviceTaskIndices;
+	private int[] deviceTaskCursors;
+	
 	public LoadGeneratorModel(int _numberOfMobileDevices, double _simulationTime, String _simScenario){
 		numberOfMobileDevices=_numberOfMobileDevices;
 		simulationTime=_simulationTime;
@@ -32,11 +37,66 @@ public abstract class LoadGeneratorModel {
 	/*
 	 * each task has a virtual start time
 	 * it will be used while generating task
+	 * the list may be null if the model generates tasks on demand
+	 * via getNextTask()
 	 */
 	public List<TaskProperty> getTaskList() {
 		return taskList;
 	}
 
+	/*
+	 * returns the next task of the given mobile device or null if the
+	 * device has no more tasks. Simulation manager asks only for the next
+	 * arrival of each device, so that the future event queue is bounded
+	 * by the number of devices instead of the number of tasks.
+	 * Default implementation walks the task list in start time order,
+	 * models which do not build a task list should override it.
+	 */
+	public TaskProperty getNextTask(int deviceId) {
+		if(deviceTaskCursors == null)
+			buildDeviceTaskIndex();
+		
+		if(deviceTaskCursors[deviceId] == deviceTaskOffsets[deviceId+1])
+			return null;
+		
+		return taskList.get(deviceTaskIndices[deviceTaskCursors[deviceId]++]);
+	}
+	
+	/*
+	 * groups the task list by mobile device (CSR layout) and sorts
+	 * each group by start time
+	 */
+	private void buildDeviceTaskIndex() {
+		deviceTaskOffsets = new int[numberOfMobileDevices+1];
+		deviceTaskIndices = new int[taskList.size()];
+		deviceTaskCursors = new int[numberOfMobileDevices];
+		
+		for(int i=0; i<taskList.size(); i++)
+			deviceTaskOffsets[taskList.get(i).getMobileDeviceId()+1]++;
+		for(int i=0; i<numberOfMobileDevices; i++)
+			deviceTaskOffsets[i+1] += deviceTaskOffsets[i];
+		
+		System.arraycopy(deviceTaskOffsets, 0, deviceTaskCursors, 0, numberOfMobileDevices);
+		for(int i=0; i<taskList.size(); i++)
+			deviceTaskIndices[deviceTaskCursors[taskList.get(i).getMobileDeviceId()]++] = i;
+		
+		//tasks are usually generated in order, so insertion sort is almost linear
+		for(int i=0; i<numberOfMobileDevices; i++) {
+			for(int j=deviceTaskOffsets[i]+1; j<deviceTaskOffsets[i+1]; j++) {
+				int taskIndex = deviceTaskIndices[j];
+				double startTime = taskList.get(taskIndex).getStartTime();
+				int k = j-1;
+				while(k >= deviceTaskOffsets[i] && taskList.get(deviceTaskIndices[k]).getStartTime() > startTime) {
+					deviceTaskIndices[k+1] = deviceTaskIndices[k];
+					k--;
+				}
+				deviceTaskIndices[k+1] = taskIndex;
+			}
+		}
+		
+		System.arraycopy(deviceTaskOffsets, 0, deviceTaskCursors, 0, numberOfMobileDevices);
+	}
+
 	/*
 	 * fill task list according to related task generation model
 	 */
@@ -0,0 +1,145 @@
+/*
+ * Title:        EdgeCloudSim - Binary Log Exporter
+ *
+ * Description:
+ * Command line tool converting the binary result files back to the
+ * semicolon-delimited text logs. A _TASKS.bin file is exported to the
+ * _SUCCESS.log and _FAIL.log files, a _VM_LOAD.bin file is exported
+ * to the _VM_LOAD.log file. The text files are created next to the
+ * binary ones unless an output folder is given.
+ *
+ * Usage: BinaryLogExporter <binary log file>... [-o <output folder>]
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+
+public class BinaryLogExporter {
+	private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+	public static void main(String[] args) {
+		List<File> inputFiles = new ArrayList<File>();
+		File outputFolder = null;
+		for(int i=0; i<args.length; i++) {
+			if(args[i].equals("-o") && i + 1 < args.length)
+				outputFolder = new File(args[++i]);
+			else
+				inputFiles.add(new File(args[i]));
+		}
+
+		if(inputFiles.isEmpty()) {
+			System.out.println("Usage: BinaryLogExporter <binary log file>... [-o <output folder>]");
+			System.exit(1);
+		}
+
+		try {
+			for(File inputFile : inputFiles) {
+				File folder = (outputFolder != null) ? outputFolder : inputFile.getAbsoluteFile().getParentFile();
+				export(inputFile, folder);
+			}
+		} catch (IOException e) {
+			System.out.println("Binary log cannot be exported: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * exports the given binary log file to the text log files in the given folder
+	 */
+	public static void export(File inputFile, File outputFolder) throws IOException {
+		BinaryLogReader reader = new BinaryLogReader(inputFile);
+		String name = inputFile.getName();
+		if(reader.getRecordType() == BinaryLogFormat.TASK_RECORD) {
+			String prefix = removeSuffix(name, BinaryLogFormat.TASK_FILE_SUFFIX);
+			exportTasks(reader, new File(outputFolder, prefix + "_SUCCESS.log"), new File(outputFolder, prefix + "_FAIL.log"));
+		}
+		else {
+			String prefix = removeSuffix(name, BinaryLogFormat.VM_LOAD_FILE_SUFFIX);
+			exportVmLoad(reader, new File(outputFolder, prefix + "_VM_LOAD.log"));
+		}
+	}
+
+	private static void exportTasks(BinaryLogReader reader, File successFile, File failFile) throws IOException {
+		BufferedWriter successBW = new BufferedWriter(new FileWriter(successFile), FILE_BUFFER_SIZE);
+		BufferedWriter failBW = new BufferedWriter(new FileWriter(failFile), FILE_BUFFER_SIZE);
+		try {
+			successBW.write("#auto generated file!");
+			successBW.newLine();
+			failBW.write("#auto generated file!");
+			failBW.newLine();
+
+			StringBuilder line = new StringBuilder(256);
+			for(long i=0; i<reader.getNumOfRecords(); i++) {
+				SimLogger.TASK_STATUS status = reader.getStatus(i);
+				line.setLength(0);
+				DeepLogWriter.appendTaskLine(line,
+						reader.getInt(i, BinaryLogFormat.TASK_ID),
+						reader.getInt(i, BinaryLogFormat.DATACENTER_ID),
+						reader.getInt(i, BinaryLogFormat.HOST_ID),
+						reader.getInt(i, BinaryLogFormat.VM_ID),
+						reader.getInt(i, BinaryLogFormat.VM_TYPE),
+						reader.getInt(i, BinaryLogFormat.TASK_TYPE),
+						reader.getInt(i, BinaryLogFormat.TASK_LENGHT),
+						reader.getInt(i, BinaryLogFormat.TASK_INPUT_TYPE),
+						reader.getInt(i, BinaryLogFormat.TASK_OUTPUT_SIZE),
+						status,
+						reader.getDouble(i, BinaryLogFormat.START_TIME),
+						reader.getDouble(i, BinaryLogFormat.END_TIME),
+						reader.getDouble(i, BinaryLogFormat.NETWORK_DELAY),
+						reader.getDouble(i, BinaryLogFormat.LAN_DELAY),
+						reader.getDouble(i, BinaryLogFormat.MAN_DELAY),
+						reader.getDouble(i, BinaryLogFormat.WAN_DELAY));
+
+				BufferedWriter bw = (status == SimLogger.TASK_STATUS.COMLETED) ? successBW : failBW;
+				bw.append(line);
+				bw.newLine();
+			}
+		}
+		finally {
+			successBW.close();
+			failBW.close();
+		}
+	}
+
+	private static void exportVmLoad(BinaryLogReader reader, File vmLoadFile) throws IOException {
+		BufferedWriter vmLoadBW = new BufferedWriter(new FileWriter(vmLoadFile), FILE_BUFFER_SIZE);
+		try {
+			vmLoadBW.write("#auto generated file!");
+			vmLoadBW.newLine();
+
+			String d = SimSettings.DELIMITER;
+			StringBuilder line = new StringBuilder(128);
+			for(long i=0; i<reader.getNumOfRecords(); i++) {
+				line.setLength(0);
+				line.append(reader.getDouble(i, BinaryLogFormat.TIME))
+					.append(d).append(reader.getDouble(i, BinaryLogFormat.EDGE_LOAD))
+					.append(d).append(reader.getDouble(i, BinaryLogFormat.CLOUD_LOAD))
+					.append(d).append(reader.getDouble(i, BinaryLogFormat.MOBILE_LOAD));
+				vmLoadBW.append(line);
+				vmLoadBW.newLine();
+			}
+		}
+		finally {
+			vmLoadBW.close();
+		}
+	}
+
+	private static String removeSuffix(String name, String suffix) {
+		if(name.endsWith(suffix))
+			return name.substring(0, name.length() - suffix.length());
+		else if(name.endsWith(BinaryLogFormat.FILE_EXTENSION))
+			return name.substring(0, name.length() - BinaryLogFormat.FILE_EXTENSION.length());
+		return name;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Title:        EdgeCloudSim - Binary Log Format
+ *
+ * Description:
+ * BinaryLogFormat defines the layout of the binary result files. A file
+ * starts with a fixed header followed by fixed-width records, so that the
+ * n-th record can be read directly from a memory-mapped file without
+ * parsing. All values are stored in little-endian byte order.
+ *
+ * Header (16 bytes):
+ *   magic (int), version (int), record type (int), record size (int)
+ *
+ * Task record (88 bytes), the fields of the _SUCCESS/_FAIL.log lines:
+ *   task id, datacenter id, host id, vm id, vm type, task type,
+ *   task length, task input size, task output size (int),
+ *   status (byte, ordinal of SimLogger.TASK_STATUS), 3 bytes padding,
+ *   start time, end time, network delay, lan delay, man delay,
+ *   wan delay (double)
+ *
+ * VM load record (32 bytes), the fields of the _VM_LOAD.log lines:
+ *   time, load on edge, load on cloud, load on mobile (double)
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.nio.ByteOrder;
+
+public final class BinaryLogFormat {
+	public static final int MAGIC = 0x45435342; //"ECSB"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	public static final String FILE_EXTENSION = ".bin";
+	public static final String TASK_FILE_SUFFIX = "_TASKS" + FILE_EXTENSION;
+	public static final String VM_LOAD_FILE_SUFFIX = "_VM_LOAD" + FILE_EXTENSION;
+
+	//record types
+	public static final int TASK_RECORD = 1;
+	public static final int VM_LOAD_RECORD = 2;
+
+	//offsets of the task record fields
+	public static final int TASK_ID = 0;
+	public static final int DATACENTER_ID = 4;
+	public static final int HOST_ID = 8;
+	public static final int VM_ID = 12;
+	public static final int VM_TYPE = 16;
+	public static final int TASK_TYPE = 20;
+	public static final int TASK_LENGHT = 24;
+	public static final int TASK_INPUT_TYPE = 28;
+	public static final int TASK_OUTPUT_SIZE = 32;
+	public static final int STATUS = 36;
+	public static final int START_TIME = 40;
+	public static final int END_TIME = 48;
+	public static final int NETWORK_DELAY = 56;
+	public static final int LAN_DELAY = 64;
+	public static final int MAN_DELAY = 72;
+	public static final int WAN_DELAY = 80;
+	public static final int TASK_RECORD_SIZE = 88;
+
+	//offsets of the vm load record fields
+	public static final int TIME = 0;
+	public static final int EDGE_LOAD = 8;
+	public static final int CLOUD_LOAD = 16;
+	public static final int MOBILE_LOAD = 24;
+	public static final int VM_LOAD_RECORD_SIZE = 32;
+
+	private BinaryLogFormat() {
+	}
+
+	/**
+	 * returns the size of the records of the given type
+	 */
+	public static int getRecordSize(int recordType) {
+		if(recordType == TASK_RECORD)
+			return TASK_RECORD_SIZE;
+		else if(recordType == VM_LOAD_RECORD)
+			return VM_LOAD_RECORD_SIZE;
+		throw new IllegalArgumentException("Unknown record type: " + recordType);
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Title:        EdgeCloudSim - Binary Log Reader
+ *
+ * Description:
+ * BinaryLogReader memory-maps a binary result file and gives random
+ * access to the fields of its records, so that the results can be
+ * aggregated without parsing text. Large files are mapped in several
+ * segments, each holding a whole number of records.
+ * See BinaryLogFormat for the field offsets.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryLogReader {
+	private static final SimLogger.TASK_STATUS[] STATUS_VALUES = SimLogger.TASK_STATUS.values();
+
+	private final int recordType;
+	private final int recordSize;
+	private final long numOfRecords;
+	private final int recordsPerSegment;
+	private final MappedByteBuffer[] segments;
+
+	public BinaryLogReader(File file) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(BinaryLogFormat.HEADER_SIZE).order(BinaryLogFormat.BYTE_ORDER);
+			while(header.hasRemaining())
+				if(channel.read(header) < 0)
+					throw new IOException(file.getName() + " is not a binary log file");
+			header.flip();
+
+			if(header.getInt() != BinaryLogFormat.MAGIC)
+				throw new IOException(file.getName() + " is not a binary log file");
+			int version = header.getInt();
+			if(version != BinaryLogFormat.VERSION)
+				throw new IOException("Unsupported binary log version " + version + " in " + file.getName());
+			recordType = header.getInt();
+			recordSize = header.getInt();
+			if(recordSize != BinaryLogFormat.getRecordSize(recordType))
+				throw new IOException("Invalid record size in " + file.getName());
+
+			numOfRecords = (channel.size() - BinaryLogFormat.HEADER_SIZE) / recordSize;
+			recordsPerSegment = Integer.MAX_VALUE / recordSize;
+			int numOfSegments = (int)((numOfRecords + recordsPerSegment - 1) / recordsPerSegment);
+			segments = new MappedByteBuffer[numOfSegments];
+			for(int i=0; i<numOfSegments; i++) {
+				long first = (long)i * recordsPerSegment;
+				long count = Math.min(recordsPerSegment, numOfRecords - first);
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+						BinaryLogFormat.HEADER_SIZE + first * recordSize, count * recordSize);
+				segments[i].order(BinaryLogFormat.BYTE_ORDER);
+			}
+		}
+		finally {
+			//the mapping stays valid after the channel is closed
+			channel.close();
+		}
+	}
+
+	public int getRecordType() {
+		return recordType;
+	}
+
+	public long getNumOfRecords() {
+		return numOfRecords;
+	}
+
+	public int getInt(long index, int fieldOffset) {
+		return segments[(int)(index / recordsPerSegment)].getInt(position(index, fieldOffset));
+	}
+
+	public double getDouble(long index, int fieldOffset) {
+		return segments[(int)(index / recordsPerSegment)].getDouble(position(index, fieldOffset));
+	}
+
+	/**
+	 * returns the status of the task record at the given index
+	 */
+	public SimLogger.TASK_STATUS getStatus(long index) {
+		return STATUS_VALUES[segments[(int)(index / recordsPerSegment)].get(position(index, BinaryLogFormat.STATUS))];
+	}
+
+	private int position(long index, int fieldOffset) {
+		if(index < 0 || index >= numOfRecords)
+			throw new IndexOutOfBoundsException("Record " + index + " is not in the file");
+		return (int)(index % recordsPerSegment) * recordSize + fieldOffset;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Title:        EdgeCloudSim - Binary Log Writer
+ *
+ * Description:
+ * BinaryLogWriter appends fixed-width records to a binary result file
+ * through a channel. Records are collected in a direct buffer and
+ * written in large blocks. See BinaryLogFormat for the file layout.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryLogWriter {
+	private static final int BUFFER_SIZE = 256 * 1024;
+
+	private final WritableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final int recordType;
+	private final int recordSize;
+
+	public BinaryLogWriter(File file, int _recordType) throws IOException {
+		this(FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), _recordType);
+	}
+
+	/**
+	 * writes the records to the given stream, which is closed by close()
+	 */
+	public BinaryLogWriter(OutputStream out, int _recordType) throws IOException {
+		this((out instanceof FileOutputStream) ? ((FileOutputStream)out).getChannel() : Channels.newChannel(out), _recordType);
+	}
+
+	private BinaryLogWriter(WritableByteChannel _channel, int _recordType) {
+		channel = _channel;
+		recordType = _recordType;
+		recordSize = BinaryLogFormat.getRecordSize(recordType);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(BinaryLogFormat.BYTE_ORDER);
+
+		buffer.putInt(BinaryLogFormat.MAGIC);
+		buffer.putInt(BinaryLogFormat.VERSION);
+		buffer.putInt(recordType);
+		buffer.putInt(recordSize);
+	}
+
+	public void writeTask(int taskId, int datacenterId, int hostId, int vmId, int vmType, int taskType,
+			int taskLenght, int taskInputType, int taskOutputSize, SimLogger.TASK_STATUS status,
+			double taskStartTime, double taskEndTime, double networkDelay, double lanDelay,
+			double manDelay, double wanDelay) throws IOException {
+		prepare(BinaryLogFormat.TASK_RECORD);
+		buffer.putInt(taskId);
+		buffer.putInt(datacenterId);
+		buffer.putInt(hostId);
+		buffer.putInt(vmId);
+		buffer.putInt(vmType);
+		buffer.putInt(taskType);
+		buffer.putInt(taskLenght);
+		buffer.putInt(taskInputType);
+		buffer.putInt(taskOutputSize);
+		buffer.put((byte)status.ordinal());
+		buffer.put((byte)0).put((byte)0).put((byte)0);
+		buffer.putDouble(taskStartTime);
+		buffer.putDouble(taskEndTime);
+		buffer.putDouble(networkDelay);
+		buffer.putDouble(lanDelay);
+		buffer.putDouble(manDelay);
+		buffer.putDouble(wanDelay);
+	}
+
+	public void writeVmLoad(double time, double loadOnEdge, double loadOnCloud, double loadOnMobile) throws IOException {
+		prepare(BinaryLogFormat.VM_LOAD_RECORD);
+		buffer.putDouble(time);
+		buffer.putDouble(loadOnEdge);
+		buffer.putDouble(loadOnCloud);
+		buffer.putDouble(loadOnMobile);
+	}
+
+	private void prepare(int type) throws IOException {
+		if(type != recordType)
+			throw new IllegalStateException("Record type " + type + " cannot be written to a file of type " + recordType);
+		if(buffer.remaining() < recordSize)
+			flush();
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	public void close() throws IOException {
+		try {
+			flush();
+		}
+		finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * Title:        EdgeCloudSim - Deep Log Writer
+ *
+ * Description:
+ * DeepLogWriter writes the records of the finished tasks to the _SUCCESS
+ * and _FAIL log files on a background thread. The simulation thread copies
+ * the fields of a task into a bounded ring buffer of primitive arrays as
+ * soon as the task finishes; the writer thread formats the records and
+ * writes them in batches, so that the I/O overlaps with the simulation.
+ * The simulation thread waits only if the ring buffer is full.
+ * If binary file logging is enabled, the records are written to the
+ * _TASKS.bin file instead of the text files.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+
+class DeepLogWriter implements Runnable {
+	private static final int CAPACITY = 16 * 1024; //must be power of two
+	private static final int BATCH_SIZE = 1024;
+	private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+	private final BufferedWriter successBW;
+	private final BufferedWriter failBW;
+	private final BinaryLogWriter binaryWriter;
+	private final Thread thread;
+	private IOException error;
+
+	//records in [consumed, produced) are waiting to be written
+	private volatile long produced;
+	private volatile long consumed;
+	private volatile boolean closed;
+
+	private final int[] taskId = new int[CAPACITY];
+	private final int[] datacenterId = new int[CAPACITY];
+	private final int[] hostId = new int[CAPACITY];
+	private final int[] vmId = new int[CAPACITY];
+	private final int[] vmType = new int[CAPACITY];
+	private final int[] taskType = new int[CAPACITY];
+	private final int[] taskLenght = new int[CAPACITY];
+	private final int[] taskInputType = new int[CAPACITY];
+	private final int[] taskOutputSize = new int[CAPACITY];
+	private final double[] taskStartTime = new double[CAPACITY];
+	private final double[] taskEndTime = new double[CAPACITY];
+	private final double[] networkDelay = new double[CAPACITY];
+	private final double[] lanDelay = new double[CAPACITY];
+	private final double[] manDelay = new double[CAPACITY];
+	private final double[] wanDelay = new double[CAPACITY];
+	private final SimLogger.TASK_STATUS[] status = new SimLogger.TASK_STATUS[CAPACITY];
+
+	DeepLogWriter(String outputFolder, String filePrefix, boolean binary) throws IOException {
+		if(binary) {
+			binaryWriter = new BinaryLogWriter(SimLogger.openResultFile(outputFolder, filePrefix + BinaryLogFormat.TASK_FILE_SUFFIX, false),
+					BinaryLogFormat.TASK_RECORD);
+			successBW = null;
+			failBW = null;
+		}
+		else {
+			binaryWriter = null;
+			successBW = new BufferedWriter(new OutputStreamWriter(SimLogger.openResultFile(outputFolder, filePrefix + "_SUCCESS.log", true)), FILE_BUFFER_SIZE);
+			failBW = new BufferedWriter(new OutputStreamWriter(SimLogger.openResultFile(outputFolder, filePrefix + "_FAIL.log", true)), FILE_BUFFER_SIZE);
+			successBW.write("#auto generated file!");
+			successBW.newLine();
+			failBW.write("#auto generated file!");
+			failBW.newLine();
+		}
+
+		thread = new Thread(this, "DeepLogWriter-" + filePrefix);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * copies the record of the given finished task into the ring buffer
+	 */
+	void write(TaskLogStore taskLog, int _taskId) {
+		long index = produced;
+		while(index - consumed >= CAPACITY) {
+			//ring buffer is full, wake up the writer and wait for it
+			synchronized (this) {
+				notifyAll();
+				try {
+					wait(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		int slot = (int)(index & (CAPACITY - 1));
+		taskId[slot] = _taskId;
+		taskLog.copyTo(_taskId, this, slot);
+		networkDelay[slot] = taskLog.getNetworkDelay(_taskId);
+		lanDelay[slot] = taskLog.getNetworkDelay(_taskId, NETWORK_DELAY_TYPES.WLAN_DELAY);
+		manDelay[slot] = taskLog.getNetworkDelay(_taskId, NETWORK_DELAY_TYPES.MAN_DELAY);
+		wanDelay[slot] = taskLog.getNetworkDelay(_taskId, NETWORK_DELAY_TYPES.WAN_DELAY);
+		status[slot] = taskLog.getStatus(_taskId);
+		produced = index + 1;
+
+		if((index + 1) % BATCH_SIZE == 0) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * sets the fields of the record in the given slot, called by TaskLogStore
+	 */
+	void setRecord(int slot, int _datacenterId, int _hostId, int _vmId, int _vmType, int _taskType,
+			int _taskLenght, int _taskInputType, int _taskOutputSize, double _taskStartTime, double _taskEndTime) {
+		datacenterId[slot] = _datacenterId;
+		hostId[slot] = _hostId;
+		vmId[slot] = _vmId;
+		vmType[slot] = _vmType;
+		taskType[slot] = _taskType;
+		taskLenght[slot] = _taskLenght;
+		taskInputType[slot] = _taskInputType;
+		taskOutputSize[slot] = _taskOutputSize;
+		taskStartTime[slot] = _taskStartTime;
+		taskEndTime[slot] = _taskEndTime;
+	}
+
+	/**
+	 * writes the remaining records, stops the writer thread and closes the files
+	 */
+	void close() throws IOException {
+		closed = true;
+		synchronized (this) {
+			notifyAll();
+		}
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		if(binaryWriter != null) {
+			binaryWriter.close();
+		}
+		else {
+			successBW.close();
+			failBW.close();
+		}
+		if(error != null)
+			throw error;
+	}
+
+	@Override
+	public void run() {
+		StringBuilder line = new StringBuilder(256);
+		while(true) {
+			long available = produced;
+			if(available == consumed) {
+				if(closed && produced == consumed)
+					break;
+
+				synchronized (this) {
+					if(produced == consumed && !closed) {
+						try {
+							wait(100);
+						} catch (InterruptedException e) {
+							break;
+						}
+					}
+				}
+				continue;
+			}
+
+			for(long index = consumed; index < available; index++) {
+				int slot = (int)(index & (CAPACITY - 1));
+
+				//keep draining the buffer after an error so that the simulation is not blocked
+				if(error == null) {
+					try {
+						if(binaryWriter != null) {
+							binaryWriter.writeTask(taskId[slot], datacenterId[slot], hostId[slot], vmId[slot], vmType[slot],
+									taskType[slot], taskLenght[slot], taskInputType[slot], taskOutputSize[slot], status[slot],
+									taskStartTime[slot], taskEndTime[slot], networkDelay[slot], lanDelay[slot],
+									manDelay[slot], wanDelay[slot]);
+						}
+						else {
+							line.setLength(0);
+							appendTaskLine(line, taskId[slot], datacenterId[slot], hostId[slot], vmId[slot], vmType[slot],
+									taskType[slot], taskLenght[slot], taskInputType[slot], taskOutputSize[slot], status[slot],
+									taskStartTime[slot], taskEndTime[slot], networkDelay[slot], lanDelay[slot],
+									manDelay[slot], wanDelay[slot]);
+							BufferedWriter bw = (status[slot] == SimLogger.TASK_STATUS.COMLETED) ? successBW : failBW;
+							bw.append(line);
+							bw.newLine();
+						}
+					} catch (IOException e) {
+						error = e;
+					}
+				}
+			}
+			consumed = available;
+		}
+	}
+
+	/**
+	 * appends the line written to the _SUCCESS/_FAIL.log files for the given task
+	 */
+	static void appendTaskLine(StringBuilder result, int taskId, int datacenterId, int hostId, int vmId, int vmType,
+			int taskType, int taskLenght, int taskInputType, int taskOutputSize, SimLogger.TASK_STATUS status,
+			double taskStartTime, double taskEndTime, double networkDelay, double lanDelay,
+			double manDelay, double wanDelay) {
+		String d = SimSettings.DELIMITER;
+		result.append(taskId).append(d).append(datacenterId).append(d).append(hostId)
+			.append(d).append(vmId).append(d).append(vmType).append(d).append(taskType)
+			.append(d).append(taskLenght).append(d).append(taskInputType).append(d)
+			.append(taskOutputSize).append(d).append(taskStartTime).append(d).append(taskEndTime)
+			.append(d);
+
+		if (status == SimLogger.TASK_STATUS.COMLETED){
+			result.append(networkDelay).append(d);
+			result.append(lanDelay).append(d);
+			result.append(manDelay).append(d);
+			result.append(wanDelay);
+		}
+		else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_VM_CAPACITY)
+			result.append("1"); // failure reason 1
+		else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_BANDWIDTH)
+			result.append("2"); // failure reason 2
+		else if (status == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_BANDWIDTH)
+			result.append("3"); // failure reason 3
+		else if (status == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_MOBILITY)
+			result.append("4"); // failure reason 4
+		else
+			result.append("0"); // default failure reason
+	}
+}
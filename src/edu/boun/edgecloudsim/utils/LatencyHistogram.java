@@ -0,0 +1,122 @@
+/*
+ * Title:        EdgeCloudSim - Latency Histogram
+ *
+ * Description:
+ * LatencyHistogram records latency values in log-bucketed counters with
+ * constant memory, in the style of HdrHistogram. Values are counted in
+ * microseconds; values below 128 microseconds have their own buckets and
+ * each power of two range above is split into 64 linear sub-buckets, so
+ * the percentiles are reported within 1.6% of the recorded values.
+ * Values up to 2^40 microseconds (about 12 days) are supported, larger
+ * ones are counted in the last bucket.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+public class LatencyHistogram {
+	private static final double UNITS_PER_SECOND = 1000000;
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKET_COUNT;
+	private static final int MAX_VALUE_BITS = 40;
+	private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+	private static final int NUM_OF_BUCKETS = LINEAR_LIMIT + (MAX_VALUE_BITS - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT;
+
+	//allocated when the first value is recorded
+	private long[] counts;
+	private long totalCount;
+	private double minValue;
+	private double maxValue;
+
+	public LatencyHistogram() {
+		totalCount = 0;
+	}
+
+	/**
+	 * records the given value in seconds
+	 */
+	public void record(double value) {
+		if(counts == null) {
+			counts = new long[NUM_OF_BUCKETS];
+			minValue = value;
+			maxValue = value;
+		}
+		counts[getBucketIndex(value)]++;
+		totalCount++;
+		minValue = Math.min(minValue, value);
+		maxValue = Math.max(maxValue, value);
+	}
+
+	/**
+	 * adds the values recorded by the given histogram to this histogram
+	 */
+	public void add(LatencyHistogram other) {
+		if(other.totalCount == 0)
+			return;
+
+		if(counts == null) {
+			counts = new long[NUM_OF_BUCKETS];
+			minValue = other.minValue;
+			maxValue = other.maxValue;
+		}
+		for(int i=0; i<NUM_OF_BUCKETS; i++)
+			counts[i] += other.counts[i];
+		totalCount += other.totalCount;
+		minValue = Math.min(minValue, other.minValue);
+		maxValue = Math.max(maxValue, other.maxValue);
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * returns the value in seconds below which the given percentage of
+	 * the recorded values fall, 0 if no value is recorded
+	 */
+	public double getPercentile(double percentile) {
+		if(totalCount == 0)
+			return 0;
+
+		long target = (long)Math.ceil(percentile / 100 * totalCount);
+		target = Math.max(1, Math.min(totalCount, target));
+
+		long count = 0;
+		int index = 0;
+		for(; index<NUM_OF_BUCKETS; index++) {
+			count += counts[index];
+			if(count >= target)
+				break;
+		}
+
+		//the middle of the bucket, limited by the exact extremes
+		double value = (getLowestValue(index) + getLowestValue(index + 1)) / 2 / UNITS_PER_SECOND;
+		return Math.max(minValue, Math.min(maxValue, value));
+	}
+
+	private static int getBucketIndex(double value) {
+		long units = (long)(value * UNITS_PER_SECOND);
+		if(units < LINEAR_LIMIT)
+			return (int)Math.max(0, units);
+
+		units = Math.min(units, MAX_VALUE);
+		int shift = (63 - Long.numberOfLeadingZeros(units)) - SUB_BUCKET_BITS;
+		int subBucket = (int)(units >>> shift) - SUB_BUCKET_COUNT;
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * returns the lowest value in units counted by the bucket at the given index
+	 */
+	private static long getLowestValue(int index) {
+		if(index < LINEAR_LIMIT)
+			return index;
+
+		int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+		int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT;
+		return (long)(SUB_BUCKET_COUNT + subBucket) << shift;
+	}
+}
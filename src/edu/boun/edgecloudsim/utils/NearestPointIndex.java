@@ -0,0 +1,142 @@
+/*
+ * Title:        EdgeCloudSim - Nearest Point Index
+ *
+ * Description:
+ * NearestPointIndex finds the nearest one of a fixed set of points in the
+ * 2D grid, e.g. the nearest access point of a mobile device. The points are
+ * put in a uniform grid of cells with about two points per cell; a query
+ * visits the cells in rings around the cell of the requested position and
+ * stops when the remaining cells cannot be nearer than the point found.
+ * If more than one point has the minimum distance, the one with the
+ * smallest index is returned, as a linear scan over the points would do.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+public class NearestPointIndex {
+	private static final int POINTS_PER_CELL = 2;
+
+	private int[] xPos;
+	private int[] yPos;
+
+	private long minX;
+	private long minY;
+	private long cellSize;
+	private int numOfColumns;
+	private int numOfRows;
+
+	//indexes of the points in each cell, cell c keeps cellPoints[cellStart[c]] to cellPoints[cellStart[c+1]-1]
+	private int[] cellStart;
+	private int[] cellPoints;
+
+	/**
+	 * builds the index over the given points; the arrays are not copied
+	 * and must not be modified afterwards
+	 */
+	public NearestPointIndex(int[] _xPos, int[] _yPos) {
+		xPos = _xPos;
+		yPos = _yPos;
+		int numOfPoints = xPos.length;
+
+		long maxX = 0, maxY = 0;
+		minX = 0;
+		minY = 0;
+		for(int i=0; i<numOfPoints; i++) {
+			if(i == 0 || xPos[i] < minX) minX = xPos[i];
+			if(i == 0 || yPos[i] < minY) minY = yPos[i];
+			if(i == 0 || xPos[i] > maxX) maxX = xPos[i];
+			if(i == 0 || yPos[i] > maxY) maxY = yPos[i];
+		}
+
+		//square cells covering the bounding box of the points
+		long width = maxX - minX + 1;
+		long height = maxY - minY + 1;
+		double numOfCells = Math.max(1, numOfPoints / POINTS_PER_CELL);
+		cellSize = Math.max(1, (long)Math.ceil(Math.sqrt((double)width * height / numOfCells)));
+		numOfColumns = (int)((width + cellSize - 1) / cellSize);
+		numOfRows = (int)((height + cellSize - 1) / cellSize);
+
+		//points are added in index order, so each cell keeps them sorted
+		cellStart = new int[numOfColumns * numOfRows + 1];
+		cellPoints = new int[numOfPoints];
+		for(int i=0; i<numOfPoints; i++)
+			cellStart[getCell(xPos[i], yPos[i]) + 1]++;
+		for(int c=0; c<numOfColumns * numOfRows; c++)
+			cellStart[c + 1] += cellStart[c];
+		int[] next = new int[numOfColumns * numOfRows];
+		for(int i=0; i<numOfPoints; i++) {
+			int cell = getCell(xPos[i], yPos[i]);
+			cellPoints[cellStart[cell] + next[cell]++] = i;
+		}
+	}
+
+	public int getNumOfPoints() {
+		return xPos.length;
+	}
+
+	private int getColumn(long x) {
+		return (int)Math.max(0, Math.min(numOfColumns - 1, Math.floorDiv(x - minX, cellSize)));
+	}
+
+	private int getRow(long y) {
+		return (int)Math.max(0, Math.min(numOfRows - 1, Math.floorDiv(y - minY, cellSize)));
+	}
+
+	private int getCell(long x, long y) {
+		return getRow(y) * numOfColumns + getColumn(x);
+	}
+
+	/**
+	 * returns the index of the nearest point to the given position, -1 if there is no point
+	 */
+	public int findNearest(int x, int y) {
+		if(xPos.length == 0)
+			return -1;
+
+		int column = getColumn(x);
+		int row = getRow(y);
+		int maxRing = Math.max(Math.max(column, numOfColumns - 1 - column), Math.max(row, numOfRows - 1 - row));
+
+		int nearest = -1;
+		long minDistance = Long.MAX_VALUE;
+		for(int ring=0; ring<=maxRing; ring++) {
+			int firstColumn = column - ring, lastColumn = column + ring;
+			int firstRow = row - ring, lastRow = row + ring;
+			for(int r=Math.max(0, firstRow); r<=Math.min(numOfRows - 1, lastRow); r++) {
+				//only the border of the ring is visited, the inner cells are visited before
+				boolean borderRow = (r == firstRow || r == lastRow);
+				int step = borderRow ? 1 : lastColumn - firstColumn;
+				for(int c=firstColumn; c<=lastColumn; c+=Math.max(1, step)) {
+					if(c < 0 || c >= numOfColumns)
+						continue;
+					int cell = r * numOfColumns + c;
+					for(int p=cellStart[cell]; p<cellStart[cell + 1]; p++) {
+						int i = cellPoints[p];
+						long dx = xPos[i] - (long)x;
+						long dy = yPos[i] - (long)y;
+						long distance = dx * dx + dy * dy;
+						if(distance < minDistance || (distance == minDistance && i < nearest)) {
+							minDistance = distance;
+							nearest = i;
+						}
+					}
+				}
+			}
+
+			//the cells outside the visited square are at least this far from the position
+			if(nearest != -1) {
+				long left = minX + (long)firstColumn * cellSize;
+				long right = minX + (long)(lastColumn + 1) * cellSize;
+				long bottom = minY + (long)firstRow * cellSize;
+				long top = minY + (long)(lastRow + 1) * cellSize;
+				long gap = Math.min(Math.min(x - left, right - x), Math.min(y - bottom, top - y));
+				if(gap > 0 && gap * gap > minDistance)
+					break;
+			}
+		}
+		return nearest;
+	}
+}
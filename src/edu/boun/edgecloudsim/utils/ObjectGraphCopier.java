@@ -0,0 +1,319 @@
+/*
+ * Title:        EdgeCloudSim - Object Graph Copier
+ *
+ * Description:
+ * ObjectGraphCopier makes a deep copy of the objects reachable from the
+ * given roots. Objects referenced many times are copied once, so the copy
+ * has the same shape as the original graph, including the cycles.
+ *
+ * The fields of the simulator and library classes are copied by reflection;
+ * their instances are created by the ReflectionFactory of jdk.unsupported
+ * without calling their constructors. The JDK classes cannot be accessed
+ * by reflection; the immutable ones are shared, and the collections and
+ * the few mutable value classes the simulation uses are copied through
+ * their public API. Any other JDK class makes the copy fail with an
+ * IllegalArgumentException naming the class.
+ *
+ * The graph is traversed with a work list instead of recursion, so long
+ * linked structures do not overflow the stack. The hash and sorted
+ * collections are filled after all objects are copied, since the hash
+ * codes and the order of their elements may depend on the copied fields.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.Format;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import sun.reflect.ReflectionFactory;
+
+public class ObjectGraphCopier {
+	//instance fields of each class including the inherited ones, null for the classes which cannot be copied
+	private static final ClassValue<Field[]> instanceFields = new ClassValue<Field[]>() {
+		@Override
+		protected Field[] computeValue(Class<?> type) {
+			List<Field> fields = new ArrayList<Field>();
+			for(Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+				//fields of the JDK classes are not accessible
+				if(c.getModule().isNamed())
+					return null;
+				for(Field f : c.getDeclaredFields()) {
+					if(Modifier.isStatic(f.getModifiers()))
+						continue;
+					f.setAccessible(true);
+					fields.add(f);
+				}
+			}
+			return fields.toArray(new Field[fields.size()]);
+		}
+	};
+
+	//creates the instances without calling the constructors of the classes
+	private static final ClassValue<Constructor<?>> allocators = new ClassValue<Constructor<?>>() {
+		@Override
+		protected Constructor<?> computeValue(Class<?> type) {
+			try {
+				return ReflectionFactory.getReflectionFactory().newConstructorForSerialization(type,
+						Object.class.getDeclaredConstructor());
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	};
+
+	private final IdentityHashMap<Object, Object> copies;
+	//copied objects whose fields or elements are not copied yet
+	private final ArrayDeque<Object> pendingObjects;
+	//copied collections with the copies of their elements, filled in reverse order so the inner ones are filled first
+	private final ArrayDeque<Object[]> pendingCollections;
+
+	public ObjectGraphCopier() {
+		copies = new IdentityHashMap<Object, Object>();
+		pendingObjects = new ArrayDeque<Object>();
+		pendingCollections = new ArrayDeque<Object[]>();
+	}
+
+	/**
+	 * makes the copies refer to the given object itself instead of its copy
+	 */
+	public void share(Object object) {
+		copies.put(object, object);
+	}
+
+	/**
+	 * makes the copies refer to the replacement instead of the copy of the
+	 * original object; the replacement is not copied
+	 */
+	public void substitute(Object original, Object replacement) {
+		copies.put(original, replacement);
+	}
+
+	/**
+	 * returns the deep copy of the given object; the objects which are
+	 * copied by the previous calls of this copier are not copied again
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T copy(T root) {
+		try {
+			Object result = copyReference(root);
+			while(!pendingObjects.isEmpty())
+				copyContent(pendingObjects.removeLast());
+			//the copies of all elements are complete now
+			while(!pendingCollections.isEmpty())
+				fillCollection(pendingCollections.removeLast());
+			return (T)result;
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * returns the copy of the given object; the content of the returned
+	 * copy may not be copied yet
+	 */
+	private Object copyReference(Object original) throws ReflectiveOperationException {
+		if(original == null)
+			return null;
+
+		Object copy = copies.get(original);
+		if(copy != null)
+			return copy;
+
+		Class<?> type = original.getClass();
+		if(isImmutable(original)) {
+			copy = original;
+		}
+		else if(type.isArray()) {
+			int length = Array.getLength(original);
+			copy = Array.newInstance(type.getComponentType(), length);
+			if(type.getComponentType().isPrimitive())
+				System.arraycopy(original, 0, copy, 0, length);
+			else
+				pendingObjects.add(original);
+		}
+		else if(type.getModule().isNamed()) {
+			copy = copyJdkObject(original);
+		}
+		else {
+			if(instanceFields.get(type) == null)
+				throw new IllegalArgumentException(type.getName() + " extends a JDK class and cannot be copied");
+			copy = allocators.get(type).newInstance();
+			pendingObjects.add(original);
+		}
+
+		copies.put(original, copy);
+		//the collection is registered before its elements, which may refer to it
+		if(copy != original && (original instanceof Collection || original instanceof Map))
+			copyElements(original, copy);
+		return copy;
+	}
+
+	/**
+	 * copies the fields of an object or the elements of an object array
+	 */
+	private void copyContent(Object original) throws ReflectiveOperationException {
+		Object copy = copies.get(original);
+		if(original instanceof Object[]) {
+			Object[] source = (Object[])original;
+			Object[] target = (Object[])copy;
+			for(int i=0; i<source.length; i++)
+				target[i] = copyReference(source[i]);
+			return;
+		}
+
+		for(Field f : instanceFields.get(original.getClass())) {
+			Class<?> type = f.getType();
+			if(!type.isPrimitive())
+				f.set(copy, copyReference(f.get(original)));
+			else if(type == int.class)
+				f.setInt(copy, f.getInt(original));
+			else if(type == double.class)
+				f.setDouble(copy, f.getDouble(original));
+			else if(type == long.class)
+				f.setLong(copy, f.getLong(original));
+			else if(type == boolean.class)
+				f.setBoolean(copy, f.getBoolean(original));
+			else if(type == float.class)
+				f.setFloat(copy, f.getFloat(original));
+			else if(type == short.class)
+				f.setShort(copy, f.getShort(original));
+			else if(type == byte.class)
+				f.setByte(copy, f.getByte(original));
+			else
+				f.setChar(copy, f.getChar(original));
+		}
+	}
+
+	private static boolean isImmutable(Object object) {
+		return object instanceof String || object instanceof Integer || object instanceof Double ||
+				object instanceof Long || object instanceof Boolean || object instanceof Float ||
+				object instanceof Short || object instanceof Byte || object instanceof Character ||
+				object instanceof BigInteger || object instanceof BigDecimal || object instanceof Enum ||
+				object instanceof Class || object instanceof Locale ||
+				object == Collections.EMPTY_LIST || object == Collections.EMPTY_SET || object == Collections.EMPTY_MAP ||
+				//lambdas without captured values
+				(object.getClass().isHidden() && object.getClass().getDeclaredFields().length == 0);
+	}
+
+	/**
+	 * copies the JDK objects through their public API; the returned
+	 * collections are empty, their elements are copied by copyElements()
+	 */
+	private Object copyJdkObject(Object original) throws ReflectiveOperationException {
+		Class<?> type = original.getClass();
+		if(type == Object.class)
+			return new Object();
+		if(type == AtomicInteger.class)
+			return new AtomicInteger(((AtomicInteger)original).get());
+		if(type == AtomicLong.class)
+			return new AtomicLong(((AtomicLong)original).get());
+		if(type == AtomicBoolean.class)
+			return new AtomicBoolean(((AtomicBoolean)original).get());
+		if(type == StringBuilder.class)
+			return new StringBuilder((StringBuilder)original);
+		if(type == StringBuffer.class)
+			return new StringBuffer((StringBuffer)original);
+		//value classes which do not refer to other objects of the simulation
+		if(original instanceof Calendar)
+			return ((Calendar)original).clone();
+		if(original instanceof Date)
+			return ((Date)original).clone();
+		if(original instanceof Format)
+			return ((Format)original).clone();
+
+		if(type == ArrayList.class || type == LinkedList.class || type == ArrayDeque.class ||
+				type == HashSet.class || type == LinkedHashSet.class ||
+				type == HashMap.class || type == LinkedHashMap.class || type == IdentityHashMap.class) {
+			return type.getConstructor().newInstance();
+		}
+		if(type == TreeSet.class)
+			return new TreeSet<Object>(copyComparator(((TreeSet<?>)original).comparator()));
+		if(type == TreeMap.class)
+			return new TreeMap<Object, Object>(copyComparator(((TreeMap<?, ?>)original).comparator()));
+		if(type == PriorityQueue.class) {
+			PriorityQueue<?> queue = (PriorityQueue<?>)original;
+			return new PriorityQueue<Object>(Math.max(1, queue.size()), copyComparator(queue.comparator()));
+		}
+		throw new IllegalArgumentException(type.getName() + " cannot be copied");
+	}
+
+	/**
+	 * creates the copies of the elements of a collection or map; the copy of
+	 * the collection is filled after the fields of the elements are copied
+	 */
+	private void copyElements(Object original, Object copy) throws ReflectiveOperationException {
+		Object[] elements;
+		if(original instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>)original;
+			elements = new Object[2 * map.size()];
+			int i = 0;
+			for(Map.Entry<?, ?> entry : map.entrySet()) {
+				elements[i++] = copyReference(entry.getKey());
+				elements[i++] = copyReference(entry.getValue());
+			}
+		}
+		else {
+			Collection<?> collection = (Collection<?>)original;
+			elements = new Object[collection.size()];
+			int i = 0;
+			for(Object element : collection)
+				elements[i++] = copyReference(element);
+		}
+		pendingCollections.add(new Object[] { copy, elements });
+	}
+
+	/**
+	 * the comparators of the JDK are stateless, the others are copied with the graph
+	 */
+	@SuppressWarnings("unchecked")
+	private Comparator<Object> copyComparator(Comparator<?> comparator) throws ReflectiveOperationException {
+		if(comparator == null || comparator.getClass().getModule().isNamed())
+			return (Comparator<Object>)comparator;
+		return (Comparator<Object>)copyReference(comparator);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void fillCollection(Object[] pending) {
+		Object[] elements = (Object[])pending[1];
+		if(pending[0] instanceof Map) {
+			Map<Object, Object> map = (Map<Object, Object>)pending[0];
+			for(int i=0; i<elements.length; i+=2)
+				map.put(elements[i], elements[i + 1]);
+		}
+		else {
+			Collection<Object> collection = (Collection<Object>)pending[0];
+			for(Object element : elements)
+				collection.add(element);
+		}
+	}
+}
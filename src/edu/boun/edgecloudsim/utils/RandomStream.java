@@ -0,0 +1,94 @@
+/*
+ * Title:        EdgeCloudSim - Random Stream
+ *
+ * Description:
+ * RandomStream is the SplitMix64 generator handed out by SimRandom. It
+ * produces the same numbers as java.util.SplittableRandom created with
+ * the same seed, but keeps its state in a field of the simulator instead
+ * of a JDK class, so the state of a stream can be copied exactly by the
+ * warm-up checkpoint.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+public class RandomStream {
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	private long seed;
+
+	public RandomStream(long _seed) {
+		seed = _seed;
+	}
+
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	public int nextInt() {
+		return mix32(nextSeed());
+	}
+
+	/**
+	 * returns a uniformly distributed value between 0 (inclusive) and bound (exclusive)
+	 */
+	public int nextInt(int bound) {
+		if(bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+
+		int m = bound - 1;
+		int r = nextInt();
+		if((bound & m) == 0) {
+			r &= m;
+		}
+		else {
+			//over-represented candidates are rejected
+			for(int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1)
+				;
+		}
+		return r;
+	}
+
+	/**
+	 * returns a uniformly distributed value between 0 (inclusive) and 1 (exclusive)
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * returns a uniformly distributed value between origin (inclusive) and bound (exclusive)
+	 */
+	public double nextDouble(double origin, double bound) {
+		if(!(origin < bound && (bound - origin) < Double.POSITIVE_INFINITY))
+			throw new IllegalArgumentException("bound must be greater than origin");
+
+		double r = nextDouble() * (bound - origin) + origin;
+		//rounding may yield the bound itself
+		if(r >= bound)
+			r = Math.nextAfter(bound, origin);
+		return r;
+	}
+
+	public boolean nextBoolean() {
+		return nextInt() < 0;
+	}
+
+	private long nextSeed() {
+		return seed += GOLDEN_GAMMA;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+		return (int)(((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Title:        EdgeCloudSim - Result Aggregator
+ *
+ * Description:
+ * Command line tool aggregating the _GENERIC.log files of all iterations
+ * of a sweep. The iterations are read directly from the ite<N>.tar.gz
+ * archives (or from extracted ite<N> folders) in parallel, and the mean,
+ * standard deviation and 95% confidence interval of each metric is written
+ * as CSV for each scenario, policy, number of devices and app type.
+ * It replaces the averaging done by the matlab scripts.
+ *
+ * Usage: ResultAggregator <results folder> [-c <config file>] [-o <csv file>] [-t <threads>]
+ *
+ * The results folder is searched recursively, the path of the folder which
+ * keeps the iterations is written to the 'sweep' column. The simulation
+ * scenario and orchestrator policy are separated by using the lists in the
+ * config file; without it, both are written to the 'scenario' column.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+
+public class ResultAggregator {
+	private static final Pattern ITERATION_PATTERN = Pattern.compile("ite(\\d+)(\\.tar\\.gz)?");
+	private static final Pattern FILE_PATTERN = Pattern.compile("SIMRESULT_(.+)_(\\d+)DEVICES_(.+)_GENERIC\\.log");
+
+	private static final String[] TIERS = {"all", "edge", "cloud", "mobile"};
+	private static final String[] PERCENTILES = {"p50", "p90", "p99", "p99.9"};
+
+	//names of the columns of the lines in the generic log files, null columns are not used
+	private static final String[] TASK_COLUMNS = {"completed_tasks", "failed_tasks", "uncompleted_tasks",
+			"failed_tasks_due_to_bw", "service_time", "processing_time", "network_delay", null, "cost",
+			"failed_tasks_due_to_vm_capacity", "failed_tasks_due_to_mobility"};
+	private static final String[] TIER_COLUMNS = {"completed_tasks", "failed_tasks", "uncompleted_tasks", null,
+			"service_time", "processing_time", null, "vm_load", "failed_tasks_due_to_vm_capacity"};
+	private static final String[] NETWORK_COLUMNS = {"lan_delay", "man_delay", "wan_delay", null,
+			"failed_tasks_due_to_lan_bw", "failed_tasks_due_to_man_bw", "failed_tasks_due_to_wan_bw"};
+	private static final String[] PERCENTILE_LINES = {"service_time", "processing_time", "lan_delay", "man_delay", "wan_delay"};
+
+	private File resultsFolder;
+	private List<String> policies;
+
+	public ResultAggregator(File _resultsFolder, List<String> _policies) {
+		resultsFolder = _resultsFolder;
+		policies = _policies;
+	}
+
+	public static void main(String[] args) {
+		File resultsFolder = null;
+		File configFile = null;
+		File outputFile = null;
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		for(int i=0; i<args.length; i++) {
+			if(args[i].equals("-c") && i + 1 < args.length)
+				configFile = new File(args[++i]);
+			else if(args[i].equals("-o") && i + 1 < args.length)
+				outputFile = new File(args[++i]);
+			else if(args[i].equals("-t") && i + 1 < args.length)
+				numOfThreads = Integer.parseInt(args[++i]);
+			else
+				resultsFolder = new File(args[i]);
+		}
+
+		if(resultsFolder == null || !resultsFolder.isDirectory()) {
+			System.out.println("Usage: ResultAggregator <results folder> [-c <config file>] [-o <csv file>] [-t <threads>]");
+			System.exit(1);
+		}
+
+		try {
+			List<String> policies = new ArrayList<String>();
+			if(configFile != null) {
+				Properties prop = new Properties();
+				InputStream input = new FileInputStream(configFile);
+				try {
+					prop.load(input);
+				}
+				finally {
+					input.close();
+				}
+				String policyList = prop.getProperty("orchestrator_policies");
+				if(policyList != null)
+					policies.addAll(Arrays.asList(policyList.split(",")));
+			}
+
+			ResultAggregator aggregator = new ResultAggregator(resultsFolder, policies);
+			PrintStream out = (outputFile != null) ? new PrintStream(outputFile, "UTF-8") : System.out;
+			try {
+				aggregator.run(numOfThreads, out);
+			}
+			finally {
+				out.flush();
+				if(outputFile != null)
+					out.close();
+			}
+		} catch (Exception e) {
+			System.out.println("Results cannot be aggregated: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * reads all iterations in parallel and writes the aggregated results as CSV
+	 */
+	public void run(int numOfThreads, PrintStream out) throws Exception {
+		List<File> iterations = new ArrayList<File>();
+		findIterations(resultsFolder, iterations);
+
+		TreeMap<String, Map<String, Accumulator>> groups = new TreeMap<String, Map<String, Accumulator>>();
+		Map<String, String[]> groupColumns = new LinkedHashMap<String, String[]>();
+
+		ExecutorService pool = Executors.newWorkStealingPool(numOfThreads);
+		try {
+			List<Future<List<GenericResult>>> futures = new ArrayList<Future<List<GenericResult>>>();
+			for(final File iteration : iterations) {
+				futures.add(pool.submit(new Callable<List<GenericResult>>() {
+					public List<GenericResult> call() throws IOException {
+						return readIteration(iteration);
+					}
+				}));
+			}
+
+			//results are merged in a fixed order, so the output does not depend on the threads
+			for(Future<List<GenericResult>> future : futures) {
+				for(GenericResult result : future.get()) {
+					Map<String, Accumulator> metrics = groups.get(result.key);
+					if(metrics == null) {
+						metrics = new LinkedHashMap<String, Accumulator>();
+						groups.put(result.key, metrics);
+						groupColumns.put(result.key, result.columns);
+					}
+					for(int i=0; i<result.names.size(); i++) {
+						Accumulator acc = metrics.get(result.names.get(i));
+						if(acc == null) {
+							acc = new Accumulator();
+							metrics.put(result.names.get(i), acc);
+						}
+						acc.add(result.values[i]);
+					}
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		out.println("sweep,scenario,policy,devices,app,metric,n,mean,std,ci95_low,ci95_high");
+		for(Map.Entry<String, Map<String, Accumulator>> group : groups.entrySet()) {
+			String prefix = String.join(",", groupColumns.get(group.getKey()));
+			for(Map.Entry<String, Accumulator> metric : group.getValue().entrySet()) {
+				Accumulator acc = metric.getValue();
+				double halfWidth = acc.getConfidenceHalfWidth();
+				out.println(prefix + "," + metric.getKey() + "," + acc.n + "," + acc.mean + "," + acc.getStandardDeviation()
+						+ "," + (acc.mean - halfWidth) + "," + (acc.mean + halfWidth));
+			}
+		}
+	}
+
+	/**
+	 * collects the ite<N>.tar.gz archives and ite<N> folders in iteration order
+	 */
+	private void findIterations(File folder, List<File> result) {
+		File[] files = folder.listFiles();
+		if(files == null)
+			return;
+		Arrays.sort(files);
+
+		List<File> iterations = new ArrayList<File>();
+		for(File f : files) {
+			Matcher m = ITERATION_PATTERN.matcher(f.getName());
+			boolean isArchive = f.isFile() && f.getName().endsWith(".tar.gz");
+			if(m.matches() && (isArchive || f.isDirectory()))
+				iterations.add(f);
+			else if(f.isDirectory())
+				findIterations(f, result);
+		}
+
+		//ite10 follows ite9
+		iterations.sort(new Comparator<File>() {
+			public int compare(File a, File b) {
+				return Integer.compare(getIterationNumber(a), getIterationNumber(b));
+			}
+		});
+		result.addAll(iterations);
+	}
+
+	private static int getIterationNumber(File f) {
+		Matcher m = ITERATION_PATTERN.matcher(f.getName());
+		return m.matches() ? Integer.parseInt(m.group(1)) : 0;
+	}
+
+	private List<GenericResult> readIteration(File iteration) throws IOException {
+		final String sweep = getSweepName(iteration.getParentFile());
+		final List<GenericResult> results = new ArrayList<GenericResult>();
+
+		if(iteration.isDirectory()) {
+			File[] files = iteration.listFiles();
+			Arrays.sort(files);
+			for(File f : files) {
+				if(!FILE_PATTERN.matcher(f.getName()).matches())
+					continue;
+				InputStream in = new FileInputStream(f);
+				try {
+					results.add(parse(sweep, f.getName(), in));
+				}
+				finally {
+					in.close();
+				}
+			}
+		}
+		else {
+			TarGzArchive.readArchive(iteration, new TarGzArchive.EntryVisitor() {
+				public boolean accept(String name) {
+					return FILE_PATTERN.matcher(getFileName(name)).matches();
+				}
+
+				public void visit(String name, InputStream in) throws IOException {
+					results.add(parse(sweep, getFileName(name), in));
+				}
+			});
+		}
+		return results;
+	}
+
+	private String getSweepName(File folder) {
+		String root = resultsFolder.getAbsoluteFile().toPath().normalize().toString();
+		String path = folder.getAbsoluteFile().toPath().normalize().toString();
+		if(path.equals(root))
+			return ".";
+		return path.startsWith(root) ? path.substring(root.length() + 1) : folder.getName();
+	}
+
+	private static String getFileName(String entryName) {
+		return entryName.substring(entryName.lastIndexOf('/') + 1);
+	}
+
+	/**
+	 * parses a generic log file; the stream is not closed
+	 */
+	private GenericResult parse(String sweep, String fileName, InputStream in) throws IOException {
+		Matcher m = FILE_PATTERN.matcher(fileName);
+		m.matches();
+
+		String scenario = m.group(1);
+		String policy = "";
+		for(String p : policies) {
+			if(scenario.endsWith("_" + p) && p.length() > policy.length())
+				policy = p;
+		}
+		if(!policy.isEmpty())
+			scenario = scenario.substring(0, scenario.length() - policy.length() - 1);
+
+		GenericResult result = new GenericResult();
+		result.columns = new String[] {sweep, scenario, policy, m.group(2), m.group(3)};
+		result.key = String.format("%s\u0000%s\u0000%s\u0000%010d\u0000%s", sweep, scenario, policy,
+				Long.parseLong(m.group(2)), m.group(3));
+
+		List<Double> values = new ArrayList<Double>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		int lineNumber = 0;
+		while((line = reader.readLine()) != null) {
+			if(line.startsWith("#") || line.trim().isEmpty())
+				continue;
+			lineNumber++;
+
+			String[] fields = line.split(SimSettings.DELIMITER);
+			for(int i=0; i<fields.length; i++) {
+				String name = getMetricName(lineNumber, i);
+				if(name == null)
+					continue;
+				result.names.add(name);
+				values.add(Double.parseDouble(fields[i]));
+			}
+
+			//percentage of failed tasks, as calculated by the matlab scripts
+			if(lineNumber == 1 && fields.length > 1) {
+				double completed = Double.parseDouble(fields[0]);
+				double failed = Double.parseDouble(fields[1]);
+				result.names.add("failed_task_percentage");
+				values.add((completed + failed == 0) ? 0.0 : (100 * failed) / (completed + failed));
+			}
+		}
+
+		result.values = new double[values.size()];
+		for(int i=0; i<values.size(); i++)
+			result.values[i] = values.get(i);
+		return result;
+	}
+
+	private static String getMetricName(int lineNumber, int column) {
+		String[] columns = null;
+		String prefix = "";
+		if(lineNumber == 1) {
+			columns = TASK_COLUMNS;
+		}
+		else if(lineNumber <= 4) {
+			columns = TIER_COLUMNS;
+			prefix = TIERS[lineNumber - 1] + "_";
+		}
+		else if(lineNumber == 5) {
+			columns = NETWORK_COLUMNS;
+		}
+		else if(lineNumber - 6 < PERCENTILE_LINES.length && column < TIERS.length * PERCENTILES.length) {
+			return PERCENTILE_LINES[lineNumber - 6] + "_" + TIERS[column / PERCENTILES.length]
+					+ "_" + PERCENTILES[column % PERCENTILES.length];
+		}
+
+		if(columns == null || column >= columns.length)
+			return "line" + lineNumber + "_column" + (column + 1);
+		return (columns[column] == null) ? null : prefix + columns[column];
+	}
+
+	/**
+	 * results of a single generic log file
+	 */
+	private static class GenericResult {
+		String key;
+		String[] columns;
+		List<String> names = new ArrayList<String>();
+		double[] values;
+	}
+
+	/**
+	 * mean and variance of the values of a metric, by Welford's method
+	 */
+	private static class Accumulator {
+		long n;
+		double mean;
+		double m2;
+
+		void add(double value) {
+			n++;
+			double delta = value - mean;
+			mean += delta / n;
+			m2 += delta * (value - mean);
+		}
+
+		double getStandardDeviation() {
+			return (n < 2) ? Double.NaN : Math.sqrt(m2 / (n - 1));
+		}
+
+		/**
+		 * half width of the 95% confidence interval of the mean, by Student's t distribution
+		 */
+		double getConfidenceHalfWidth() {
+			if(n < 2)
+				return Double.NaN;
+			double t = new TDistribution(n - 1).inverseCumulativeProbability(0.975);
+			return t * getStandardDeviation() / Math.sqrt(n);
+		}
+	}
+}
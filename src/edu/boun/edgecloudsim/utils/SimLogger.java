@@ -16,20 +16,23 @@ package edu.boun.edgecloudsim.utils;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.util.LinkedList;
-import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
 
-import edu.boun.edgecloudsim.core.SimManager;
 import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimulationContext;
 import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
 import edu.boun.edgecloudsim.utils.SimLogger.NETWORK_ERRORS;
 
 public class SimLogger {
+	private static final int NUM_OF_VM_LOAD_TIERS = 3;
+
 	public static enum TASK_STATUS {
 		CREATED, UPLOADING, PROCESSING, DOWNLOADING, COMLETED, REJECTED_DUE_TO_VM_CAPACITY, REJECTED_DUE_TO_BANDWIDTH, UNFINISHED_DUE_TO_BANDWIDTH, UNFINISHED_DUE_TO_MOBILITY
 	}
@@ -38,42 +41,47 @@ public class SimLogger {
 		LAN_ERROR, MAN_ERROR, WAN_ERROR, NONE
 	}
 
-	private static boolean fileLogEnabled;
-	private static boolean printLogEnabled;
+	private boolean fileLogEnabled;
+	private boolean printLogEnabled;
 	private String filePrefix;
 	private String outputFolder;
-	private Map<Integer, LogItem> taskMap;
-	private LinkedList<VmLoadLogItem> vmLoadList;
-
-	private static SimLogger singleton = new SimLogger();
+	private TaskLogStore taskLog;
+	//series 0-2 are the edge/cloud/mobile loads, the per host loads follow them
+	private TimeSeriesStore vmLoadLog;
+	private double[] vmLoadSample;
+	private LinkedList<LocationLogItem> locationList;
+	private TaskStatistics taskStatistics;
+	
+	//writes the finished tasks to the deep log files on a background thread
+	private DeepLogWriter deepLogWriter;
 
 	/*
-	 * A private Constructor prevents any other class from instantiating.
+	 * Loggers are owned by the simulation context, use getInstance()
 	 */
-	private SimLogger() {
+	public SimLogger() {
 		fileLogEnabled = false;
 		printLogEnabled = false;
 	}
 
-	/* Static 'instance' method */
+	/* returns the logger of the simulation context bound to the calling thread */
 	public static SimLogger getInstance() {
-		return singleton;
+		return SimulationContext.current().getSimLogger();
 	}
 
 	public static void enableFileLog() {
-		fileLogEnabled = true;
+		getInstance().fileLogEnabled = true;
 	}
 
 	public static void enablePrintLog() {
-		printLogEnabled = true;
+		getInstance().printLogEnabled = true;
 	}
 
 	public static boolean isFileLogEnabled() {
-		return fileLogEnabled;
+		return getInstance().fileLogEnabled;
 	}
 
 	public static void disablePrintLog() {
-		printLogEnabled = false;
+		getInstance().printLogEnabled = false;
 	}
 
 	private void appendToFile(BufferedWriter bw, String line) throws IOException {
@@ -81,153 +89,207 @@ public class SimLogger {
 		bw.newLine();
 	}
 
+	/**
+	 * opens the given result file in the output folder, or its entry in the
+	 * result archive if the simulation context writes the results into one
+	 */
+	static OutputStream openResultFile(String outputFolder, String fileName, boolean append) throws IOException {
+		Function<String, OutputStream> resultArchive = SimulationContext.current().getResultArchive();
+		if (resultArchive != null)
+			return resultArchive.apply(fileName);
+		return new FileOutputStream(new File(outputFolder, fileName), append);
+	}
+
+	private BufferedWriter openResultFile(String fileName) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(openResultFile(outputFolder, fileName, true)));
+	}
+
 	public static void printLine(String msg) {
-		if (printLogEnabled)
+		if (getInstance().printLogEnabled)
 			System.out.println(msg);
 	}
 
 	public static void print(String msg) {
-		if (printLogEnabled)
+		if (getInstance().printLogEnabled)
 			System.out.print(msg);
 	}
 
 	public void simStarted(String outFolder, String fileName) {
 		filePrefix = fileName;
 		outputFolder = outFolder;
-		taskMap = new HashMap<Integer, LogItem>();
-		vmLoadList = new LinkedList<VmLoadLogItem>();
+		taskLog = new TaskLogStore();
+		int numOfHostSeries = 0;
+		if (SimSettings.getInstance().getHostLoadLogEnabled())
+			numOfHostSeries = SimSettings.getInstance().getNumOfEdgeDatacenters()
+					+ SimSettings.getInstance().getNumOfEdgeHosts()
+					+ SimSettings.getInstance().getNumOfCoudHost();
+		vmLoadSample = new double[NUM_OF_VM_LOAD_TIERS + numOfHostSeries];
+		vmLoadLog = new TimeSeriesStore(vmLoadSample.length, SimSettings.getInstance().getVmLoadLogMaxPoints());
+		locationList = new LinkedList<LocationLogItem>();
+		taskStatistics = new TaskStatistics(SimSettings.getInstance().getTaskLookUpTable().length);
+		deepLogWriter = null;
+
+		if (fileLogEnabled && SimSettings.getInstance().getDeepFileLoggingEnabled()) {
+			try {
+				deepLogWriter = new DeepLogWriter(outputFolder, filePrefix,
+						SimSettings.getInstance().getBinaryFileLoggingEnabled());
+			} catch (IOException e) {
+				e.printStackTrace();
+				SimLogger.printLine("Deep log files cannot be created! Terminating simulation...");
+				SimulationContext.terminate(0);
+			}
+		}
 	}
 
 	public void addLog(int taskId, int taskType, int taskLenght, int taskInputType,
 			int taskOutputSize) {
 		// printLine(taskId+"->"+taskStartTime);
-		taskMap.put(taskId, new LogItem(taskType, taskLenght, taskInputType, taskOutputSize));
+		taskLog.add(taskId, taskType, taskLenght, taskInputType, taskOutputSize);
 	}
 
 	public void taskStarted(int taskId, double time) {
-		taskMap.get(taskId).taskStarted(time);
+		taskLog.taskStarted(taskId, time);
 	}
 
 	public void setUploadDelay(int taskId, double delay, NETWORK_DELAY_TYPES delayType) {
-		taskMap.get(taskId).setUploadDelay(delay, delayType);
+		taskLog.setUploadDelay(taskId, delay, delayType);
 	}
 
 	public void setDownloadDelay(int taskId, double delay, NETWORK_DELAY_TYPES delayType) {
-		taskMap.get(taskId).setDownloadDelay(delay, delayType);
+		taskLog.setDownloadDelay(taskId, delay, delayType);
 	}
 	
 	public void taskAssigned(int taskId, int datacenterId, int hostId, int vmId, int vmType) {
-		taskMap.get(taskId).taskAssigned(datacenterId, hostId, vmId, vmType);
+		taskLog.taskAssigned(taskId, datacenterId, hostId, vmId, vmType);
 	}
 
 	public void taskExecuted(int taskId) {
-		taskMap.get(taskId).taskExecuted();
+		taskLog.taskExecuted(taskId);
 	}
 
 	public void taskEnded(int taskId, double time) {
-		taskMap.get(taskId).taskEnded(time);
+		taskLog.taskEnded(taskId, time);
+		taskFinished(taskId);
 	}
 
 	public void rejectedDueToVMCapacity(int taskId, double time, int vmType) {
-		taskMap.get(taskId).taskRejectedDueToVMCapacity(time, vmType);
+		taskLog.taskRejectedDueToVMCapacity(taskId, time, vmType);
+		taskFinished(taskId);
 	}
 
 	public void rejectedDueToBandwidth(int taskId, double time, int vmType, NETWORK_DELAY_TYPES delayType) {
-		taskMap.get(taskId).taskRejectedDueToBandwidth(time, vmType, delayType);
+		taskLog.taskRejectedDueToBandwidth(taskId, time, vmType, delayType);
+		taskFinished(taskId);
 	}
 
 	public void failedDueToBandwidth(int taskId, double time, NETWORK_DELAY_TYPES delayType) {
-		taskMap.get(taskId).taskFailedDueToBandwidth(time, delayType);
+		taskLog.taskFailedDueToBandwidth(taskId, time, delayType);
+		taskFinished(taskId);
 	}
 
 	public void failedDueToMobility(int taskId, double time) {
-		taskMap.get(taskId).taskFailedDueToMobility(time);
+		taskLog.taskFailedDueToMobility(taskId, time);
+		taskFinished(taskId);
+	}
+
+	public void setCost(int taskId, double bwCost, double cpuCost) {
+		taskLog.setCost(taskId, bwCost, cpuCost);
+	}
+
+	/*
+	 * finished tasks are folded into the statistics and written to the
+	 * deep log files immediately; only unfinished ones are kept in the log
+	 */
+	private void taskFinished(int taskId) {
+		if (!taskLog.isInWarmUpPeriod(taskId)) {
+			taskStatistics.add(taskLog, taskId);
+			if (deepLogWriter != null)
+				deepLogWriter.write(taskLog, taskId);
+		}
+		taskLog.remove(taskId);
 	}
 
 	public void addVmUtilizationLog(double time, double loadOnEdge, double loadOnCloud, double loadOnMobile) {
-		vmLoadList.add(new VmLoadLogItem(time, loadOnEdge, loadOnCloud, loadOnMobile));
+		addVmUtilizationLog(time, loadOnEdge, loadOnCloud, loadOnMobile, null);
+	}
+
+	/**
+	 * hostLoads keeps the loads of the edge datacenters, edge hosts and cloud
+	 * hosts in this order; it is used only if host load logging is enabled
+	 */
+	public void addVmUtilizationLog(double time, double loadOnEdge, double loadOnCloud, double loadOnMobile, double[] hostLoads) {
+		vmLoadSample[0] = loadOnEdge;
+		vmLoadSample[1] = loadOnCloud;
+		vmLoadSample[2] = loadOnMobile;
+		if (hostLoads != null)
+			System.arraycopy(hostLoads, 0, vmLoadSample, NUM_OF_VM_LOAD_TIERS,
+					Math.min(hostLoads.length, vmLoadSample.length - NUM_OF_VM_LOAD_TIERS));
+		vmLoadLog.add(time, vmLoadSample);
+	}
+
+	public void addLocationLog(double time, int[] numOfDevicesInPlace) {
+		locationList.add(new LocationLogItem(time, numOfDevicesInPlace));
+	}
+
+	/**
+	 * returns the logs collected since simStarted() was called; the output
+	 * folder, the file names and the deep log files are not part of it
+	 */
+	public LogState getLogState() {
+		LogState state = new LogState();
+		state.taskLog = taskLog;
+		state.vmLoadLog = vmLoadLog;
+		state.vmLoadSample = vmLoadSample;
+		state.locationList = locationList;
+		state.taskStatistics = taskStatistics;
+		return state;
+	}
+
+	/**
+	 * continues the logs of the given state, which is copied from the logger
+	 * of another run; the results are written with the file names given to
+	 * simStarted() of this run
+	 */
+	public void setLogState(LogState state) {
+		taskLog = state.taskLog;
+		vmLoadLog = state.vmLoadLog;
+		vmLoadSample = state.vmLoadSample;
+		locationList = state.locationList;
+		taskStatistics = state.taskStatistics;
 	}
 
 	public void simStopped() throws IOException {
 		int numOfAppTypes = SimSettings.getInstance().getTaskLookUpTable().length;
 
-		File successFile = null, failFile = null, vmLoadFile = null, locationFile = null;
-		FileWriter successFW = null, failFW = null, vmLoadFW = null, locationFW = null;
-		BufferedWriter successBW = null, failBW = null, vmLoadBW = null, locationBW = null;
+		BufferedWriter vmLoadBW = null, locationBW = null;
+		BinaryLogWriter vmLoadBinaryWriter = null;
+		BufferedWriter hostLoadBW = null;
+		boolean binaryFileLogEnabled = SimSettings.getInstance().getBinaryFileLoggingEnabled();
 
 		// Save generic results to file for each app type. last index is average
 		// of all app types
-		File[] genericFiles = new File[numOfAppTypes + 1];
-		FileWriter[] genericFWs = new FileWriter[numOfAppTypes + 1];
 		BufferedWriter[] genericBWs = new BufferedWriter[numOfAppTypes + 1];
 
-		// extract following values for each app type. last index is average of
-		// all app types
-		int[] uncompletedTask = new int[numOfAppTypes + 1];
-		int[] uncompletedTaskOnCloud = new int[numOfAppTypes + 1];
-		int[] uncompletedTaskOnEdge = new int[numOfAppTypes + 1];
-		int[] uncompletedTaskOnMobile = new int[numOfAppTypes + 1];
-
-		int[] completedTask = new int[numOfAppTypes + 1];
-		int[] completedTaskOnCloud = new int[numOfAppTypes + 1];
-		int[] completedTaskOnEdge = new int[numOfAppTypes + 1];
-		int[] completedTaskOnMobile = new int[numOfAppTypes + 1];
-
-		int[] failedTask = new int[numOfAppTypes + 1];
-		int[] failedTaskOnCloud = new int[numOfAppTypes + 1];
-		int[] failedTaskOnEdge = new int[numOfAppTypes + 1];
-		int[] failedTaskOnMobile = new int[numOfAppTypes + 1];
-
-		double[] networkDelay = new double[numOfAppTypes + 1];
-		double[] wanDelay = new double[numOfAppTypes + 1];
-		double[] manDelay = new double[numOfAppTypes + 1];
-		double[] lanDelay = new double[numOfAppTypes + 1];
-		
-		double[] wanUsage = new double[numOfAppTypes + 1];
-		double[] manUsage = new double[numOfAppTypes + 1];
-		double[] lanUsage = new double[numOfAppTypes + 1];
-
-		double[] serviceTime = new double[numOfAppTypes + 1];
-		double[] serviceTimeOnCloud = new double[numOfAppTypes + 1];
-		double[] serviceTimeOnEdge = new double[numOfAppTypes + 1];
-		double[] serviceTimeOnMobile = new double[numOfAppTypes + 1];
-
-		double[] processingTime = new double[numOfAppTypes + 1];
-		double[] processingTimeOnCloud = new double[numOfAppTypes + 1];
-		double[] processingTimeOnEdge = new double[numOfAppTypes + 1];
-		double[] processingTimeOnMobile = new double[numOfAppTypes + 1];
-
-		int[] failedTaskDueToVmCapacity = new int[numOfAppTypes + 1];
-		int[] failedTaskDueToVmCapacityOnCloud = new int[numOfAppTypes + 1];
-		int[] failedTaskDueToVmCapacityOnEdge = new int[numOfAppTypes + 1];
-		int[] failedTaskDueToVmCapacityOnMobile = new int[numOfAppTypes + 1];
-		
-		double[] cost = new double[numOfAppTypes + 1];
-		int[] failedTaskDuetoBw = new int[numOfAppTypes + 1];
-		int[] failedTaskDuetoLanBw = new int[numOfAppTypes + 1];
-		int[] failedTaskDuetoManBw = new int[numOfAppTypes + 1];
-		int[] failedTaskDuetoWanBw = new int[numOfAppTypes + 1];
-		int[] failedTaskDuetoMobility = new int[numOfAppTypes + 1];
+		// finished tasks are already in the statistics
+		TaskStatistics stats = taskStatistics;
 
 		// open all files and prepare them for write
 		if (fileLogEnabled) {
-			if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
-				successFile = new File(outputFolder, filePrefix + "_SUCCESS.log");
-				successFW = new FileWriter(successFile, true);
-				successBW = new BufferedWriter(successFW);
-
-				failFile = new File(outputFolder, filePrefix + "_FAIL.log");
-				failFW = new FileWriter(failFile, true);
-				failBW = new BufferedWriter(failFW);
+			if (binaryFileLogEnabled) {
+				vmLoadBinaryWriter = new BinaryLogWriter(openResultFile(outputFolder, filePrefix + BinaryLogFormat.VM_LOAD_FILE_SUFFIX, false),
+						BinaryLogFormat.VM_LOAD_RECORD);
+			}
+			else {
+				vmLoadBW = openResultFile(filePrefix + "_VM_LOAD.log");
+				appendToFile(vmLoadBW, "#auto generated file!");
 			}
 
-			vmLoadFile = new File(outputFolder, filePrefix + "_VM_LOAD.log");
-			vmLoadFW = new FileWriter(vmLoadFile, true);
-			vmLoadBW = new BufferedWriter(vmLoadFW);
+			if (vmLoadSample.length > NUM_OF_VM_LOAD_TIERS) {
+				hostLoadBW = openResultFile(filePrefix + "_HOST_LOAD.log");
+				appendToFile(hostLoadBW, "#auto generated file!");
+			}
 
-			locationFile = new File(outputFolder, filePrefix + "_LOCATION.log");
-			locationFW = new FileWriter(locationFile, true);
-			locationBW = new BufferedWriter(locationFW);
+			locationBW = openResultFile(filePrefix + "_LOCATION.log");
 
 			for (int i = 0; i < numOfAppTypes + 1; i++) {
 				String fileName = "ALL_APPS_GENERIC.log";
@@ -241,211 +303,61 @@ public class SimLogger {
 					fileName = SimSettings.getInstance().getTaskName(i) + "_GENERIC.log";
 				}
 
-				genericFiles[i] = new File(outputFolder, filePrefix + "_" + fileName);
-				genericFWs[i] = new FileWriter(genericFiles[i], true);
-				genericBWs[i] = new BufferedWriter(genericFWs[i]);
+				genericBWs[i] = openResultFile(filePrefix + "_" + fileName);
 				appendToFile(genericBWs[i], "#auto generated file!");
 			}
 
-			if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
-				appendToFile(successBW, "#auto generated file!");
-				appendToFile(failBW, "#auto generated file!");
-			}
-
-			appendToFile(vmLoadBW, "#auto generated file!");
 			appendToFile(locationBW, "#auto generated file!");
 		}
 
-		// extract the result of each task and write it to the file if required
-		for (Map.Entry<Integer, LogItem> entry : taskMap.entrySet()) {
-			Integer key = entry.getKey();
-			LogItem value = entry.getValue();
-
-			if (value.isInWarmUpPeriod())
+		// add the tasks which are not finished until the end of the simulation
+		for (int taskId = taskLog.getFirstTaskId(); taskId < taskLog.getEndTaskId(); taskId++) {
+			if (!taskLog.contains(taskId) || taskLog.isInWarmUpPeriod(taskId))
 				continue;
 
-			if (value.getStatus() == SimLogger.TASK_STATUS.COMLETED) {
-				completedTask[value.getTaskType()]++;
-
-				if (value.getVmType() == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
-					completedTaskOnCloud[value.getTaskType()]++;
-				else if (value.getVmType() == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
-					completedTaskOnMobile[value.getTaskType()]++;
-				else
-					completedTaskOnEdge[value.getTaskType()]++;
-			}
-			else if(value.getStatus() == SimLogger.TASK_STATUS.CREATED ||
-					value.getStatus() == SimLogger.TASK_STATUS.UPLOADING ||
-					value.getStatus() == SimLogger.TASK_STATUS.PROCESSING ||
-					value.getStatus() == SimLogger.TASK_STATUS.DOWNLOADING)
-			{
-				uncompletedTask[value.getTaskType()]++;
-				if (value.getVmType() == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
-					uncompletedTaskOnCloud[value.getTaskType()]++;
-				else if (value.getVmType() == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
-					uncompletedTaskOnMobile[value.getTaskType()]++;
-				else
-					uncompletedTaskOnEdge[value.getTaskType()]++;
-			}
-			else {
-				failedTask[value.getTaskType()]++;
-
-				if (value.getVmType() == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
-					failedTaskOnCloud[value.getTaskType()]++;
-				else if (value.getVmType() == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
-					failedTaskOnMobile[value.getTaskType()]++;
-				else
-					failedTaskOnEdge[value.getTaskType()]++;
-			}
-
-			if (value.getStatus() == SimLogger.TASK_STATUS.COMLETED) {
-				cost[value.getTaskType()] += value.getCost();
-				serviceTime[value.getTaskType()] += value.getServiceTime();
-				networkDelay[value.getTaskType()] += value.getNetworkDelay();
-				processingTime[value.getTaskType()] += (value.getServiceTime() - value.getNetworkDelay());
-				
-				if(value.getNetworkDelay(NETWORK_DELAY_TYPES.WLAN_DELAY) != 0) {
-					lanUsage[value.getTaskType()]++;
-					lanDelay[value.getTaskType()] += value.getNetworkDelay(NETWORK_DELAY_TYPES.WLAN_DELAY);
-				}
-				if(value.getNetworkDelay(NETWORK_DELAY_TYPES.MAN_DELAY) != 0) {
-					manUsage[value.getTaskType()]++;
-					manDelay[value.getTaskType()] += value.getNetworkDelay(NETWORK_DELAY_TYPES.MAN_DELAY);
-				}
-				if(value.getNetworkDelay(NETWORK_DELAY_TYPES.WAN_DELAY) != 0) {
-					wanUsage[value.getTaskType()]++;
-					wanDelay[value.getTaskType()] += value.getNetworkDelay(NETWORK_DELAY_TYPES.WAN_DELAY);
-				}
-
-				
-				if (value.getVmType() == SimSettings.VM_TYPES.CLOUD_VM.ordinal()) {
-					serviceTimeOnCloud[value.getTaskType()] += value.getServiceTime();
-					processingTimeOnCloud[value.getTaskType()] += (value.getServiceTime() - value.getNetworkDelay());
-				}
-				else if (value.getVmType() == SimSettings.VM_TYPES.MOBILE_VM.ordinal()) {
-					serviceTimeOnMobile[value.getTaskType()] += value.getServiceTime();
-					processingTimeOnMobile[value.getTaskType()] += value.getServiceTime();
-				}
-				else {
-					serviceTimeOnEdge[value.getTaskType()] += value.getServiceTime();
-					processingTimeOnEdge[value.getTaskType()] += (value.getServiceTime() - value.getNetworkDelay());
-				}
-
-				if (fileLogEnabled && SimSettings.getInstance().getDeepFileLoggingEnabled())
-					appendToFile(successBW, value.toString(key));
-			} else if (value.getStatus() == SimLogger.TASK_STATUS.REJECTED_DUE_TO_VM_CAPACITY) {
-				failedTaskDueToVmCapacity[value.getTaskType()]++;
-				
-				if (value.getVmType() == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
-					failedTaskDueToVmCapacityOnCloud[value.getTaskType()]++;
-				else if (value.getVmType() == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
-					failedTaskDueToVmCapacityOnMobile[value.getTaskType()]++;
-				else
-					failedTaskDueToVmCapacityOnEdge[value.getTaskType()]++;
-				
-				if (fileLogEnabled && SimSettings.getInstance().getDeepFileLoggingEnabled())
-					appendToFile(failBW, value.toString(key));
-			} else if (value.getStatus() == SimLogger.TASK_STATUS.REJECTED_DUE_TO_BANDWIDTH
-					|| value.getStatus() == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_BANDWIDTH) {
-				failedTaskDuetoBw[value.getTaskType()]++;
-				if (value.getNetworkError() == NETWORK_ERRORS.LAN_ERROR)
-					failedTaskDuetoLanBw[value.getTaskType()]++;
-				else if (value.getNetworkError() == NETWORK_ERRORS.MAN_ERROR)
-					failedTaskDuetoManBw[value.getTaskType()]++;
-				else if (value.getNetworkError() == NETWORK_ERRORS.WAN_ERROR)
-					failedTaskDuetoWanBw[value.getTaskType()]++;
-
-				if (fileLogEnabled && SimSettings.getInstance().getDeepFileLoggingEnabled())
-					appendToFile(failBW, value.toString(key));
-			} else if (value.getStatus() == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_MOBILITY) {
-				failedTaskDuetoMobility[value.getTaskType()]++;
-				if (fileLogEnabled && SimSettings.getInstance().getDeepFileLoggingEnabled())
-					appendToFile(failBW, value.toString(key));
-			}
+			stats.add(taskLog, taskId);
 		}
 
-		// calculate total values
-		uncompletedTask[numOfAppTypes] = IntStream.of(uncompletedTask).sum();
-		uncompletedTaskOnCloud[numOfAppTypes] = IntStream.of(uncompletedTaskOnCloud).sum();
-		uncompletedTaskOnEdge[numOfAppTypes] = IntStream.of(uncompletedTaskOnEdge).sum();
-		uncompletedTaskOnMobile[numOfAppTypes] = IntStream.of(uncompletedTaskOnMobile).sum();
-
-		completedTask[numOfAppTypes] = IntStream.of(completedTask).sum();
-		completedTaskOnCloud[numOfAppTypes] = IntStream.of(completedTaskOnCloud).sum();
-		completedTaskOnEdge[numOfAppTypes] = IntStream.of(completedTaskOnEdge).sum();
-		completedTaskOnMobile[numOfAppTypes] = IntStream.of(completedTaskOnMobile).sum();
-
-		failedTask[numOfAppTypes] = IntStream.of(failedTask).sum();
-		failedTaskOnCloud[numOfAppTypes] = IntStream.of(failedTaskOnCloud).sum();
-		failedTaskOnEdge[numOfAppTypes] = IntStream.of(failedTaskOnEdge).sum();
-		failedTaskOnMobile[numOfAppTypes] = IntStream.of(failedTaskOnMobile).sum();
-
-		networkDelay[numOfAppTypes] = DoubleStream.of(networkDelay).sum();
-		lanDelay[numOfAppTypes] = DoubleStream.of(lanDelay).sum();
-		manDelay[numOfAppTypes] = DoubleStream.of(manDelay).sum();
-		wanDelay[numOfAppTypes] = DoubleStream.of(wanDelay).sum();
-		
-		lanUsage[numOfAppTypes] = DoubleStream.of(lanUsage).sum();
-		manUsage[numOfAppTypes] = DoubleStream.of(manUsage).sum();
-		wanUsage[numOfAppTypes] = DoubleStream.of(wanUsage).sum();
-
-		serviceTime[numOfAppTypes] = DoubleStream.of(serviceTime).sum();
-		serviceTimeOnCloud[numOfAppTypes] = DoubleStream.of(serviceTimeOnCloud).sum();
-		serviceTimeOnEdge[numOfAppTypes] = DoubleStream.of(serviceTimeOnEdge).sum();
-		serviceTimeOnMobile[numOfAppTypes] = DoubleStream.of(serviceTimeOnMobile).sum();
-
-		processingTime[numOfAppTypes] = DoubleStream.of(processingTime).sum();
-		processingTimeOnCloud[numOfAppTypes] = DoubleStream.of(processingTimeOnCloud).sum();
-		processingTimeOnEdge[numOfAppTypes] = DoubleStream.of(processingTimeOnEdge).sum();
-		processingTimeOnMobile[numOfAppTypes] = DoubleStream.of(processingTimeOnMobile).sum();
+		// wait for the deep log writer to flush the finished tasks
+		if (deepLogWriter != null) {
+			deepLogWriter.close();
+			deepLogWriter = null;
+		}
 
-		failedTaskDueToVmCapacity[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacity).sum();
-		failedTaskDueToVmCapacityOnCloud[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacityOnCloud).sum();
-		failedTaskDueToVmCapacityOnEdge[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacityOnEdge).sum();
-		failedTaskDueToVmCapacityOnMobile[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacityOnMobile).sum();
-		
-		cost[numOfAppTypes] = DoubleStream.of(cost).sum();
-		failedTaskDuetoBw[numOfAppTypes] = IntStream.of(failedTaskDuetoBw).sum();
-		failedTaskDuetoWanBw[numOfAppTypes] = IntStream.of(failedTaskDuetoWanBw).sum();
-		failedTaskDuetoManBw[numOfAppTypes] = IntStream.of(failedTaskDuetoManBw).sum();
-		failedTaskDuetoLanBw[numOfAppTypes] = IntStream.of(failedTaskDuetoLanBw).sum();
-		failedTaskDuetoMobility[numOfAppTypes] = IntStream.of(failedTaskDuetoMobility).sum();
+		stats.calculateTotals();
 
 		// calculate server load
-		double totalVmLoadOnEdge = 0;
-		double totalVmLoadOnCloud = 0;
-		double totalVmLoadOnMobile = 0;
-		for (VmLoadLogItem entry : vmLoadList) {
-			totalVmLoadOnEdge += entry.getEdgeLoad();
-			totalVmLoadOnCloud += entry.getCloudLoad();
-			totalVmLoadOnMobile += entry.getMobileLoad();
-			if (fileLogEnabled)
-				appendToFile(vmLoadBW, entry.toString());
+		double totalVmLoadOnEdge = vmLoadLog.getTotal(0);
+		double totalVmLoadOnCloud = vmLoadLog.getTotal(1);
+		double totalVmLoadOnMobile = vmLoadLog.getTotal(2);
+		long numOfVmLoadSamples = vmLoadLog.getTotalNumOfSamples();
+		for (int p = 0; p < vmLoadLog.getNumOfPoints(); p++) {
+			double time = vmLoadLog.getTime(p);
+			if (vmLoadBinaryWriter != null)
+				vmLoadBinaryWriter.writeVmLoad(time, vmLoadLog.getAvg(p, 0), vmLoadLog.getAvg(p, 1), vmLoadLog.getAvg(p, 2));
+			else if (fileLogEnabled)
+				appendToFile(vmLoadBW, time
+						+ SimSettings.DELIMITER + vmLoadLog.getAvg(p, 0)
+						+ SimSettings.DELIMITER + vmLoadLog.getAvg(p, 1)
+						+ SimSettings.DELIMITER + vmLoadLog.getAvg(p, 2));
+
+			// time;number of samples;min;avg;max of each datacenter/host
+			if (hostLoadBW != null) {
+				StringBuilder line = new StringBuilder();
+				line.append(time).append(SimSettings.DELIMITER).append(vmLoadLog.getNumOfSamples(p));
+				for (int s = NUM_OF_VM_LOAD_TIERS; s < vmLoadLog.getNumOfSeries(); s++) {
+					line.append(SimSettings.DELIMITER).append(vmLoadLog.getMin(p, s));
+					line.append(SimSettings.DELIMITER).append(vmLoadLog.getAvg(p, s));
+					line.append(SimSettings.DELIMITER).append(vmLoadLog.getMax(p, s));
+				}
+				appendToFile(hostLoadBW, line.toString());
+			}
 		}
 
 		if (fileLogEnabled) {
 			// write location info to file
-			for (int t = 1; t < (SimSettings.getInstance().getSimulationTime()
-					/ SimSettings.getInstance().getVmLocationLogInterval()); t++) {
-				int[] locationInfo = new int[SimSettings.getInstance().getNumOfPlaceTypes()];
-				Double time = t * SimSettings.getInstance().getVmLocationLogInterval();
-
-				if (time < SimSettings.getInstance().getWarmUpPeriod())
-					continue;
-
-				for (int i = 0; i < SimManager.getInstance().getNumOfMobileDevice(); i++) {
-
-					Location loc = SimManager.getInstance().getMobilityModel().getLocation(i, time);
-					int placeTypeIndex = loc.getPlaceTypeIndex();
-					locationInfo[placeTypeIndex]++;
-				}
-
-				locationBW.write(time.toString());
-				for (int i = 0; i < locationInfo.length; i++)
-					locationBW.write(SimSettings.DELIMITER + locationInfo[i]);
-
-				locationBW.newLine();
-			}
+			for (LocationLogItem entry : locationList)
+				appendToFile(locationBW, entry.toString());
 
 			for (int i = 0; i < numOfAppTypes + 1; i++) {
 
@@ -458,100 +370,108 @@ public class SimLogger {
 
 				// check if the divisor is zero in order to avoid division by
 				// zero problem
-				double _serviceTime = (completedTask[i] == 0) ? 0.0 : (serviceTime[i] / (double) completedTask[i]);
-				double _networkDelay = (completedTask[i] == 0) ? 0.0 : (networkDelay[i] / ((double) completedTask[i] - (double)completedTaskOnMobile[i]));
-				double _processingTime = (completedTask[i] == 0) ? 0.0 : (processingTime[i] / (double) completedTask[i]);
-				double _vmLoadOnEdge = (vmLoadList.size() == 0) ? 0.0 : (totalVmLoadOnEdge / (double) vmLoadList.size());
-				double _vmLoadOnClould = (vmLoadList.size() == 0) ? 0.0 : (totalVmLoadOnCloud / (double) vmLoadList.size());
-				double _vmLoadOnMobile = (vmLoadList.size() == 0) ? 0.0 : (totalVmLoadOnMobile / (double) vmLoadList.size());
-				double _cost = (completedTask[i] == 0) ? 0.0 : (cost[i] / (double) completedTask[i]);
-
-				double _lanDelay = (lanUsage[i] == 0) ? 0.0
-						: (lanDelay[i] / (double) lanUsage[i]);
-				double _manDelay = (manUsage[i] == 0) ? 0.0
-						: (manDelay[i] / (double) manUsage[i]);
-				double _wanDelay = (wanUsage[i] == 0) ? 0.0
-						: (wanDelay[i] / (double) wanUsage[i]);
+				double _serviceTime = (stats.completedTask[i] == 0) ? 0.0 : (stats.serviceTime[i] / (double) stats.completedTask[i]);
+				double _networkDelay = (stats.completedTask[i] == 0) ? 0.0 : (stats.networkDelay[i] / ((double) stats.completedTask[i] - (double)stats.completedTaskOnMobile[i]));
+				double _processingTime = (stats.completedTask[i] == 0) ? 0.0 : (stats.processingTime[i] / (double) stats.completedTask[i]);
+				double _vmLoadOnEdge = (numOfVmLoadSamples == 0) ? 0.0 : (totalVmLoadOnEdge / (double) numOfVmLoadSamples);
+				double _vmLoadOnClould = (numOfVmLoadSamples == 0) ? 0.0 : (totalVmLoadOnCloud / (double) numOfVmLoadSamples);
+				double _vmLoadOnMobile = (numOfVmLoadSamples == 0) ? 0.0 : (totalVmLoadOnMobile / (double) numOfVmLoadSamples);
+				double _cost = (stats.completedTask[i] == 0) ? 0.0 : (stats.cost[i] / (double) stats.completedTask[i]);
+
+				double _lanDelay = (stats.lanUsage[i] == 0) ? 0.0
+						: (stats.lanDelay[i] / (double) stats.lanUsage[i]);
+				double _manDelay = (stats.manUsage[i] == 0) ? 0.0
+						: (stats.manDelay[i] / (double) stats.manUsage[i]);
+				double _wanDelay = (stats.wanUsage[i] == 0) ? 0.0
+						: (stats.wanDelay[i] / (double) stats.wanUsage[i]);
 
 				// write generic results
-				String genericResult1 = Integer.toString(completedTask[i]) + SimSettings.DELIMITER
-						+ Integer.toString(failedTask[i]) + SimSettings.DELIMITER 
-						+ Integer.toString(uncompletedTask[i]) + SimSettings.DELIMITER 
-						+ Integer.toString(failedTaskDuetoBw[i]) + SimSettings.DELIMITER
+				String genericResult1 = Integer.toString(stats.completedTask[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.failedTask[i]) + SimSettings.DELIMITER 
+						+ Integer.toString(stats.uncompletedTask[i]) + SimSettings.DELIMITER 
+						+ Integer.toString(stats.failedTaskDuetoBw[i]) + SimSettings.DELIMITER
 						+ Double.toString(_serviceTime) + SimSettings.DELIMITER 
 						+ Double.toString(_processingTime) + SimSettings.DELIMITER 
 						+ Double.toString(_networkDelay) + SimSettings.DELIMITER
 						+ Double.toString(0) + SimSettings.DELIMITER 
 						+ Double.toString(_cost) + SimSettings.DELIMITER 
-						+ Integer.toString(failedTaskDueToVmCapacity[i]) + SimSettings.DELIMITER 
-						+ Integer.toString(failedTaskDuetoMobility[i]);
+						+ Integer.toString(stats.failedTaskDueToVmCapacity[i]) + SimSettings.DELIMITER 
+						+ Integer.toString(stats.failedTaskDuetoMobility[i]);
 
 				// check if the divisor is zero in order to avoid division by zero problem
-				double _serviceTimeOnEdge = (completedTaskOnEdge[i] == 0) ? 0.0
-						: (serviceTimeOnEdge[i] / (double) completedTaskOnEdge[i]);
-				double _processingTimeOnEdge = (completedTaskOnEdge[i] == 0) ? 0.0
-						: (processingTimeOnEdge[i] / (double) completedTaskOnEdge[i]);
-				String genericResult2 = Integer.toString(completedTaskOnEdge[i]) + SimSettings.DELIMITER
-						+ Integer.toString(failedTaskOnEdge[i]) + SimSettings.DELIMITER
-						+ Integer.toString(uncompletedTaskOnEdge[i]) + SimSettings.DELIMITER
+				double _serviceTimeOnEdge = (stats.completedTaskOnEdge[i] == 0) ? 0.0
+						: (stats.serviceTimeOnEdge[i] / (double) stats.completedTaskOnEdge[i]);
+				double _processingTimeOnEdge = (stats.completedTaskOnEdge[i] == 0) ? 0.0
+						: (stats.processingTimeOnEdge[i] / (double) stats.completedTaskOnEdge[i]);
+				String genericResult2 = Integer.toString(stats.completedTaskOnEdge[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.failedTaskOnEdge[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.uncompletedTaskOnEdge[i]) + SimSettings.DELIMITER
 						+ Integer.toString(0) + SimSettings.DELIMITER
 						+ Double.toString(_serviceTimeOnEdge) + SimSettings.DELIMITER
 						+ Double.toString(_processingTimeOnEdge) + SimSettings.DELIMITER
 						+ Double.toString(0.0) + SimSettings.DELIMITER 
 						+ Double.toString(_vmLoadOnEdge) + SimSettings.DELIMITER 
-						+ Integer.toString(failedTaskDueToVmCapacityOnEdge[i]);
+						+ Integer.toString(stats.failedTaskDueToVmCapacityOnEdge[i]);
 
 				// check if the divisor is zero in order to avoid division by zero problem
-				double _serviceTimeOnCloud = (completedTaskOnCloud[i] == 0) ? 0.0
-						: (serviceTimeOnCloud[i] / (double) completedTaskOnCloud[i]);
-				double _processingTimeOnCloud = (completedTaskOnCloud[i] == 0) ? 0.0
-						: (processingTimeOnCloud[i] / (double) completedTaskOnCloud[i]);
-				String genericResult3 = Integer.toString(completedTaskOnCloud[i]) + SimSettings.DELIMITER
-						+ Integer.toString(failedTaskOnCloud[i]) + SimSettings.DELIMITER
-						+ Integer.toString(uncompletedTaskOnCloud[i]) + SimSettings.DELIMITER
+				double _serviceTimeOnCloud = (stats.completedTaskOnCloud[i] == 0) ? 0.0
+						: (stats.serviceTimeOnCloud[i] / (double) stats.completedTaskOnCloud[i]);
+				double _processingTimeOnCloud = (stats.completedTaskOnCloud[i] == 0) ? 0.0
+						: (stats.processingTimeOnCloud[i] / (double) stats.completedTaskOnCloud[i]);
+				String genericResult3 = Integer.toString(stats.completedTaskOnCloud[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.failedTaskOnCloud[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.uncompletedTaskOnCloud[i]) + SimSettings.DELIMITER
 						+ Integer.toString(0) + SimSettings.DELIMITER
 						+ Double.toString(_serviceTimeOnCloud) + SimSettings.DELIMITER
 						+ Double.toString(_processingTimeOnCloud) + SimSettings.DELIMITER 
 						+ Double.toString(0.0) + SimSettings.DELIMITER
 						+ Double.toString(_vmLoadOnClould) + SimSettings.DELIMITER 
-						+ Integer.toString(failedTaskDueToVmCapacityOnCloud[i]);
+						+ Integer.toString(stats.failedTaskDueToVmCapacityOnCloud[i]);
 				
 				// check if the divisor is zero in order to avoid division by zero problem
-				double _serviceTimeOnMobile = (completedTaskOnMobile[i] == 0) ? 0.0
-						: (serviceTimeOnMobile[i] / (double) completedTaskOnMobile[i]);
-				double _processingTimeOnMobile = (completedTaskOnMobile[i] == 0) ? 0.0
-						: (processingTimeOnMobile[i] / (double) completedTaskOnMobile[i]);
-				String genericResult4 = Integer.toString(completedTaskOnMobile[i]) + SimSettings.DELIMITER
-						+ Integer.toString(failedTaskOnMobile[i]) + SimSettings.DELIMITER
-						+ Integer.toString(uncompletedTaskOnMobile[i]) + SimSettings.DELIMITER
+				double _serviceTimeOnMobile = (stats.completedTaskOnMobile[i] == 0) ? 0.0
+						: (stats.serviceTimeOnMobile[i] / (double) stats.completedTaskOnMobile[i]);
+				double _processingTimeOnMobile = (stats.completedTaskOnMobile[i] == 0) ? 0.0
+						: (stats.processingTimeOnMobile[i] / (double) stats.completedTaskOnMobile[i]);
+				String genericResult4 = Integer.toString(stats.completedTaskOnMobile[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.failedTaskOnMobile[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.uncompletedTaskOnMobile[i]) + SimSettings.DELIMITER
 						+ Integer.toString(0) + SimSettings.DELIMITER
 						+ Double.toString(_serviceTimeOnMobile) + SimSettings.DELIMITER
 						+ Double.toString(_processingTimeOnMobile) + SimSettings.DELIMITER 
 						+ Double.toString(0.0) + SimSettings.DELIMITER
 						+ Double.toString(_vmLoadOnMobile) + SimSettings.DELIMITER 
-						+ Integer.toString(failedTaskDueToVmCapacityOnMobile[i]);
+						+ Integer.toString(stats.failedTaskDueToVmCapacityOnMobile[i]);
 				
 				String genericResult5 = Double.toString(_lanDelay) + SimSettings.DELIMITER
 						+ Double.toString(_manDelay) + SimSettings.DELIMITER
 						+ Double.toString(_wanDelay) + SimSettings.DELIMITER
 						+ 0 + SimSettings.DELIMITER //for future use
-						+ Integer.toString(failedTaskDuetoLanBw[i]) + SimSettings.DELIMITER
-						+ Integer.toString(failedTaskDuetoManBw[i]) + SimSettings.DELIMITER
-						+ Integer.toString(failedTaskDuetoWanBw[i]);
+						+ Integer.toString(stats.failedTaskDuetoLanBw[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.failedTaskDuetoManBw[i]) + SimSettings.DELIMITER
+						+ Integer.toString(stats.failedTaskDuetoWanBw[i]);
 
 				appendToFile(genericBWs[i], genericResult1);
 				appendToFile(genericBWs[i], genericResult2);
 				appendToFile(genericBWs[i], genericResult3);
 				appendToFile(genericBWs[i], genericResult4);
 				appendToFile(genericBWs[i], genericResult5);
+
+				// percentiles of the latencies, one line for each metric
+				appendToFile(genericBWs[i], TaskStatistics.getPercentiles(stats.serviceTimeHistogram[i]));
+				appendToFile(genericBWs[i], TaskStatistics.getPercentiles(stats.processingTimeHistogram[i]));
+				appendToFile(genericBWs[i], TaskStatistics.getPercentiles(stats.lanDelayHistogram[i]));
+				appendToFile(genericBWs[i], TaskStatistics.getPercentiles(stats.manDelayHistogram[i]));
+				appendToFile(genericBWs[i], TaskStatistics.getPercentiles(stats.wanDelayHistogram[i]));
 			}
 
 			// close open files
-			if (SimSettings.getInstance().getDeepFileLoggingEnabled()) {
-				successBW.close();
-				failBW.close();
-			}
-			vmLoadBW.close();
+			if (vmLoadBinaryWriter != null)
+				vmLoadBinaryWriter.close();
+			else
+				vmLoadBW.close();
+			if (hostLoadBW != null)
+				hostLoadBW.close();
 			locationBW.close();
 			for (int i = 0; i < numOfAppTypes + 1; i++) {
 				if (i < numOfAppTypes) {
@@ -566,337 +486,478 @@ public class SimLogger {
 
 		// printout important results
 		printLine("# of tasks (Edge/Cloud/Mobile): "
-				+ (failedTask[numOfAppTypes] + completedTask[numOfAppTypes]) + "("
-				+ (failedTaskOnEdge[numOfAppTypes] + completedTaskOnEdge[numOfAppTypes]) + "/" 
-				+ (failedTaskOnCloud[numOfAppTypes]+ completedTaskOnCloud[numOfAppTypes]) + "/" 
-				+ (failedTaskOnMobile[numOfAppTypes]+ completedTaskOnMobile[numOfAppTypes]) + ")");
+				+ (stats.failedTask[numOfAppTypes] + stats.completedTask[numOfAppTypes]) + "("
+				+ (stats.failedTaskOnEdge[numOfAppTypes] + stats.completedTaskOnEdge[numOfAppTypes]) + "/" 
+				+ (stats.failedTaskOnCloud[numOfAppTypes]+ stats.completedTaskOnCloud[numOfAppTypes]) + "/" 
+				+ (stats.failedTaskOnMobile[numOfAppTypes]+ stats.completedTaskOnMobile[numOfAppTypes]) + ")");
 		
 		printLine("# of failed tasks (Edge/Cloud/Mobile): "
-				+ failedTask[numOfAppTypes] + "("
-				+ failedTaskOnEdge[numOfAppTypes] + "/"
-				+ failedTaskOnCloud[numOfAppTypes] + "/"
-				+ failedTaskOnMobile[numOfAppTypes] + ")");
+				+ stats.failedTask[numOfAppTypes] + "("
+				+ stats.failedTaskOnEdge[numOfAppTypes] + "/"
+				+ stats.failedTaskOnCloud[numOfAppTypes] + "/"
+				+ stats.failedTaskOnMobile[numOfAppTypes] + ")");
 		
 		printLine("# of completed tasks (Edge/Cloud/Mobile): "
-				+ completedTask[numOfAppTypes] + "("
-				+ completedTaskOnEdge[numOfAppTypes] + "/"
-				+ completedTaskOnCloud[numOfAppTypes] + "/"
-				+ completedTaskOnMobile[numOfAppTypes] + ")");
+				+ stats.completedTask[numOfAppTypes] + "("
+				+ stats.completedTaskOnEdge[numOfAppTypes] + "/"
+				+ stats.completedTaskOnCloud[numOfAppTypes] + "/"
+				+ stats.completedTaskOnMobile[numOfAppTypes] + ")");
 		
 		printLine("# of uncompleted tasks (Edge/Cloud/Mobile): "
-				+ uncompletedTask[numOfAppTypes] + "("
-				+ uncompletedTaskOnEdge[numOfAppTypes] + "/"
-				+ uncompletedTaskOnCloud[numOfAppTypes] + "/"
-				+ uncompletedTaskOnMobile[numOfAppTypes] + ")");
+				+ stats.uncompletedTask[numOfAppTypes] + "("
+				+ stats.uncompletedTaskOnEdge[numOfAppTypes] + "/"
+				+ stats.uncompletedTaskOnCloud[numOfAppTypes] + "/"
+				+ stats.uncompletedTaskOnMobile[numOfAppTypes] + ")");
 
 		printLine("# of failed tasks due to vm capacity (Edge/Cloud/Mobile): "
-				+ failedTaskDueToVmCapacity[numOfAppTypes] + "("
-				+ failedTaskDueToVmCapacityOnEdge[numOfAppTypes] + "/"
-				+ failedTaskDueToVmCapacityOnCloud[numOfAppTypes] + "/"
-				+ failedTaskDueToVmCapacityOnMobile[numOfAppTypes] + ")");
+				+ stats.failedTaskDueToVmCapacity[numOfAppTypes] + "("
+				+ stats.failedTaskDueToVmCapacityOnEdge[numOfAppTypes] + "/"
+				+ stats.failedTaskDueToVmCapacityOnCloud[numOfAppTypes] + "/"
+				+ stats.failedTaskDueToVmCapacityOnMobile[numOfAppTypes] + ")");
 		
 		printLine("# of failed tasks due to Mobility/Network(WLAN/MAN/WAN): "
-				+ failedTaskDuetoMobility[numOfAppTypes]
-				+ "/" + failedTaskDuetoBw[numOfAppTypes] 
-				+ "(" + failedTaskDuetoLanBw[numOfAppTypes] 
-				+ "/" + failedTaskDuetoManBw[numOfAppTypes] 
-				+ "/" + failedTaskDuetoWanBw[numOfAppTypes] + ")");
+				+ stats.failedTaskDuetoMobility[numOfAppTypes]
+				+ "/" + stats.failedTaskDuetoBw[numOfAppTypes] 
+				+ "(" + stats.failedTaskDuetoLanBw[numOfAppTypes] 
+				+ "/" + stats.failedTaskDuetoManBw[numOfAppTypes] 
+				+ "/" + stats.failedTaskDuetoWanBw[numOfAppTypes] + ")");
 		
 		printLine("percentage of failed tasks: "
-				+ String.format("%.6f", ((double) failedTask[numOfAppTypes] * (double) 100)
-						/ (double) (completedTask[numOfAppTypes] + failedTask[numOfAppTypes]))
+				+ String.format("%.6f", ((double) stats.failedTask[numOfAppTypes] * (double) 100)
+						/ (double) (stats.completedTask[numOfAppTypes] + stats.failedTask[numOfAppTypes]))
 				+ "%");
 
 		printLine("average service time: "
-				+ String.format("%.6f", serviceTime[numOfAppTypes] / (double) completedTask[numOfAppTypes])
+				+ String.format("%.6f", stats.serviceTime[numOfAppTypes] / (double) stats.completedTask[numOfAppTypes])
 				+ " seconds. (" + "on Edge: "
-				+ String.format("%.6f", serviceTimeOnEdge[numOfAppTypes] / (double) completedTaskOnEdge[numOfAppTypes])
+				+ String.format("%.6f", stats.serviceTimeOnEdge[numOfAppTypes] / (double) stats.completedTaskOnEdge[numOfAppTypes])
 				+ ", " + "on Cloud: "
-				+ String.format("%.6f", serviceTimeOnCloud[numOfAppTypes] / (double) completedTaskOnCloud[numOfAppTypes])
+				+ String.format("%.6f", stats.serviceTimeOnCloud[numOfAppTypes] / (double) stats.completedTaskOnCloud[numOfAppTypes])
 				+ ", " + "on Mobile: "
-				+ String.format("%.6f", serviceTimeOnMobile[numOfAppTypes] / (double) completedTaskOnMobile[numOfAppTypes])
+				+ String.format("%.6f", stats.serviceTimeOnMobile[numOfAppTypes] / (double) stats.completedTaskOnMobile[numOfAppTypes])
 				+ ")");
 
 		printLine("average processing time: "
-				+ String.format("%.6f", processingTime[numOfAppTypes] / (double) completedTask[numOfAppTypes])
+				+ String.format("%.6f", stats.processingTime[numOfAppTypes] / (double) stats.completedTask[numOfAppTypes])
 				+ " seconds. (" + "on Edge: "
-				+ String.format("%.6f", processingTimeOnEdge[numOfAppTypes] / (double) completedTaskOnEdge[numOfAppTypes])
+				+ String.format("%.6f", stats.processingTimeOnEdge[numOfAppTypes] / (double) stats.completedTaskOnEdge[numOfAppTypes])
 				+ ", " + "on Cloud: " 
-				+ String.format("%.6f", processingTimeOnCloud[numOfAppTypes] / (double) completedTaskOnCloud[numOfAppTypes])
+				+ String.format("%.6f", stats.processingTimeOnCloud[numOfAppTypes] / (double) stats.completedTaskOnCloud[numOfAppTypes])
 				+ ", " + "on Mobile: " 
-				+ String.format("%.6f", processingTimeOnMobile[numOfAppTypes] / (double) completedTaskOnMobile[numOfAppTypes])
+				+ String.format("%.6f", stats.processingTimeOnMobile[numOfAppTypes] / (double) stats.completedTaskOnMobile[numOfAppTypes])
 				+ ")");
 
 		printLine("average network delay: "
-				+ String.format("%.6f", networkDelay[numOfAppTypes] / ((double) completedTask[numOfAppTypes] - (double) completedTaskOnMobile[numOfAppTypes]))
+				+ String.format("%.6f", stats.networkDelay[numOfAppTypes] / ((double) stats.completedTask[numOfAppTypes] - (double) stats.completedTaskOnMobile[numOfAppTypes]))
 				+ " seconds. (" + "LAN delay: "
-				+ String.format("%.6f", lanDelay[numOfAppTypes] / (double) lanUsage[numOfAppTypes])
+				+ String.format("%.6f", stats.lanDelay[numOfAppTypes] / (double) stats.lanUsage[numOfAppTypes])
 				+ ", " + "MAN delay: "
-				+ String.format("%.6f", manDelay[numOfAppTypes] / (double) manUsage[numOfAppTypes])
+				+ String.format("%.6f", stats.manDelay[numOfAppTypes] / (double) stats.manUsage[numOfAppTypes])
 				+ ", " + "WAN delay: "
-				+ String.format("%.6f", wanDelay[numOfAppTypes] / (double) wanUsage[numOfAppTypes]) + ")");
+				+ String.format("%.6f", stats.wanDelay[numOfAppTypes] / (double) stats.wanUsage[numOfAppTypes]) + ")");
+
+		LatencyHistogram[] serviceTimeHistogram = stats.serviceTimeHistogram[numOfAppTypes];
+		printLine("service time p50/p90/p99/p99.9: "
+				+ TaskStatistics.formatPercentiles(serviceTimeHistogram[TaskStatistics.ALL_VMS])
+				+ " seconds. (" + "on Edge: "
+				+ TaskStatistics.formatPercentiles(serviceTimeHistogram[TaskStatistics.EDGE_VMS])
+				+ ", " + "on Cloud: "
+				+ TaskStatistics.formatPercentiles(serviceTimeHistogram[TaskStatistics.CLOUD_VMS])
+				+ ", " + "on Mobile: "
+				+ TaskStatistics.formatPercentiles(serviceTimeHistogram[TaskStatistics.MOBILE_VMS])
+				+ ")");
+
+		LatencyHistogram[] processingTimeHistogram = stats.processingTimeHistogram[numOfAppTypes];
+		printLine("processing time p50/p90/p99/p99.9: "
+				+ TaskStatistics.formatPercentiles(processingTimeHistogram[TaskStatistics.ALL_VMS])
+				+ " seconds. (" + "on Edge: "
+				+ TaskStatistics.formatPercentiles(processingTimeHistogram[TaskStatistics.EDGE_VMS])
+				+ ", " + "on Cloud: "
+				+ TaskStatistics.formatPercentiles(processingTimeHistogram[TaskStatistics.CLOUD_VMS])
+				+ ", " + "on Mobile: "
+				+ TaskStatistics.formatPercentiles(processingTimeHistogram[TaskStatistics.MOBILE_VMS])
+				+ ")");
+
+		printLine("network delay p50/p90/p99/p99.9: " + "LAN delay: "
+				+ TaskStatistics.formatPercentiles(stats.lanDelayHistogram[numOfAppTypes][TaskStatistics.ALL_VMS])
+				+ ", " + "MAN delay: "
+				+ TaskStatistics.formatPercentiles(stats.manDelayHistogram[numOfAppTypes][TaskStatistics.ALL_VMS])
+				+ ", " + "WAN delay: "
+				+ TaskStatistics.formatPercentiles(stats.wanDelayHistogram[numOfAppTypes][TaskStatistics.ALL_VMS])
+				+ " seconds.");
 
 		printLine("average server utilization Edge/Cloud/Mobile: " 
-				+ String.format("%.6f", totalVmLoadOnEdge / (double) vmLoadList.size()) + "/"
-				+ String.format("%.6f", totalVmLoadOnCloud / (double) vmLoadList.size()) + "/"
-				+ String.format("%.6f", totalVmLoadOnMobile / (double) vmLoadList.size()));
+				+ String.format("%.6f", totalVmLoadOnEdge / (double) numOfVmLoadSamples) + "/"
+				+ String.format("%.6f", totalVmLoadOnCloud / (double) numOfVmLoadSamples) + "/"
+				+ String.format("%.6f", totalVmLoadOnMobile / (double) numOfVmLoadSamples));
 		
-		printLine("average cost: " + cost[numOfAppTypes] / completedTask[numOfAppTypes] + "$");
+		printLine("average cost: " + stats.cost[numOfAppTypes] / stats.completedTask[numOfAppTypes] + "$");
 
 		// clear related collections (map list etc.)
-		taskMap.clear();
-		vmLoadList.clear();
+		taskLog.clear();
+		vmLoadLog.clear();
+		locationList.clear();
+		taskStatistics = null;
+	}
+
+	/**
+	 * logs of a run, see getLogState()
+	 */
+	public static class LogState {
+		private TaskLogStore taskLog;
+		private TimeSeriesStore vmLoadLog;
+		private double[] vmLoadSample;
+		private LinkedList<LocationLogItem> locationList;
+		private TaskStatistics taskStatistics;
 	}
 }
 
-class VmLoadLogItem {
+class LocationLogItem {
 	private double time;
-	private double vmLoadOnEdge;
-	private double vmLoadOnCloud;
-	private double vmLoadOnMobile;
+	private int[] numOfDevicesInPlace;
 
-	VmLoadLogItem(double _time, double _vmLoadOnEdge, double _vmLoadOnCloud, double _vmLoadOnMobile) {
+	LocationLogItem(double _time, int[] _numOfDevicesInPlace) {
 		time = _time;
-		vmLoadOnEdge = _vmLoadOnEdge;
-		vmLoadOnCloud = _vmLoadOnCloud;
-		vmLoadOnMobile = _vmLoadOnMobile;
-	}
-
-	public double getEdgeLoad() {
-		return vmLoadOnEdge;
+		numOfDevicesInPlace = _numOfDevicesInPlace;
 	}
 
-	public double getCloudLoad() {
-		return vmLoadOnCloud;
-	}
-	
-	public double getMobileLoad() {
-		return vmLoadOnMobile;
-	}
-	
 	public String toString() {
-		return time + 
-				SimSettings.DELIMITER + vmLoadOnEdge +
-				SimSettings.DELIMITER + vmLoadOnCloud +
-				SimSettings.DELIMITER + vmLoadOnMobile;
+		StringBuilder result = new StringBuilder();
+		result.append(time);
+		for (int i = 0; i < numOfDevicesInPlace.length; i++)
+			result.append(SimSettings.DELIMITER).append(numOfDevicesInPlace[i]);
+		return result.toString();
 	}
 }
 
-class LogItem {
-	private SimLogger.TASK_STATUS status;
-	private SimLogger.NETWORK_ERRORS networkError;
-	private int datacenterId;
-	private int hostId;
-	private int vmId;
-	private int vmType;
-	private int taskType;
-	private int taskLenght;
-	private int taskInputType;
-	private int taskOutputSize;
-	private double taskStartTime;
-	private double taskEndTime;
-	private double lanUploadDelay;
-	private double manUploadDelay;
-	private double wanUploadDelay;
-	private double lanDownloadDelay;
-	private double manDownloadDelay;
-	private double wanDownloadDelay;
-	private double bwCost;
-	private double cpuCost;
-	private boolean isInWarmUpPeriod;
-
-	LogItem(int _taskType, int _taskLenght, int _taskInputType, int _taskOutputSize) {
-		taskType = _taskType;
-		taskLenght = _taskLenght;
-		taskInputType = _taskInputType;
-		taskOutputSize = _taskOutputSize;
-		networkError = NETWORK_ERRORS.NONE;
-		status = SimLogger.TASK_STATUS.CREATED;
-		taskEndTime = 0;
-	}
-	
-	public void taskStarted(double time) {
-		taskStartTime = time;
-		status = SimLogger.TASK_STATUS.UPLOADING;
-		
-		if (time < SimSettings.getInstance().getWarmUpPeriod())
-			isInWarmUpPeriod = true;
-		else
-			isInWarmUpPeriod = false;
-	}
-	
-	public void setUploadDelay(double delay, NETWORK_DELAY_TYPES delayType) {
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			lanUploadDelay = delay;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			manUploadDelay = delay;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			wanUploadDelay = delay;
-	}
+/**
+ * Accumulates the results of the tasks for each app type;
+ * last index of the arrays is the total of all app types
+ */
+class TaskStatistics {
+	//second index of the histogram arrays
+	static final int ALL_VMS = 0;
+	static final int EDGE_VMS = 1;
+	static final int CLOUD_VMS = 2;
+	static final int MOBILE_VMS = 3;
+	private static final int NUM_OF_TIERS = 4;
+
+	static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private int numOfAppTypes;
+
+	int[] uncompletedTask;
+	int[] uncompletedTaskOnCloud;
+	int[] uncompletedTaskOnEdge;
+	int[] uncompletedTaskOnMobile;
+
+	int[] completedTask;
+	int[] completedTaskOnCloud;
+	int[] completedTaskOnEdge;
+	int[] completedTaskOnMobile;
+
+	int[] failedTask;
+	int[] failedTaskOnCloud;
+	int[] failedTaskOnEdge;
+	int[] failedTaskOnMobile;
+
+	double[] networkDelay;
+	double[] wanDelay;
+	double[] manDelay;
+	double[] lanDelay;
 	
-	public void setDownloadDelay(double delay, NETWORK_DELAY_TYPES delayType) {
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			lanDownloadDelay = delay;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			manDownloadDelay = delay;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			wanDownloadDelay = delay;
-	}
+	double[] wanUsage;
+	double[] manUsage;
+	double[] lanUsage;
+
+	double[] serviceTime;
+	double[] serviceTimeOnCloud;
+	double[] serviceTimeOnEdge;
+	double[] serviceTimeOnMobile;
+
+	double[] processingTime;
+	double[] processingTimeOnCloud;
+	double[] processingTimeOnEdge;
+	double[] processingTimeOnMobile;
+
+	int[] failedTaskDueToVmCapacity;
+	int[] failedTaskDueToVmCapacityOnCloud;
+	int[] failedTaskDueToVmCapacityOnEdge;
+	int[] failedTaskDueToVmCapacityOnMobile;
 	
-	public void taskAssigned(int _datacenterId, int _hostId, int _vmId, int _vmType) {
-		status = SimLogger.TASK_STATUS.PROCESSING;
-		datacenterId = _datacenterId;
-		hostId = _hostId;
-		vmId = _vmId;
-		vmType = _vmType;
+	double[] cost;
+	int[] failedTaskDuetoBw;
+	int[] failedTaskDuetoLanBw;
+	int[] failedTaskDuetoManBw;
+	int[] failedTaskDuetoWanBw;
+	int[] failedTaskDuetoMobility;
+
+	LatencyHistogram[][] serviceTimeHistogram;
+	LatencyHistogram[][] processingTimeHistogram;
+	LatencyHistogram[][] lanDelayHistogram;
+	LatencyHistogram[][] manDelayHistogram;
+	LatencyHistogram[][] wanDelayHistogram;
+
+	TaskStatistics(int _numOfAppTypes) {
+		numOfAppTypes = _numOfAppTypes;
+		uncompletedTask = new int[numOfAppTypes + 1];
+		uncompletedTaskOnCloud = new int[numOfAppTypes + 1];
+		uncompletedTaskOnEdge = new int[numOfAppTypes + 1];
+		uncompletedTaskOnMobile = new int[numOfAppTypes + 1];
+		completedTask = new int[numOfAppTypes + 1];
+		completedTaskOnCloud = new int[numOfAppTypes + 1];
+		completedTaskOnEdge = new int[numOfAppTypes + 1];
+		completedTaskOnMobile = new int[numOfAppTypes + 1];
+		failedTask = new int[numOfAppTypes + 1];
+		failedTaskOnCloud = new int[numOfAppTypes + 1];
+		failedTaskOnEdge = new int[numOfAppTypes + 1];
+		failedTaskOnMobile = new int[numOfAppTypes + 1];
+		networkDelay = new double[numOfAppTypes + 1];
+		wanDelay = new double[numOfAppTypes + 1];
+		manDelay = new double[numOfAppTypes + 1];
+		lanDelay = new double[numOfAppTypes + 1];
+		wanUsage = new double[numOfAppTypes + 1];
+		manUsage = new double[numOfAppTypes + 1];
+		lanUsage = new double[numOfAppTypes + 1];
+		serviceTime = new double[numOfAppTypes + 1];
+		serviceTimeOnCloud = new double[numOfAppTypes + 1];
+		serviceTimeOnEdge = new double[numOfAppTypes + 1];
+		serviceTimeOnMobile = new double[numOfAppTypes + 1];
+		processingTime = new double[numOfAppTypes + 1];
+		processingTimeOnCloud = new double[numOfAppTypes + 1];
+		processingTimeOnEdge = new double[numOfAppTypes + 1];
+		processingTimeOnMobile = new double[numOfAppTypes + 1];
+		failedTaskDueToVmCapacity = new int[numOfAppTypes + 1];
+		failedTaskDueToVmCapacityOnCloud = new int[numOfAppTypes + 1];
+		failedTaskDueToVmCapacityOnEdge = new int[numOfAppTypes + 1];
+		failedTaskDueToVmCapacityOnMobile = new int[numOfAppTypes + 1];
+		cost = new double[numOfAppTypes + 1];
+		failedTaskDuetoBw = new int[numOfAppTypes + 1];
+		failedTaskDuetoLanBw = new int[numOfAppTypes + 1];
+		failedTaskDuetoManBw = new int[numOfAppTypes + 1];
+		failedTaskDuetoWanBw = new int[numOfAppTypes + 1];
+		failedTaskDuetoMobility = new int[numOfAppTypes + 1];
+		serviceTimeHistogram = createHistograms();
+		processingTimeHistogram = createHistograms();
+		lanDelayHistogram = createHistograms();
+		manDelayHistogram = createHistograms();
+		wanDelayHistogram = createHistograms();
+	}
+
+	private LatencyHistogram[][] createHistograms() {
+		LatencyHistogram[][] result = new LatencyHistogram[numOfAppTypes + 1][NUM_OF_TIERS];
+		for (int i = 0; i < numOfAppTypes + 1; i++)
+			for (int j = 0; j < NUM_OF_TIERS; j++)
+				result[i][j] = new LatencyHistogram();
+		return result;
 	}
 
-	public void taskExecuted() {
-		status = SimLogger.TASK_STATUS.DOWNLOADING;
+	private static void record(LatencyHistogram[][] histograms, int taskType, int tier, double value) {
+		histograms[taskType][ALL_VMS].record(value);
+		histograms[taskType][tier].record(value);
 	}
 
-	public void taskEnded(double time) {
-		taskEndTime = time;
-		status = SimLogger.TASK_STATUS.COMLETED;
+	private void calculateTotal(LatencyHistogram[][] histograms) {
+		for (int i = 0; i < numOfAppTypes; i++)
+			for (int j = 0; j < NUM_OF_TIERS; j++)
+				histograms[numOfAppTypes][j].add(histograms[i][j]);
 	}
 
-	public void taskRejectedDueToVMCapacity(double time, int _vmType) {
-		vmType = _vmType;
-		taskEndTime = time;
-		status = SimLogger.TASK_STATUS.REJECTED_DUE_TO_VM_CAPACITY;
+	/**
+	 * returns the percentiles of the given histogram for each tier in
+	 * ALL/EDGE/CLOUD/MOBILE order, as a line of the generic log file
+	 */
+	static String getPercentiles(LatencyHistogram[] histograms) {
+		StringBuilder result = new StringBuilder();
+		for (int j = 0; j < NUM_OF_TIERS; j++) {
+			for (int k = 0; k < PERCENTILES.length; k++) {
+				if (result.length() > 0)
+					result.append(SimSettings.DELIMITER);
+				result.append(histograms[j].getPercentile(PERCENTILES[k]));
+			}
+		}
+		return result.toString();
 	}
 
-	public void taskRejectedDueToBandwidth(double time, int _vmType, NETWORK_DELAY_TYPES delayType) {
-		vmType = _vmType;
-		taskEndTime = time;
-		status = SimLogger.TASK_STATUS.REJECTED_DUE_TO_BANDWIDTH;
-		
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			networkError = NETWORK_ERRORS.LAN_ERROR;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			networkError = NETWORK_ERRORS.MAN_ERROR;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			networkError = NETWORK_ERRORS.WAN_ERROR;
+	/**
+	 * returns the percentiles of the given histogram in p50/p90/p99/p99.9 format
+	 */
+	static String formatPercentiles(LatencyHistogram histogram) {
+		StringBuilder result = new StringBuilder();
+		for (int k = 0; k < PERCENTILES.length; k++) {
+			if (k > 0)
+				result.append("/");
+			result.append(String.format("%.6f", histogram.getPercentile(PERCENTILES[k])));
+		}
+		return result.toString();
 	}
 
-	public void taskFailedDueToBandwidth(double time, NETWORK_DELAY_TYPES delayType) {
-		taskEndTime = time;
-		status = SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_BANDWIDTH;
-		
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			networkError = NETWORK_ERRORS.LAN_ERROR;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			networkError = NETWORK_ERRORS.MAN_ERROR;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			networkError = NETWORK_ERRORS.WAN_ERROR;
-	}
+	/**
+	 * folds the result of the given task into the accumulators
+	 */
+	void add(TaskLogStore taskLog, int taskId) {
+		int taskType = taskLog.getTaskType(taskId);
+		int vmType = taskLog.getVmType(taskId);
+		SimLogger.TASK_STATUS status = taskLog.getStatus(taskId);
+
+		if (status == SimLogger.TASK_STATUS.COMLETED) {
+			completedTask[taskType]++;
+
+			if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
+				completedTaskOnCloud[taskType]++;
+			else if (vmType == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
+				completedTaskOnMobile[taskType]++;
+			else
+				completedTaskOnEdge[taskType]++;
+		}
+		else if(status == SimLogger.TASK_STATUS.CREATED ||
+				status == SimLogger.TASK_STATUS.UPLOADING ||
+				status == SimLogger.TASK_STATUS.PROCESSING ||
+				status == SimLogger.TASK_STATUS.DOWNLOADING)
+		{
+			uncompletedTask[taskType]++;
+			if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
+				uncompletedTaskOnCloud[taskType]++;
+			else if (vmType == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
+				uncompletedTaskOnMobile[taskType]++;
+			else
+				uncompletedTaskOnEdge[taskType]++;
+		}
+		else {
+			failedTask[taskType]++;
+
+			if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
+				failedTaskOnCloud[taskType]++;
+			else if (vmType == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
+				failedTaskOnMobile[taskType]++;
+			else
+				failedTaskOnEdge[taskType]++;
+		}
 
-	public void taskFailedDueToMobility(double time) {
-		taskEndTime = time;
-		status = SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_MOBILITY;
-	}
+		if (status == SimLogger.TASK_STATUS.COMLETED) {
+			cost[taskType] += taskLog.getCost(taskId);
+			serviceTime[taskType] += taskLog.getServiceTime(taskId);
+			networkDelay[taskType] += taskLog.getNetworkDelay(taskId);
+			processingTime[taskType] += (taskLog.getServiceTime(taskId) - taskLog.getNetworkDelay(taskId));
+			
+			int tier = EDGE_VMS;
+			if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
+				tier = CLOUD_VMS;
+			else if (vmType == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
+				tier = MOBILE_VMS;
+
+			if(taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.WLAN_DELAY) != 0) {
+				lanUsage[taskType]++;
+				lanDelay[taskType] += taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.WLAN_DELAY);
+				record(lanDelayHistogram, taskType, tier, taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.WLAN_DELAY));
+			}
+			if(taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.MAN_DELAY) != 0) {
+				manUsage[taskType]++;
+				manDelay[taskType] += taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.MAN_DELAY);
+				record(manDelayHistogram, taskType, tier, taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.MAN_DELAY));
+			}
+			if(taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.WAN_DELAY) != 0) {
+				wanUsage[taskType]++;
+				wanDelay[taskType] += taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.WAN_DELAY);
+				record(wanDelayHistogram, taskType, tier, taskLog.getNetworkDelay(taskId, NETWORK_DELAY_TYPES.WAN_DELAY));
+			}
 
-	public void setCost(double _bwCost, double _cpuCos) {
-		bwCost = _bwCost;
-		cpuCost = _cpuCos;
-	}
+			record(serviceTimeHistogram, taskType, tier, taskLog.getServiceTime(taskId));
+			if (tier == MOBILE_VMS)
+				record(processingTimeHistogram, taskType, tier, taskLog.getServiceTime(taskId));
+			else
+				record(processingTimeHistogram, taskType, tier, taskLog.getServiceTime(taskId) - taskLog.getNetworkDelay(taskId));
 
-	public boolean isInWarmUpPeriod() {
-		return isInWarmUpPeriod;
+			
+			if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal()) {
+				serviceTimeOnCloud[taskType] += taskLog.getServiceTime(taskId);
+				processingTimeOnCloud[taskType] += (taskLog.getServiceTime(taskId) - taskLog.getNetworkDelay(taskId));
+			}
+			else if (vmType == SimSettings.VM_TYPES.MOBILE_VM.ordinal()) {
+				serviceTimeOnMobile[taskType] += taskLog.getServiceTime(taskId);
+				processingTimeOnMobile[taskType] += taskLog.getServiceTime(taskId);
+			}
+			else {
+				serviceTimeOnEdge[taskType] += taskLog.getServiceTime(taskId);
+				processingTimeOnEdge[taskType] += (taskLog.getServiceTime(taskId) - taskLog.getNetworkDelay(taskId));
+			}
+		} else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_VM_CAPACITY) {
+			failedTaskDueToVmCapacity[taskType]++;
+			
+			if (vmType == SimSettings.VM_TYPES.CLOUD_VM.ordinal())
+				failedTaskDueToVmCapacityOnCloud[taskType]++;
+			else if (vmType == SimSettings.VM_TYPES.MOBILE_VM.ordinal())
+				failedTaskDueToVmCapacityOnMobile[taskType]++;
+			else
+				failedTaskDueToVmCapacityOnEdge[taskType]++;
+		} else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_BANDWIDTH
+				|| status == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_BANDWIDTH) {
+			failedTaskDuetoBw[taskType]++;
+			if (taskLog.getNetworkError(taskId) == NETWORK_ERRORS.LAN_ERROR)
+				failedTaskDuetoLanBw[taskType]++;
+			else if (taskLog.getNetworkError(taskId) == NETWORK_ERRORS.MAN_ERROR)
+				failedTaskDuetoManBw[taskType]++;
+			else if (taskLog.getNetworkError(taskId) == NETWORK_ERRORS.WAN_ERROR)
+				failedTaskDuetoWanBw[taskType]++;
+		} else if (status == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_MOBILITY) {
+			failedTaskDuetoMobility[taskType]++;
+		}
 	}
 
-	public double getCost() {
-		return bwCost + cpuCost;
-	}
+	/**
+	 * calculates total values of all app types
+	 */
+	void calculateTotals() {
+		uncompletedTask[numOfAppTypes] = IntStream.of(uncompletedTask).sum();
+		uncompletedTaskOnCloud[numOfAppTypes] = IntStream.of(uncompletedTaskOnCloud).sum();
+		uncompletedTaskOnEdge[numOfAppTypes] = IntStream.of(uncompletedTaskOnEdge).sum();
+		uncompletedTaskOnMobile[numOfAppTypes] = IntStream.of(uncompletedTaskOnMobile).sum();
 
-	public double getNetworkUploadDelay(NETWORK_DELAY_TYPES delayType) {
-		double result = 0;
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			result = lanUploadDelay;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			result = manUploadDelay;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			result = wanUploadDelay;
-		
-		return result;
-	}
+		completedTask[numOfAppTypes] = IntStream.of(completedTask).sum();
+		completedTaskOnCloud[numOfAppTypes] = IntStream.of(completedTaskOnCloud).sum();
+		completedTaskOnEdge[numOfAppTypes] = IntStream.of(completedTaskOnEdge).sum();
+		completedTaskOnMobile[numOfAppTypes] = IntStream.of(completedTaskOnMobile).sum();
 
-	public double getNetworkDownloadDelay(NETWORK_DELAY_TYPES delayType) {
-		double result = 0;
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			result = lanDownloadDelay;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			result = manDownloadDelay;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			result = wanDownloadDelay;
-		
-		return result;
-	}
-	
-	public double getNetworkDelay(NETWORK_DELAY_TYPES delayType){
-		double result = 0;
-		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
-			result = lanDownloadDelay + lanUploadDelay;
-		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
-			result = manDownloadDelay + manUploadDelay;
-		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
-			result = wanDownloadDelay + wanUploadDelay;
-		
-		return result;
-	}
-	
-	public double getNetworkDelay(){
-		return  lanUploadDelay +
-				manUploadDelay +
-				wanUploadDelay +
-				lanDownloadDelay +
-				manDownloadDelay +
-				wanDownloadDelay;
-	}
-	
-	public double getServiceTime() {
-		return taskEndTime - taskStartTime;
-	}
+		failedTask[numOfAppTypes] = IntStream.of(failedTask).sum();
+		failedTaskOnCloud[numOfAppTypes] = IntStream.of(failedTaskOnCloud).sum();
+		failedTaskOnEdge[numOfAppTypes] = IntStream.of(failedTaskOnEdge).sum();
+		failedTaskOnMobile[numOfAppTypes] = IntStream.of(failedTaskOnMobile).sum();
 
-	public SimLogger.TASK_STATUS getStatus() {
-		return status;
-	}
+		networkDelay[numOfAppTypes] = DoubleStream.of(networkDelay).sum();
+		lanDelay[numOfAppTypes] = DoubleStream.of(lanDelay).sum();
+		manDelay[numOfAppTypes] = DoubleStream.of(manDelay).sum();
+		wanDelay[numOfAppTypes] = DoubleStream.of(wanDelay).sum();
+		
+		lanUsage[numOfAppTypes] = DoubleStream.of(lanUsage).sum();
+		manUsage[numOfAppTypes] = DoubleStream.of(manUsage).sum();
+		wanUsage[numOfAppTypes] = DoubleStream.of(wanUsage).sum();
 
-	public SimLogger.NETWORK_ERRORS getNetworkError() {
-		return networkError;
-	}
-	
-	public int getVmType() {
-		return vmType;
-	}
+		serviceTime[numOfAppTypes] = DoubleStream.of(serviceTime).sum();
+		serviceTimeOnCloud[numOfAppTypes] = DoubleStream.of(serviceTimeOnCloud).sum();
+		serviceTimeOnEdge[numOfAppTypes] = DoubleStream.of(serviceTimeOnEdge).sum();
+		serviceTimeOnMobile[numOfAppTypes] = DoubleStream.of(serviceTimeOnMobile).sum();
 
-	public int getTaskType() {
-		return taskType;
-	}
+		processingTime[numOfAppTypes] = DoubleStream.of(processingTime).sum();
+		processingTimeOnCloud[numOfAppTypes] = DoubleStream.of(processingTimeOnCloud).sum();
+		processingTimeOnEdge[numOfAppTypes] = DoubleStream.of(processingTimeOnEdge).sum();
+		processingTimeOnMobile[numOfAppTypes] = DoubleStream.of(processingTimeOnMobile).sum();
 
-	public String toString(int taskId) {
-		String result = taskId + SimSettings.DELIMITER + datacenterId + SimSettings.DELIMITER + hostId
-				+ SimSettings.DELIMITER + vmId + SimSettings.DELIMITER + vmType + SimSettings.DELIMITER + taskType
-				+ SimSettings.DELIMITER + taskLenght + SimSettings.DELIMITER + taskInputType + SimSettings.DELIMITER
-				+ taskOutputSize + SimSettings.DELIMITER + taskStartTime + SimSettings.DELIMITER + taskEndTime
-				+ SimSettings.DELIMITER;
+		failedTaskDueToVmCapacity[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacity).sum();
+		failedTaskDueToVmCapacityOnCloud[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacityOnCloud).sum();
+		failedTaskDueToVmCapacityOnEdge[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacityOnEdge).sum();
+		failedTaskDueToVmCapacityOnMobile[numOfAppTypes] = IntStream.of(failedTaskDueToVmCapacityOnMobile).sum();
+		
+		cost[numOfAppTypes] = DoubleStream.of(cost).sum();
+		failedTaskDuetoBw[numOfAppTypes] = IntStream.of(failedTaskDuetoBw).sum();
+		failedTaskDuetoWanBw[numOfAppTypes] = IntStream.of(failedTaskDuetoWanBw).sum();
+		failedTaskDuetoManBw[numOfAppTypes] = IntStream.of(failedTaskDuetoManBw).sum();
+		failedTaskDuetoLanBw[numOfAppTypes] = IntStream.of(failedTaskDuetoLanBw).sum();
+		failedTaskDuetoMobility[numOfAppTypes] = IntStream.of(failedTaskDuetoMobility).sum();
 
-		if (status == SimLogger.TASK_STATUS.COMLETED){
-			result += getNetworkDelay() + SimSettings.DELIMITER;
-			result += getNetworkDelay(NETWORK_DELAY_TYPES.WLAN_DELAY) + SimSettings.DELIMITER;
-			result += getNetworkDelay(NETWORK_DELAY_TYPES.MAN_DELAY) + SimSettings.DELIMITER;
-			result += getNetworkDelay(NETWORK_DELAY_TYPES.WAN_DELAY);
-		}
-		else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_VM_CAPACITY)
-			result += "1"; // failure reason 1
-		else if (status == SimLogger.TASK_STATUS.REJECTED_DUE_TO_BANDWIDTH)
-			result += "2"; // failure reason 2
-		else if (status == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_BANDWIDTH)
-			result += "3"; // failure reason 3
-		else if (status == SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_MOBILITY)
-			result += "4"; // failure reason 4
-		else
-			result += "0"; // default failure reason
-		return result;
+		calculateTotal(serviceTimeHistogram);
+		calculateTotal(processingTimeHistogram);
+		calculateTotal(lanDelayHistogram);
+		calculateTotal(manDelayHistogram);
+		calculateTotal(wanDelayHistogram);
 	}
 }
@@ -0,0 +1,152 @@
+/*
+ * Title:        EdgeCloudSim - Random Number Service
+ *
+ * Description:
+ * SimRandom hands out independent random number streams keyed by
+ * (run seed, component, device id). The same key always yields the same
+ * stream, so a run is reproducible when the run seed is fixed, and the
+ * streams of different devices do not depend on the order in which they
+ * are consumed. The run seed is derived from the 'random_seed' property
+ * of the configuration file and the iteration number.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import org.apache.commons.math3.random.AbstractRandomGenerator;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import edu.boun.edgecloudsim.core.SimulationContext;
+
+public class SimRandom {
+	/** device id used for the streams which do not belong to a device */
+	public static final int NO_DEVICE = -1;
+
+	private long runSeed;
+	private RandomStream defaultStream;
+
+	public SimRandom() {
+		runSeed = System.currentTimeMillis();
+	}
+
+	/**
+	 * returns the random number service of the simulation context bound to the calling thread
+	 */
+	public static SimRandom getInstance() {
+		return SimulationContext.current().getSimRandom();
+	}
+
+	/**
+	 * sets the run seed from the configured seed and the iteration number;
+	 * every iteration gets different streams for the same configured seed
+	 */
+	public synchronized void setRunSeed(long seed, int iterationNumber) {
+		runSeed = mix64(seed + mix64(iterationNumber));
+		defaultStream = null;
+	}
+
+	public long getRunSeed() {
+		return runSeed;
+	}
+
+	/**
+	 * restarts the default stream; called at the beginning of each simulation
+	 * so that the runs of an iteration use the same random numbers
+	 */
+	public synchronized void reset() {
+		defaultStream = null;
+	}
+
+	/**
+	 * returns the stream used by the components which do not ask for a keyed one
+	 */
+	public synchronized RandomStream getDefaultStream() {
+		if(defaultStream == null)
+			defaultStream = getStream("default", NO_DEVICE);
+		return defaultStream;
+	}
+
+	/**
+	 * returns a new stream for the given component and device;
+	 * the same key always yields the same sequence within a run seed
+	 */
+	public RandomStream getStream(String component, int deviceId) {
+		return new RandomStream(getSeed(component, deviceId));
+	}
+
+	/**
+	 * returns a commons-math generator backed by the stream of the given key,
+	 * to be used with the commons-math distributions
+	 */
+	public RandomGenerator getGenerator(String component, int deviceId) {
+		return new StreamGenerator(getStream(component, deviceId));
+	}
+
+	/**
+	 * returns the seed of the given key
+	 */
+	public long getSeed(String component, int deviceId) {
+		long key = mix64(component.hashCode() * 0x9E3779B97F4A7C15L + deviceId);
+		return mix64(runSeed ^ key);
+	}
+
+	/**
+	 * returns an exponentially distributed random number with the given mean
+	 */
+	public static double sampleExponential(RandomStream rng, double mean) {
+		return -mean * Math.log(1.0 - rng.nextDouble());
+	}
+
+	/**
+	 * finalizer of the SplitMix64 generator, spreads the bits of the given value
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * adapter exposing a RandomStream as commons-math RandomGenerator
+	 */
+	private static class StreamGenerator extends AbstractRandomGenerator {
+		private RandomStream stream;
+
+		StreamGenerator(RandomStream _stream) {
+			stream = _stream;
+		}
+
+		@Override
+		public void setSeed(long seed) {
+			stream = new RandomStream(seed);
+			clear();
+		}
+
+		@Override
+		public double nextDouble() {
+			return stream.nextDouble();
+		}
+
+		@Override
+		public int nextInt() {
+			return stream.nextInt();
+		}
+
+		@Override
+		public int nextInt(int n) {
+			return stream.nextInt(n);
+		}
+
+		@Override
+		public long nextLong() {
+			return stream.nextLong();
+		}
+
+		@Override
+		public boolean nextBoolean() {
+			return stream.nextBoolean();
+		}
+	}
+}
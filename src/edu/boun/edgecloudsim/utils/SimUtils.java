@@ -11,29 +11,34 @@ package edu.boun.edgecloudsim.utils;
 
 import java.io.File;
 import java.util.Date;
-import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import edu.boun.edgecloudsim.core.SimulationContext;
 
 public class SimUtils {
-
-    public static final Random RNG = new Random(System.currentTimeMillis());
+    
+    /*
+     * returns the default random number stream of the simulation context bound to the calling thread
+     */
+    private static RandomStream getRNG() {
+    	return SimRandom.getInstance().getDefaultStream();
+    }
     
     public static int getRandomNumber(int start, int end) {
     	//return pd.sample();
 		long range = (long)end - (long)start + 1;
-		long fraction = (long)(range * RNG.nextDouble());
+		long fraction = (long)(range * getRNG().nextDouble());
 		return (int)(fraction + start); 
     }
     public static double getRandomDoubleNumber(double start, double end) {
     	//return pd.sample();
 		double range = end - start;
-		double fraction = (range * RNG.nextDouble());
+		double fraction = (range * getRNG().nextDouble());
 		return (fraction + start); 
     }
     public static long getRandomLongNumber(int start, int end) {
     	//return pd.sample();
 		long range = (long)end - (long)start + 1;
-		long fraction = (long)(range * RNG.nextDouble());
+		long fraction = (long)(range * getRNG().nextDouble());
 		return (fraction + start); 
     }
 
@@ -49,14 +54,14 @@ public class SimUtils {
 					if(!f.delete())
 					{
 						SimLogger.printLine("file cannot be cleared: " + f.getAbsolutePath());
-						System.exit(0);
+						SimulationContext.terminate(0);
 					}
 				}
 			}
 		}
 		else {
 			SimLogger.printLine("Output folder is not available: " + outputFolder);
-			System.exit(0);
+			SimulationContext.terminate(0);
 		}
 	}
 	public static String getTimeDifference(Date startDate, Date endDate){
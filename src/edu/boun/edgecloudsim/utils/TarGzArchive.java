@@ -0,0 +1,464 @@
+/*
+ * Title:        EdgeCloudSim - Tar.gz Archive
+ *
+ * Description:  Utility class packing a result folder into a tar.gz
+ *               archive, in the same layout produced by 'tar -czf'
+ *               in the runner scripts, writing the result files into
+ *               such an archive directly, and streaming the files of
+ *               such archives without extracting them
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class TarGzArchive {
+	private static final int BLOCK_SIZE = 512;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	//content of the open entries larger than this is kept in a temporary file
+	private static final int MAX_ENTRY_BUFFER_SIZE = 32 * 1024 * 1024;
+
+	/**
+	 * receives the regular files of an archive, see readArchive()
+	 */
+	public interface EntryVisitor {
+		/**
+		 * returns true if the content of the entry is needed
+		 */
+		boolean accept(String name);
+
+		/**
+		 * reads the content of an accepted entry; the stream must not be closed
+		 */
+		void visit(String name, InputStream in) throws IOException;
+	}
+
+	/**
+	 * packs the given folder into the archive file; entries are stored
+	 * as '<folder name>/<file name>' like 'tar -czf archive -C parent folder'
+	 */
+	public static void compressFolder(File folder, File archive) throws IOException {
+		File[] files = folder.listFiles();
+		if(files == null)
+			throw new IOException("Folder is not available: " + folder.getAbsolutePath());
+		Arrays.sort(files);
+
+		Writer writer = new Writer(archive, folder.getName(), folder.lastModified() / 1000);
+		try {
+			for(File f : files) {
+				if(f.isFile())
+					writer.addFile(f);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * deletes the files in the given folder and then the folder itself
+	 */
+	public static void deleteFolder(File folder) {
+		File[] files = folder.listFiles();
+		if(files != null) {
+			for(File f : files)
+				f.delete();
+		}
+		folder.delete();
+	}
+
+	/**
+	 * streams the regular files of the given tar.gz archive to the visitor
+	 * in archive order; ustar and GNU long names are supported
+	 */
+	public static void readArchive(File archive, EntryVisitor visitor) throws IOException {
+		InputStream in = new BufferedInputStream(new GZIPInputStream(new FileInputStream(archive), BUFFER_SIZE), BUFFER_SIZE);
+		try {
+			byte[] header = new byte[BLOCK_SIZE];
+			String longName = null;
+			while(true) {
+				readFully(in, header);
+				if(isZero(header))
+					break;
+
+				String name = readString(header, 0, 100);
+				String prefix = readString(header, 345, 155);
+				if(!prefix.isEmpty())
+					name = prefix + "/" + name;
+				if(longName != null) {
+					name = longName;
+					longName = null;
+				}
+				long size = readOctal(header, 124, 12);
+				char type = (char)header[156];
+				long padding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+
+				if(type == 'L') {
+					//GNU tar keeps the long name of the next entry as content
+					byte[] content = new byte[(int)size];
+					readFully(in, content);
+					longName = readString(content, 0, content.length);
+				}
+				else if((type == '0' || type == 0) && visitor.accept(name)) {
+					EntryInputStream entry = new EntryInputStream(in, size);
+					visitor.visit(name, entry);
+					skipFully(in, entry.remaining);
+				}
+				else {
+					skipFully(in, size);
+				}
+				skipFully(in, padding);
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private static boolean isZero(byte[] block) {
+		for(byte b : block)
+			if(b != 0)
+				return false;
+		return true;
+	}
+
+	private static String readString(byte[] data, int offset, int length) {
+		int end = offset;
+		while(end < offset + length && data[end] != 0)
+			end++;
+		return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	private static long readOctal(byte[] data, int offset, int length) {
+		//GNU tar keeps the values which do not fit into octal digits in base-256
+		if((data[offset] & 0x80) != 0) {
+			long result = data[offset] & 0x7F;
+			for(int i=offset+1; i<offset+length; i++)
+				result = (result << 8) | (data[i] & 0xFF);
+			return result;
+		}
+
+		long result = 0;
+		for(int i=offset; i<offset+length; i++) {
+			if(data[i] >= '0' && data[i] <= '7')
+				result = result * 8 + (data[i] - '0');
+			else if(data[i] == 0 || (data[i] == ' ' && result > 0))
+				break;
+		}
+		return result;
+	}
+
+	private static void readFully(InputStream in, byte[] buffer) throws IOException {
+		int offset = 0;
+		while(offset < buffer.length) {
+			int read = in.read(buffer, offset, buffer.length - offset);
+			if(read < 0)
+				throw new EOFException("Unexpected end of tar archive");
+			offset += read;
+		}
+	}
+
+	private static void skipFully(InputStream in, long count) throws IOException {
+		while(count > 0) {
+			long skipped = in.skip(count);
+			if(skipped <= 0) {
+				if(in.read() < 0)
+					throw new EOFException("Unexpected end of tar archive");
+				skipped = 1;
+			}
+			count -= skipped;
+		}
+	}
+
+	/**
+	 * writes a tar.gz archive whose entries are created while it is open,
+	 * so that the results are stored without writing them to a folder first.
+	 * The size of an entry precedes its content in the archive; therefore the
+	 * content of an open entry is kept in memory and added to the archive when
+	 * the entry is closed. The content exceeding MAX_ENTRY_BUFFER_SIZE is kept
+	 * in a temporary file next to the archive until then.
+	 */
+	public static class Writer implements Closeable {
+		private final File archive;
+		private final String folderName;
+		private final OutputStream out;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private final List<EntryOutputStream> openEntries = new ArrayList<EntryOutputStream>();
+
+		/**
+		 * entries are stored as '<folder name>/<file name>' like compressFolder()
+		 */
+		public Writer(File _archive, String _folderName, long modTime) throws IOException {
+			archive = _archive;
+			folderName = _folderName;
+			out = new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(archive), BUFFER_SIZE), BUFFER_SIZE);
+			writeHeader(out, folderName + "/", 0, modTime, true);
+		}
+
+		/**
+		 * returns the stream of a new entry; the entry is added to the archive
+		 * when the stream is closed, the stream may be used by any thread
+		 */
+		public synchronized OutputStream newEntry(String fileName) {
+			EntryOutputStream entry = new EntryOutputStream(fileName);
+			openEntries.add(entry);
+			return entry;
+		}
+
+		/**
+		 * adds the given file to the archive
+		 */
+		public synchronized void addFile(File file) throws IOException {
+			InputStream in = new FileInputStream(file);
+			try {
+				addEntry(file.getName(), file.length(), file.lastModified() / 1000, null, in);
+			}
+			finally {
+				in.close();
+			}
+		}
+
+		private synchronized void addEntry(String fileName, long size, long modTime, byte[] content, InputStream in) throws IOException {
+			writeHeader(out, folderName + "/" + fileName, size, modTime, false);
+			if(content != null) {
+				out.write(content, 0, (int)size);
+			}
+			else {
+				long remaining = size;
+				while(remaining > 0) {
+					int read = in.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+					if(read < 0)
+						throw new EOFException("File is truncated while it is added to the archive: " + fileName);
+					out.write(buffer, 0, read);
+					remaining -= read;
+				}
+			}
+			int padding = (int)((BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE);
+			out.write(new byte[padding]);
+		}
+
+		/**
+		 * writes the end of the archive; the entries which are not closed
+		 * yet, e.g. the ones of a failed simulation, are discarded
+		 */
+		@Override
+		public synchronized void close() throws IOException {
+			for(EntryOutputStream entry : openEntries)
+				entry.discard();
+			openEntries.clear();
+			try {
+				//end of archive is marked by two empty blocks
+				out.write(new byte[2 * BLOCK_SIZE]);
+			}
+			finally {
+				out.close();
+			}
+		}
+
+		/**
+		 * content of an entry which is not added to the archive yet
+		 */
+		private class EntryOutputStream extends OutputStream {
+			private final String fileName;
+			private byte[] content = new byte[8 * 1024];
+			private long size;
+			private File tempFile;
+			private OutputStream tempOut;
+			private boolean closed;
+
+			EntryOutputStream(String _fileName) {
+				fileName = _fileName;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte)b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				if(closed)
+					throw new IOException("Archive entry is closed: " + fileName);
+
+				if(tempOut == null && size + len > MAX_ENTRY_BUFFER_SIZE) {
+					tempFile = File.createTempFile(archive.getName() + ".", ".tmp", archive.getAbsoluteFile().getParentFile());
+					tempOut = new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE);
+					tempOut.write(content, 0, (int)size);
+					content = null;
+				}
+
+				if(tempOut != null) {
+					tempOut.write(b, off, len);
+				}
+				else {
+					if(size + len > content.length)
+						content = Arrays.copyOf(content, (int)Math.min(MAX_ENTRY_BUFFER_SIZE, Math.max(2 * content.length, size + len)));
+					System.arraycopy(b, off, content, (int)size, len);
+				}
+				size += len;
+			}
+
+			@Override
+			public void close() throws IOException {
+				synchronized (Writer.this) {
+					if(closed)
+						return;
+					closed = true;
+					openEntries.remove(this);
+				}
+
+				long modTime = System.currentTimeMillis() / 1000;
+				if(tempOut == null) {
+					addEntry(fileName, size, modTime, content, null);
+					content = null;
+					return;
+				}
+
+				tempOut.close();
+				try {
+					InputStream in = new FileInputStream(tempFile);
+					try {
+						addEntry(fileName, size, modTime, null, in);
+					}
+					finally {
+						in.close();
+					}
+				}
+				finally {
+					tempFile.delete();
+				}
+			}
+
+			private void discard() {
+				closed = true;
+				content = null;
+				if(tempOut != null) {
+					try {
+						tempOut.close();
+					} catch (IOException e) {
+						//the temporary file is deleted anyway
+					}
+					tempFile.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * content of a single archive entry, the underlying stream is not closed
+	 */
+	private static class EntryInputStream extends InputStream {
+		private InputStream in;
+		private long remaining;
+
+		EntryInputStream(InputStream _in, long size) {
+			in = _in;
+			remaining = size;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(remaining <= 0)
+				return -1;
+			int result = in.read();
+			if(result >= 0)
+				remaining--;
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(remaining <= 0)
+				return -1;
+			int read = in.read(b, off, (int)Math.min(len, remaining));
+			if(read > 0)
+				remaining -= read;
+			return read;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static void writeHeader(OutputStream out, String name, long size, long modTime, boolean isFolder) throws IOException {
+		byte[] header = new byte[BLOCK_SIZE];
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+
+		//ustar keeps long names in the prefix field
+		if(nameBytes.length > 100) {
+			int split = name.lastIndexOf('/', name.length() - 2);
+			byte[] prefix = name.substring(0, split).getBytes(StandardCharsets.UTF_8);
+			nameBytes = name.substring(split + 1).getBytes(StandardCharsets.UTF_8);
+			if(prefix.length > 155 || nameBytes.length > 100)
+				throw new IOException("File name is too long for tar archive: " + name);
+			System.arraycopy(prefix, 0, header, 345, prefix.length);
+		}
+		System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+
+		writeOctal(header, 100, 8, isFolder ? 0755 : 0644);
+		writeOctal(header, 108, 8, 0);
+		writeOctal(header, 116, 8, 0);
+		writeSize(header, 124, 12, size);
+		writeOctal(header, 136, 12, modTime);
+		header[156] = (byte)(isFolder ? '5' : '0');
+		System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+
+		//checksum is calculated while the checksum field is filled with spaces
+		Arrays.fill(header, 148, 156, (byte)' ');
+		long checksum = 0;
+		for(byte b : header)
+			checksum += (b & 0xFF);
+		writeOctal(header, 148, 7, checksum);
+		header[155] = ' ';
+
+		out.write(header);
+	}
+
+	/**
+	 * sizes of 8 GiB or more do not fit into 11 octal digits,
+	 * they are written in the base-256 form of GNU tar
+	 */
+	private static void writeSize(byte[] header, int offset, int length, long size) throws IOException {
+		if(size < (1L << (3 * (length - 1)))) {
+			writeOctal(header, offset, length, size);
+			return;
+		}
+
+		header[offset] = (byte)0x80;
+		for(int i=offset+length-1; i>offset; i--) {
+			header[i] = (byte)(size & 0xFF);
+			size >>>= 8;
+		}
+	}
+
+	private static void writeOctal(byte[] header, int offset, int length, long value) throws IOException {
+		String octal = Long.toOctalString(value);
+		int digits = length - 1;
+		if(value < 0 || octal.length() > digits)
+			throw new IOException("Value " + value + " does not fit into a tar header field of " + length + " bytes");
+		for(int i=0; i<digits; i++) {
+			int index = octal.length() - digits + i;
+			header[offset + i] = (byte)(index < 0 ? '0' : octal.charAt(index));
+		}
+		header[offset + digits] = 0;
+	}
+}
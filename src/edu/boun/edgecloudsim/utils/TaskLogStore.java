@@ -0,0 +1,344 @@
+/*
+ * Title:        EdgeCloudSim - Task Log Store
+ *
+ * Description:
+ * TaskLogStore keeps the log fields of the tasks in primitive arrays
+ * indexed directly by the task id. Task ids are dense integers created
+ * by the mobile device managers, so the arrays are used as a circular
+ * window starting from the oldest task which is not removed yet.
+ * When finished tasks are removed, the window moves forward and the
+ * memory usage stays proportional to the number of tasks in flight.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.Arrays;
+
+import edu.boun.edgecloudsim.core.SimSettings;
+import edu.boun.edgecloudsim.core.SimSettings.NETWORK_DELAY_TYPES;
+
+class TaskLogStore {
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final byte EMPTY = -1;
+
+	private static final SimLogger.TASK_STATUS[] STATUS_VALUES = SimLogger.TASK_STATUS.values();
+	private static final SimLogger.NETWORK_ERRORS[] ERROR_VALUES = SimLogger.NETWORK_ERRORS.values();
+	private static final int NUM_OF_DELAY_TYPES = NETWORK_DELAY_TYPES.values().length;
+
+	//tasks in [firstTaskId, endTaskId) are kept in the slots (taskId & mask)
+	private int firstTaskId;
+	private int endTaskId;
+	private int mask;
+
+	private byte[] status;
+	private byte[] networkError;
+	private boolean[] inWarmUpPeriod;
+	private int[] datacenterId;
+	private int[] hostId;
+	private int[] vmId;
+	private int[] vmType;
+	private int[] taskType;
+	private int[] taskLenght;
+	private int[] taskInputType;
+	private int[] taskOutputSize;
+	private double[] taskStartTime;
+	private double[] taskEndTime;
+	private double[] cost;
+	private double[][] uploadDelay;
+	private double[][] downloadDelay;
+
+	TaskLogStore() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		mask = capacity - 1;
+		status = new byte[capacity];
+		networkError = new byte[capacity];
+		inWarmUpPeriod = new boolean[capacity];
+		datacenterId = new int[capacity];
+		hostId = new int[capacity];
+		vmId = new int[capacity];
+		vmType = new int[capacity];
+		taskType = new int[capacity];
+		taskLenght = new int[capacity];
+		taskInputType = new int[capacity];
+		taskOutputSize = new int[capacity];
+		taskStartTime = new double[capacity];
+		taskEndTime = new double[capacity];
+		cost = new double[capacity];
+		uploadDelay = new double[NUM_OF_DELAY_TYPES][capacity];
+		downloadDelay = new double[NUM_OF_DELAY_TYPES][capacity];
+		Arrays.fill(status, EMPTY);
+	}
+
+	/**
+	 * doubles the capacity until the given task id fits into the window
+	 */
+	private void grow(int taskId) {
+		TaskLogStore old = new TaskLogStore(this);
+		int capacity = mask + 1;
+		while(taskId - firstTaskId >= capacity)
+			capacity *= 2;
+		allocate(capacity);
+
+		for(int id=firstTaskId; id<endTaskId; id++) {
+			int from = id & old.mask;
+			int to = id & mask;
+			status[to] = old.status[from];
+			networkError[to] = old.networkError[from];
+			inWarmUpPeriod[to] = old.inWarmUpPeriod[from];
+			datacenterId[to] = old.datacenterId[from];
+			hostId[to] = old.hostId[from];
+			vmId[to] = old.vmId[from];
+			vmType[to] = old.vmType[from];
+			taskType[to] = old.taskType[from];
+			taskLenght[to] = old.taskLenght[from];
+			taskInputType[to] = old.taskInputType[from];
+			taskOutputSize[to] = old.taskOutputSize[from];
+			taskStartTime[to] = old.taskStartTime[from];
+			taskEndTime[to] = old.taskEndTime[from];
+			cost[to] = old.cost[from];
+			for(int i=0; i<NUM_OF_DELAY_TYPES; i++) {
+				uploadDelay[i][to] = old.uploadDelay[i][from];
+				downloadDelay[i][to] = old.downloadDelay[i][from];
+			}
+		}
+	}
+
+	/**
+	 * shallow copy of the arrays, used while growing
+	 */
+	private TaskLogStore(TaskLogStore other) {
+		mask = other.mask;
+		status = other.status;
+		networkError = other.networkError;
+		inWarmUpPeriod = other.inWarmUpPeriod;
+		datacenterId = other.datacenterId;
+		hostId = other.hostId;
+		vmId = other.vmId;
+		vmType = other.vmType;
+		taskType = other.taskType;
+		taskLenght = other.taskLenght;
+		taskInputType = other.taskInputType;
+		taskOutputSize = other.taskOutputSize;
+		taskStartTime = other.taskStartTime;
+		taskEndTime = other.taskEndTime;
+		cost = other.cost;
+		uploadDelay = other.uploadDelay;
+		downloadDelay = other.downloadDelay;
+	}
+
+	private int slot(int taskId) {
+		int slot = taskId & mask;
+		if(taskId < firstTaskId || taskId >= endTaskId || status[slot] == EMPTY)
+			throw new IllegalArgumentException("Task " + taskId + " is not in the task log");
+		return slot;
+	}
+
+	void add(int taskId, int _taskType, int _taskLenght, int _taskInputType, int _taskOutputSize) {
+		if(firstTaskId == endTaskId) {
+			//store is empty, the window starts from this task
+			firstTaskId = taskId;
+			endTaskId = taskId;
+		}
+		else if(taskId < firstTaskId) {
+			throw new IllegalArgumentException("Task " + taskId + " is older than the oldest task in the task log");
+		}
+
+		if(taskId - firstTaskId > mask)
+			grow(taskId);
+
+		//the slots skipped by a gap in the task ids are kept empty
+		for(int id=endTaskId; id<taskId; id++)
+			status[id & mask] = EMPTY;
+		if(taskId >= endTaskId)
+			endTaskId = taskId + 1;
+
+		int slot = taskId & mask;
+		status[slot] = (byte)SimLogger.TASK_STATUS.CREATED.ordinal();
+		networkError[slot] = (byte)SimLogger.NETWORK_ERRORS.NONE.ordinal();
+		inWarmUpPeriod[slot] = false;
+		datacenterId[slot] = 0;
+		hostId[slot] = 0;
+		vmId[slot] = 0;
+		vmType[slot] = 0;
+		taskType[slot] = _taskType;
+		taskLenght[slot] = _taskLenght;
+		taskInputType[slot] = _taskInputType;
+		taskOutputSize[slot] = _taskOutputSize;
+		taskStartTime[slot] = 0;
+		taskEndTime[slot] = 0;
+		cost[slot] = 0;
+		for(int i=0; i<NUM_OF_DELAY_TYPES; i++) {
+			uploadDelay[i][slot] = 0;
+			downloadDelay[i][slot] = 0;
+		}
+	}
+
+	/**
+	 * removes the task and moves the window to the oldest remaining task
+	 */
+	void remove(int taskId) {
+		status[slot(taskId)] = EMPTY;
+		while(firstTaskId < endTaskId && status[firstTaskId & mask] == EMPTY)
+			firstTaskId++;
+	}
+
+	void clear() {
+		Arrays.fill(status, EMPTY);
+		firstTaskId = endTaskId = 0;
+	}
+
+	int getFirstTaskId() {
+		return firstTaskId;
+	}
+
+	int getEndTaskId() {
+		return endTaskId;
+	}
+
+	boolean contains(int taskId) {
+		return taskId >= firstTaskId && taskId < endTaskId && status[taskId & mask] != EMPTY;
+	}
+
+	void taskStarted(int taskId, double time) {
+		int slot = slot(taskId);
+		taskStartTime[slot] = time;
+		status[slot] = (byte)SimLogger.TASK_STATUS.UPLOADING.ordinal();
+		inWarmUpPeriod[slot] = time < SimSettings.getInstance().getWarmUpPeriod();
+	}
+
+	void setUploadDelay(int taskId, double delay, NETWORK_DELAY_TYPES delayType) {
+		uploadDelay[delayType.ordinal()][slot(taskId)] = delay;
+	}
+
+	void setDownloadDelay(int taskId, double delay, NETWORK_DELAY_TYPES delayType) {
+		downloadDelay[delayType.ordinal()][slot(taskId)] = delay;
+	}
+
+	void taskAssigned(int taskId, int _datacenterId, int _hostId, int _vmId, int _vmType) {
+		int slot = slot(taskId);
+		status[slot] = (byte)SimLogger.TASK_STATUS.PROCESSING.ordinal();
+		datacenterId[slot] = _datacenterId;
+		hostId[slot] = _hostId;
+		vmId[slot] = _vmId;
+		vmType[slot] = _vmType;
+	}
+
+	void taskExecuted(int taskId) {
+		status[slot(taskId)] = (byte)SimLogger.TASK_STATUS.DOWNLOADING.ordinal();
+	}
+
+	void taskEnded(int taskId, double time) {
+		int slot = slot(taskId);
+		taskEndTime[slot] = time;
+		status[slot] = (byte)SimLogger.TASK_STATUS.COMLETED.ordinal();
+	}
+
+	void taskRejectedDueToVMCapacity(int taskId, double time, int _vmType) {
+		int slot = slot(taskId);
+		vmType[slot] = _vmType;
+		taskEndTime[slot] = time;
+		status[slot] = (byte)SimLogger.TASK_STATUS.REJECTED_DUE_TO_VM_CAPACITY.ordinal();
+	}
+
+	void taskRejectedDueToBandwidth(int taskId, double time, int _vmType, NETWORK_DELAY_TYPES delayType) {
+		int slot = slot(taskId);
+		vmType[slot] = _vmType;
+		taskEndTime[slot] = time;
+		status[slot] = (byte)SimLogger.TASK_STATUS.REJECTED_DUE_TO_BANDWIDTH.ordinal();
+		networkError[slot] = (byte)getNetworkError(delayType).ordinal();
+	}
+
+	void taskFailedDueToBandwidth(int taskId, double time, NETWORK_DELAY_TYPES delayType) {
+		int slot = slot(taskId);
+		taskEndTime[slot] = time;
+		status[slot] = (byte)SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_BANDWIDTH.ordinal();
+		networkError[slot] = (byte)getNetworkError(delayType).ordinal();
+	}
+
+	void taskFailedDueToMobility(int taskId, double time) {
+		int slot = slot(taskId);
+		taskEndTime[slot] = time;
+		status[slot] = (byte)SimLogger.TASK_STATUS.UNFINISHED_DUE_TO_MOBILITY.ordinal();
+	}
+
+	void setCost(int taskId, double _bwCost, double _cpuCost) {
+		cost[slot(taskId)] = _bwCost + _cpuCost;
+	}
+
+	private static SimLogger.NETWORK_ERRORS getNetworkError(NETWORK_DELAY_TYPES delayType) {
+		if(delayType == NETWORK_DELAY_TYPES.WLAN_DELAY)
+			return SimLogger.NETWORK_ERRORS.LAN_ERROR;
+		else if(delayType == NETWORK_DELAY_TYPES.MAN_DELAY)
+			return SimLogger.NETWORK_ERRORS.MAN_ERROR;
+		else if(delayType == NETWORK_DELAY_TYPES.WAN_DELAY)
+			return SimLogger.NETWORK_ERRORS.WAN_ERROR;
+		return SimLogger.NETWORK_ERRORS.NONE;
+	}
+
+	boolean isInWarmUpPeriod(int taskId) {
+		return inWarmUpPeriod[slot(taskId)];
+	}
+
+	double getCost(int taskId) {
+		return cost[slot(taskId)];
+	}
+
+	double getNetworkUploadDelay(int taskId, NETWORK_DELAY_TYPES delayType) {
+		return uploadDelay[delayType.ordinal()][slot(taskId)];
+	}
+
+	double getNetworkDownloadDelay(int taskId, NETWORK_DELAY_TYPES delayType) {
+		return downloadDelay[delayType.ordinal()][slot(taskId)];
+	}
+
+	double getNetworkDelay(int taskId, NETWORK_DELAY_TYPES delayType) {
+		int slot = slot(taskId);
+		return uploadDelay[delayType.ordinal()][slot] + downloadDelay[delayType.ordinal()][slot];
+	}
+
+	double getNetworkDelay(int taskId) {
+		int slot = slot(taskId);
+		double result = 0;
+		for(int i=0; i<NUM_OF_DELAY_TYPES; i++)
+			result += uploadDelay[i][slot];
+		for(int i=0; i<NUM_OF_DELAY_TYPES; i++)
+			result += downloadDelay[i][slot];
+		return result;
+	}
+
+	double getServiceTime(int taskId) {
+		int slot = slot(taskId);
+		return taskEndTime[slot] - taskStartTime[slot];
+	}
+
+	SimLogger.TASK_STATUS getStatus(int taskId) {
+		return STATUS_VALUES[status[slot(taskId)]];
+	}
+
+	SimLogger.NETWORK_ERRORS getNetworkError(int taskId) {
+		return ERROR_VALUES[networkError[slot(taskId)]];
+	}
+
+	int getVmType(int taskId) {
+		return vmType[slot(taskId)];
+	}
+
+	int getTaskType(int taskId) {
+		return taskType[slot(taskId)];
+	}
+
+	/**
+	 * copies the fields of the given task to the record in the given slot of the deep log writer
+	 */
+	void copyTo(int taskId, DeepLogWriter writer, int writerSlot) {
+		int slot = slot(taskId);
+		writer.setRecord(writerSlot, datacenterId[slot], hostId[slot], vmId[slot], vmType[slot], taskType[slot],
+				taskLenght[slot], taskInputType[slot], taskOutputSize[slot], taskStartTime[slot], taskEndTime[slot]);
+	}
+}
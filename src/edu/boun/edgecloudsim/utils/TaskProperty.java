@@ -43,6 +43,20 @@ public class TaskProperty {
     	pesNumber = (int)SimSettings.getInstance().getTaskLookUpTable()[_taskType][8];
 	}
     
+    public TaskProperty(int _mobileDeviceId, int _taskType, double _startTime, RandomStream rng) {
+    	mobileDeviceId=_mobileDeviceId;
+    	startTime=_startTime;
+    	taskType=_taskType;
+    	
+    	//file input size, file output size and task length are exponentially distributed
+    	double[] taskProperties = SimSettings.getInstance().getTaskLookUpTable()[_taskType];
+    	inputFileSize = (long)SimRandom.sampleExponential(rng, taskProperties[5]);
+    	outputFileSize =(long)SimRandom.sampleExponential(rng, taskProperties[6]);
+    	length = (long)SimRandom.sampleExponential(rng, taskProperties[7]);
+    	
+    	pesNumber = (int)taskProperties[8];
+	}
+    
     public double getStartTime(){
     	return startTime;
     }
@@ -0,0 +1,170 @@
+/*
+ * Title:        EdgeCloudSim - Time Series Store
+ *
+ * Description:
+ * TimeSeriesStore keeps samples of several series taken at the same times
+ * in primitive arrays, without creating an object per sample. Each point
+ * keeps the minimum, maximum and sum of the samples it covers, so that
+ * points can be merged without losing the extremes.
+ * If a maximum number of points is given, the memory stays bounded: when
+ * the store is full, the older half of the points is downsampled by
+ * merging adjacent pairs, while the newer half keeps its resolution.
+ * Older parts of a long run therefore get coarser step by step.
+ * The totals of all samples are kept separately and are not affected by
+ * the downsampling.
+ *
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ * Copyright (c) 2017, Bogazici University, Istanbul, Turkey
+ */
+
+package edu.boun.edgecloudsim.utils;
+
+import java.util.Arrays;
+
+public class TimeSeriesStore {
+	private static final int INITIAL_CAPACITY = 256;
+	private static final int MIN_NUM_OF_POINTS = 4;
+
+	private final int numOfSeries;
+	private final int maxNumOfPoints;
+	private int numOfPoints;
+	private long totalNumOfSamples;
+	private final double[] totals;
+
+	//values of point i and series s are kept at index i * numOfSeries + s
+	private double[] time;
+	private int[] numOfSamples;
+	private double[] min;
+	private double[] max;
+	private double[] sum;
+
+	/**
+	 * @param _numOfSeries number of values in each sample
+	 * @param _maxNumOfPoints maximum number of points to keep, 0 keeps all samples
+	 */
+	public TimeSeriesStore(int _numOfSeries, int _maxNumOfPoints) {
+		numOfSeries = _numOfSeries;
+		maxNumOfPoints = (_maxNumOfPoints <= 0) ? 0 : Math.max(MIN_NUM_OF_POINTS, _maxNumOfPoints);
+		totals = new double[numOfSeries];
+		allocate(maxNumOfPoints == 0 ? INITIAL_CAPACITY : maxNumOfPoints);
+	}
+
+	private void allocate(int capacity) {
+		time = (time == null) ? new double[capacity] : Arrays.copyOf(time, capacity);
+		numOfSamples = (numOfSamples == null) ? new int[capacity] : Arrays.copyOf(numOfSamples, capacity);
+		min = (min == null) ? new double[capacity * numOfSeries] : Arrays.copyOf(min, capacity * numOfSeries);
+		max = (max == null) ? new double[capacity * numOfSeries] : Arrays.copyOf(max, capacity * numOfSeries);
+		sum = (sum == null) ? new double[capacity * numOfSeries] : Arrays.copyOf(sum, capacity * numOfSeries);
+	}
+
+	/**
+	 * adds a sample taken at the given time; values must have one entry for each series
+	 */
+	public void add(double _time, double[] values) {
+		if(numOfPoints == time.length) {
+			if(maxNumOfPoints == 0)
+				allocate(2 * time.length);
+			else
+				downsample();
+		}
+
+		int offset = numOfPoints * numOfSeries;
+		time[numOfPoints] = _time;
+		numOfSamples[numOfPoints] = 1;
+		for(int s=0; s<numOfSeries; s++) {
+			min[offset + s] = values[s];
+			max[offset + s] = values[s];
+			sum[offset + s] = values[s];
+			totals[s] += values[s];
+		}
+		numOfPoints++;
+		totalNumOfSamples++;
+	}
+
+	/**
+	 * merges the adjacent pairs of points in the older half of the store
+	 */
+	private void downsample() {
+		int half = numOfPoints / 2;
+		int merged = 0;
+		for(int i=0; i<half; i+=2, merged++) {
+			int from = i * numOfSeries;
+			int to = merged * numOfSeries;
+			time[merged] = time[i];
+			numOfSamples[merged] = numOfSamples[i];
+			System.arraycopy(min, from, min, to, numOfSeries);
+			System.arraycopy(max, from, max, to, numOfSeries);
+			System.arraycopy(sum, from, sum, to, numOfSeries);
+
+			if(i + 1 < half) {
+				int next = from + numOfSeries;
+				numOfSamples[merged] += numOfSamples[i + 1];
+				for(int s=0; s<numOfSeries; s++) {
+					min[to + s] = Math.min(min[to + s], min[next + s]);
+					max[to + s] = Math.max(max[to + s], max[next + s]);
+					sum[to + s] += sum[next + s];
+				}
+			}
+		}
+
+		//move the newer half next to the merged points
+		int count = numOfPoints - half;
+		System.arraycopy(time, half, time, merged, count);
+		System.arraycopy(numOfSamples, half, numOfSamples, merged, count);
+		System.arraycopy(min, half * numOfSeries, min, merged * numOfSeries, count * numOfSeries);
+		System.arraycopy(max, half * numOfSeries, max, merged * numOfSeries, count * numOfSeries);
+		System.arraycopy(sum, half * numOfSeries, sum, merged * numOfSeries, count * numOfSeries);
+		numOfPoints = merged + count;
+	}
+
+	public int getNumOfSeries() {
+		return numOfSeries;
+	}
+
+	public int getNumOfPoints() {
+		return numOfPoints;
+	}
+
+	/**
+	 * returns the time of the first sample covered by the given point
+	 */
+	public double getTime(int point) {
+		return time[point];
+	}
+
+	public int getNumOfSamples(int point) {
+		return numOfSamples[point];
+	}
+
+	public double getMin(int point, int series) {
+		return min[point * numOfSeries + series];
+	}
+
+	public double getMax(int point, int series) {
+		return max[point * numOfSeries + series];
+	}
+
+	public double getAvg(int point, int series) {
+		return sum[point * numOfSeries + series] / numOfSamples[point];
+	}
+
+	/**
+	 * returns the number of all samples added to the store
+	 */
+	public long getTotalNumOfSamples() {
+		return totalNumOfSamples;
+	}
+
+	/**
+	 * returns the sum of the values of all samples of the given series
+	 */
+	public double getTotal(int series) {
+		return totals[series];
+	}
+
+	public void clear() {
+		numOfPoints = 0;
+		totalNumOfSamples = 0;
+		Arrays.fill(totals, 0);
+	}
+}